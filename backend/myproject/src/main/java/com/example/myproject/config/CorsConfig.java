@@ -33,11 +33,13 @@ public class CorsConfig {
             "Content-Type",
             "Accept",
             "Origin",
-            "X-Requested-With"
+            "X-Requested-With",
+            "Idempotency-Key",
+            "Last-Event-ID"
         ));
 
         // ✅ Allow browser to read Authorization response header
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed"));
 
         // ✅ Do NOT allow credentials with wildcard origin
         configuration.setAllowCredentials(false);
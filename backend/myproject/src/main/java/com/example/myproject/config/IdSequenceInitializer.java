@@ -0,0 +1,80 @@
+package com.example.myproject.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Migration step for the switch from IDENTITY to pooled-lo sequence ids on
+ * orders, order_items, cart_items and products.
+ *
+ * MySQL has no sequences, so Hibernate emulates each one with a one-row table
+ * (next_val) that ddl-auto creates starting at 1 — below ids already handed out
+ * by AUTO_INCREMENT. On every startup this moves each next_val past the current
+ * MAX(id) of its table. It only ever moves forward, so several instances of this
+ * version can start together, and it is a no-op once the sequences have caught up.
+ *
+ * Deploying this needs a full stop and start, not a rolling deploy: an instance
+ * still on IDENTITY inserts at AUTO_INCREMENT, i.e. MAX(id) + 1, which is inside
+ * the 50-id block a new instance has just reserved, and every explicit id a new
+ * instance writes moves AUTO_INCREMENT into its block again, so no head start on
+ * next_val keeps the two apart. Mixed versions mean duplicate primary keys on
+ * orders and order_items.
+ *
+ * The old AUTO_INCREMENT attribute can stay on the columns (explicit ids win);
+ * once every instance runs this version it can be dropped with e.g.
+ * {@code ALTER TABLE orders MODIFY order_id BIGINT NOT NULL}.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private record Sequence(String name, String table, String idColumn) {
+    }
+
+    private static final List<Sequence> SEQUENCES = List.of(
+        new Sequence("orders_seq", "orders", "order_id"),
+        new Sequence("order_items_seq", "order_items", "order_item_id"),
+        new Sequence("cart_items_seq", "cart_items", "cart_item_id"),
+        new Sequence("products_seq", "products", "product_id")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    // Taking the EntityManagerFactory makes this run after Hibernate has created the tables
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void alignSequences() throws SQLException {
+        if (!isMySql()) return;  // real sequences elsewhere start on a fresh schema
+
+        for (Sequence seq : SEQUENCES) {
+            String max = "SELECT COALESCE(MAX(" + seq.idColumn() + "), 0) FROM " + seq.table();
+
+            jdbcTemplate.update("INSERT INTO " + seq.name() + " (next_val) SELECT (" + max + ") + 1 " +
+                "FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM " + seq.name() + ")");
+            int moved = jdbcTemplate.update("UPDATE " + seq.name() + " SET next_val = (" + max + ") + 1 " +
+                "WHERE next_val <= (" + max + ")");
+
+            if (moved > 0) {
+                System.out.println("✅ Moved " + seq.name() + " past existing " + seq.table() + " ids");
+            }
+        }
+    }
+
+    private boolean isMySql() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.myproject.config;
 
+import com.example.myproject.security.AuthRateLimitFilter;
+import com.example.myproject.security.AuthRateLimiter;
+import com.example.myproject.security.ClientIpResolver;
+import com.example.myproject.security.BoundedPasswordEncoder;
 import com.example.myproject.security.JwtAuthFilter;
 import com.example.myproject.security.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.*;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.*;
@@ -28,6 +34,12 @@ public class SecurityConfig {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     // ✅ Inject the CORS config bean from CorsConfig.java
     @Autowired
     private CorsConfigurationSource corsConfigurationSource;
@@ -43,6 +55,8 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // Permit OPTIONS preflight requests (CORS)
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // Streaming responses finish on an async dispatch; the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/products/all").permitAll()
@@ -54,20 +68,29 @@ public class SecurityConfig {
                 // Cart requires login
                 .requestMatchers("/api/cart/**").authenticated()
                 // Payment requires login
+                // Razorpay calls this directly; the body is HMAC-signed instead
+                .requestMatchers(HttpMethod.POST, "/api/payment/webhook").permitAll()
                 .requestMatchers("/api/payment/**").authenticated()
                 // Everything else requires authentication
                 .anyRequest().authenticated()
             )
             .sessionManagement(sess -> sess
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Login/register floods are turned away before any token or password work
+            .addFilterBefore(new AuthRateLimitFilter(authRateLimiter, clientIpResolver), JwtAuthFilter.class);
 
         return http.build();
     }
 
+    // BCrypt on its own bounded pool: a login flood can use at most cpu-share of the cores
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.password-hash.cpu-share:0.5}") double cpuShare,
+            @Value("${auth.password-hash.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hash.wait-ms:2000}") long waitMillis) {
+        int threads = (int) Math.max(1, Math.floor(Runtime.getRuntime().availableProcessors() * cpuShare));
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, waitMillis);
     }
 
     @Bean
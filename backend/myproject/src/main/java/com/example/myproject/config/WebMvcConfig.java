@@ -0,0 +1,23 @@
+package com.example.myproject.config;
+
+import com.example.myproject.security.AuthenticatedUserArgumentResolver;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AuthenticatedUserArgumentResolver authenticatedUserArgumentResolver;
+
+    public WebMvcConfig(AuthenticatedUserArgumentResolver authenticatedUserArgumentResolver) {
+        this.authenticatedUserArgumentResolver = authenticatedUserArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authenticatedUserArgumentResolver);
+    }
+}
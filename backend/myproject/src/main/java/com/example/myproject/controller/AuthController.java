@@ -3,7 +3,9 @@ package com.example.myproject.controller;
 import com.example.myproject.dto.AuthResponse;
 import com.example.myproject.dto.LoginRequest;
 import com.example.myproject.dto.RegisterRequest;
+import com.example.myproject.security.ClientIpResolver;
 import com.example.myproject.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -18,6 +20,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     // POST /api/auth/register
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
@@ -27,8 +32,8 @@ public class AuthController {
 
     // POST /api/auth/login
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        AuthResponse response = authService.login(request, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
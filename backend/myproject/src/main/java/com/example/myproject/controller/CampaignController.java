@@ -0,0 +1,53 @@
+package com.example.myproject.controller;
+
+import com.example.myproject.dto.CreateCampaignRequest;
+import com.example.myproject.entity.EmailCampaignEntity;
+import com.example.myproject.service.EmailCampaignService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/campaigns")
+@PreAuthorize("hasRole('ADMIN')")
+public class CampaignController {
+
+    private final EmailCampaignService campaignService;
+
+    public CampaignController(EmailCampaignService campaignService) {
+        this.campaignService = campaignService;
+    }
+
+    // POST /api/campaigns  (ADMIN only) — scheduled right away; sending starts on the next poll
+    @PostMapping
+    public ResponseEntity<EmailCampaignEntity> createCampaign(@RequestBody CreateCampaignRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(campaignService.create(request));
+    }
+
+    // GET /api/campaigns  (ADMIN only) — newest first, with progress
+    @GetMapping
+    public ResponseEntity<List<EmailCampaignEntity>> getCampaigns() {
+        return ResponseEntity.ok(campaignService.getCampaigns());
+    }
+
+    // GET /api/campaigns/{id}  (ADMIN only)
+    @GetMapping("/{id}")
+    public ResponseEntity<EmailCampaignEntity> getCampaign(@PathVariable Long id) {
+        return ResponseEntity.ok(campaignService.getCampaign(id));
+    }
+
+    // POST /api/campaigns/{id}/pause  (ADMIN only)
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<EmailCampaignEntity> pause(@PathVariable Long id) {
+        return ResponseEntity.ok(campaignService.pause(id));
+    }
+
+    // POST /api/campaigns/{id}/resume  (ADMIN only) — continues after the last finished batch
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<EmailCampaignEntity> resume(@PathVariable Long id) {
+        return ResponseEntity.ok(campaignService.resume(id));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.myproject.controller;
 
 import com.example.myproject.dto.AddToCartRequest;
 import com.example.myproject.dto.CartDTO;
+import com.example.myproject.security.AuthenticatedUser;
 import com.example.myproject.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,7 +10,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.Map;
 
 @RestController
@@ -22,49 +22,49 @@ public class CartController {
 
     // GET /api/cart  ← Cart.jsx fetchCart()
     @GetMapping
-    public ResponseEntity<CartDTO> getCart(Principal principal) {
-        CartDTO cart = cartService.getCart(principal.getName());
+    public ResponseEntity<CartDTO> getCart(AuthenticatedUser user) {
+        CartDTO cart = cartService.getCart(user.getUserId());
         return ResponseEntity.ok(cart);
     }
 
     // GET /api/cart/count  ← UserPanel.jsx (optional, now works)
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Integer>> getCartCount(Principal principal) {
-        return ResponseEntity.ok(cartService.getCartCount(principal.getName()));
+    public ResponseEntity<Map<String, Integer>> getCartCount(AuthenticatedUser user) {
+        return ResponseEntity.ok(cartService.getCartCount(user.getUserId()));
     }
 
     // POST /api/cart/add  ← UserPanel.jsx handleAddToCart()
     @PostMapping("/add")
     public ResponseEntity<CartDTO> addToCart(
-            Principal principal,
+            AuthenticatedUser user,
             @Valid @RequestBody AddToCartRequest request) {
-        CartDTO cart = cartService.addToCart(principal.getName(), request);
+        CartDTO cart = cartService.addToCart(user.getUserId(), request);
         return new ResponseEntity<>(cart, HttpStatus.OK);
     }
 
     // PUT /api/cart/items/{cartItemId}?quantity=N  ← Cart.jsx updateQuantity()
     @PutMapping("/items/{cartItemId}")
     public ResponseEntity<CartDTO> updateCartItem(
-            Principal principal,
+            AuthenticatedUser user,
             @PathVariable Long cartItemId,
             @RequestParam Integer quantity) {
-        CartDTO cart = cartService.updateCartItem(principal.getName(), cartItemId, quantity);
+        CartDTO cart = cartService.updateCartItem(user.getUserId(), cartItemId, quantity);
         return ResponseEntity.ok(cart);
     }
 
     // DELETE /api/cart/items/{cartItemId}  ← Cart.jsx removeItem()
     @DeleteMapping("/items/{cartItemId}")
     public ResponseEntity<CartDTO> removeCartItem(
-            Principal principal,
+            AuthenticatedUser user,
             @PathVariable Long cartItemId) {
-        CartDTO cart = cartService.removeCartItem(principal.getName(), cartItemId);
+        CartDTO cart = cartService.removeCartItem(user.getUserId(), cartItemId);
         return ResponseEntity.ok(cart);
     }
 
     // DELETE /api/cart/clear  ← Cart.jsx clearCart()
     @DeleteMapping("/clear")
-    public ResponseEntity<Void> clearCart(Principal principal) {
-        cartService.clearCart(principal.getName());
+    public ResponseEntity<Void> clearCart(AuthenticatedUser user) {
+        cartService.clearCart(user.getUserId());
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package com.example.myproject.controller;
 
 import com.example.myproject.dto.FavouriteDTO;
+import com.example.myproject.security.AuthenticatedUser;
 import com.example.myproject.service.FavouriteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -20,58 +20,58 @@ public class FavouriteController {
     // GET /api/favourites
     // Returns all favourited products for the logged-in user
     @GetMapping
-    public ResponseEntity<List<FavouriteDTO>> getFavourites(Principal principal) {
-        return ResponseEntity.ok(favouriteService.getFavourites(principal.getName()));
+    public ResponseEntity<List<FavouriteDTO>> getFavourites(AuthenticatedUser user) {
+        return ResponseEntity.ok(favouriteService.getFavourites(user.getUserId()));
     }
 
     // POST /api/favourites/toggle/{productId}
     // Adds if not favourited, removes if already favourited
     @PostMapping("/toggle/{productId}")
     public ResponseEntity<Map<String, Object>> toggleFavourite(
-            Principal principal,
+            AuthenticatedUser user,
             @PathVariable Long productId) {
-        return ResponseEntity.ok(favouriteService.toggleFavourite(principal.getName(), productId));
+        return ResponseEntity.ok(favouriteService.toggleFavourite(user.getUserId(), productId));
     }
 
     // GET /api/favourites/check/{productId}
     // Returns { isFavourited: true/false } for a specific product
     @GetMapping("/check/{productId}")
     public ResponseEntity<Map<String, Boolean>> checkFavourite(
-            Principal principal,
+            AuthenticatedUser user,
             @PathVariable Long productId) {
-        boolean result = favouriteService.isFavourited(principal.getName(), productId);
+        boolean result = favouriteService.isFavourited(user.getUserId(), productId);
         return ResponseEntity.ok(Map.of("isFavourited", result));
     }
 
     // GET /api/favourites/count
     // Returns { count: N }
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Long>> getFavouriteCount(Principal principal) {
-        return ResponseEntity.ok(favouriteService.getFavouriteCount(principal.getName()));
+    public ResponseEntity<Map<String, Long>> getFavouriteCount(AuthenticatedUser user) {
+        return ResponseEntity.ok(favouriteService.getFavouriteCount(user.getUserId()));
     }
 
     // GET /api/favourites/ids
     // Returns list of all favourited productIds — used for bulk heart highlighting in UI
     @GetMapping("/ids")
-    public ResponseEntity<List<Long>> getFavouritedProductIds(Principal principal) {
-        return ResponseEntity.ok(favouriteService.getFavouritedProductIds(principal.getName()));
+    public ResponseEntity<List<Long>> getFavouritedProductIds(AuthenticatedUser user) {
+        return ResponseEntity.ok(favouriteService.getFavouritedProductIds(user.getUserId()));
     }
 
     // DELETE /api/favourites/{favouriteId}
     // Remove a single favourite by its favouriteId
     @DeleteMapping("/{favouriteId}")
     public ResponseEntity<Map<String, String>> removeFavourite(
-            Principal principal,
+            AuthenticatedUser user,
             @PathVariable Long favouriteId) {
-        favouriteService.removeFavourite(principal.getName(), favouriteId);
+        favouriteService.removeFavourite(user.getUserId(), favouriteId);
         return ResponseEntity.ok(Map.of("message", "Removed from favourites"));
     }
 
     // DELETE /api/favourites/clear
     // Clear all favourites for the user
     @DeleteMapping("/clear")
-    public ResponseEntity<Map<String, String>> clearFavourites(Principal principal) {
-        favouriteService.clearAllFavourites(principal.getName());
+    public ResponseEntity<Map<String, String>> clearFavourites(AuthenticatedUser user) {
+        favouriteService.clearAllFavourites(user.getUserId());
         return ResponseEntity.ok(Map.of("message", "All favourites cleared"));
     }
 }
\ No newline at end of file
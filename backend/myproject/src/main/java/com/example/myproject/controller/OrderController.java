@@ -1,16 +1,31 @@
 package com.example.myproject.controller;
 
+import com.example.myproject.dto.BulkStatusUpdateRequest;
+import com.example.myproject.dto.BulkStatusUpdateResult;
 import com.example.myproject.dto.CreateOrderRequest;
 import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.dto.OrderSearchCriteria;
 import com.example.myproject.entity.OrderEntity;
-import com.example.myproject.entity.UserEntity;
-import com.example.myproject.repository.UserRepository;
+import com.example.myproject.security.AuthenticatedUser;
+import com.example.myproject.service.IdempotencyService;
+import com.example.myproject.service.OrderExportService;
+import com.example.myproject.service.OrderHistoryService;
+import com.example.myproject.service.OrderPushService;
 import com.example.myproject.service.OrderService;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,11 +36,19 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserRepository userRepository;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
+    private final OrderHistoryService orderHistoryService;
+    private final OrderPushService orderPushService;
 
-    public OrderController(OrderService orderService, UserRepository userRepository) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService,
+                           IdempotencyService idempotencyService, OrderHistoryService orderHistoryService,
+                           OrderPushService orderPushService) {
         this.orderService = orderService;
-        this.userRepository = userRepository;
+        this.orderExportService = orderExportService;
+        this.idempotencyService = idempotencyService;
+        this.orderHistoryService = orderHistoryService;
+        this.orderPushService = orderPushService;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -34,15 +57,22 @@ public class OrderController {
 
     /**
      * Place a COD order from cart
-     * POST /api/orders/cod
+     * POST /api/orders/cod   (optional Idempotency-Key header)
      */
     @PostMapping("/cod")
     public ResponseEntity<?> placeCodOrder(
         @Valid @RequestBody CreateOrderRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         Principal principal
     ) {
+        String userEmail = principal.getName();
+        return idempotencyService.execute(userEmail, idempotencyKey,
+            List.of("orders/cod", request),
+            () -> placeCodOrderFromCart(userEmail, request));
+    }
+
+    private ResponseEntity<?> placeCodOrderFromCart(String userEmail, CreateOrderRequest request) {
         try {
-            String userEmail = principal.getName();
             OrderEntity order = orderService.createCodOrderFromCart(userEmail, request);
             OrderDTO dto = OrderDTO.fromEntity(order);
 
@@ -62,17 +92,25 @@ public class OrderController {
 
     /**
      * Place a COD order via Buy Now (single product, bypasses cart)
-     * POST /api/orders/cod/buy-now?productId=X&quantity=Y
+     * POST /api/orders/cod/buy-now?productId=X&quantity=Y   (optional Idempotency-Key header)
      */
     @PostMapping("/cod/buy-now")
     public ResponseEntity<?> placeCodBuyNow(
         @RequestParam Long productId,
         @RequestParam(defaultValue = "1") int quantity,
         @Valid @RequestBody CreateOrderRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         Principal principal
     ) {
+        String userEmail = principal.getName();
+        return idempotencyService.execute(userEmail, idempotencyKey,
+            List.of("orders/cod/buy-now", productId, quantity, request),
+            () -> placeCodOrderFromBuyNow(userEmail, productId, quantity, request));
+    }
+
+    private ResponseEntity<?> placeCodOrderFromBuyNow(String userEmail, Long productId, int quantity,
+                                                      CreateOrderRequest request) {
         try {
-            String userEmail = principal.getName();
             OrderEntity order = orderService.createCodOrderFromBuyNow(userEmail, productId, quantity, request);
             OrderDTO dto = OrderDTO.fromEntity(order);
 
@@ -96,27 +134,88 @@ public class OrderController {
 
     /**
      * Get orders — ALL orders for ADMIN, own orders for USER
-     * GET /api/orders
+     * GET /api/orders            (?view=summary for the lightweight list without items)
+     *
+     * A customer's own history is served from OrderHistoryService's cache; the
+     * admin check reads the authority already on the token, so a cache hit does
+     * no database work in this method.
      */
     @GetMapping
-    public ResponseEntity<?> getOrders(Principal principal) {
+    public ResponseEntity<?> getOrders(
+        @RequestParam(required = false) String view,
+        Authentication authentication
+    ) {
         try {
-            String userEmail = principal.getName();
-            UserEntity caller = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            String userEmail = authentication.getName();
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(a -> "ROLE_ADMIN".equalsIgnoreCase(a.getAuthority()));
 
-            List<OrderEntity> orders;
-            if ("ADMIN".equalsIgnoreCase(caller.getRole())) {
-                orders = orderService.getAllOrders();
-            } else {
-                orders = orderService.getUserOrders(userEmail);
+            if (admin) {
+                List<OrderDTO> orderDTOs = orderService.getAllOrders().stream()
+                        .map(OrderDTO::fromEntity)
+                        .collect(Collectors.toList());
+                return ResponseEntity.ok(orderDTOs);
+            }
+
+            if ("summary".equalsIgnoreCase(view)) {
+                return ResponseEntity.ok(orderHistoryService.getSummaries(userEmail));
+            }
+            return ResponseEntity.ok(orderHistoryService.getOrders(userEmail));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Admin: paginated order list, newest first
+     * GET /api/orders/admin?page=0&size=50
+     */
+    @GetMapping("/admin")
+    public ResponseEntity<?> getOrdersPage(
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "50") int size,
+        AuthenticatedUser caller
+    ) {
+        try {
+            if (!caller.isAdmin()) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
             }
 
-            List<OrderDTO> orderDTOs = orders.stream()
-                    .map(OrderDTO::fromEntity)
-                    .collect(Collectors.toList());
+            Page<OrderDTO> result = orderService.getAllOrdersPage(page, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", result.getContent());
+            response.put("page", result.getNumber());
+            response.put("size", result.getSize());
+            response.put("totalElements", result.getTotalElements());
+            response.put("totalPages", result.getTotalPages());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Admin: search orders with combinable filters, keyset-paginated
+     * GET /api/orders/search?status=&paymentStatus=&paymentMethod=&from=&to=
+     *     &customerEmail=&city=&pincode=&minAmount=&maxAmount=&cursor=&size=
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrders(
+        @ModelAttribute OrderSearchCriteria criteria,
+        AuthenticatedUser caller
+    ) {
+        try {
+            if (!caller.isAdmin()) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+            }
 
-            return ResponseEntity.ok(orderDTOs);
+            return ResponseEntity.ok(orderService.searchOrders(criteria));
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -124,27 +223,65 @@ public class OrderController {
         }
     }
 
+    /**
+     * Live status updates for the caller's orders (Server-Sent Events)
+     * GET /api/orders/stream
+     *
+     * Browsers' EventSource can't set headers, so the JWT may come as
+     * ?access_token=... on this path; on reconnect the browser resends the last
+     * event id and missed events are replayed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrders(
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+        AuthenticatedUser caller
+    ) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(orderPushService.subscribe(caller.getUserId(), lastEventId));
+    }
+
+    /**
+     * Admin: download orders as CSV, one row per item, streamed as it is read
+     * GET /api/orders/export.csv?from=2025-01-01&to=2025-01-31
+     */
+    @GetMapping("/export.csv")
+    public ResponseEntity<?> exportOrdersCsv(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        AuthenticatedUser caller
+    ) {
+        if (!caller.isAdmin()) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+        }
+
+        StreamingResponseBody body = out -> orderExportService.writeCsv(out, from, to);
+        String filename = "orders-" + (from != null ? from : "all") + (to != null ? "-to-" + to : "") + ".csv";
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     /**
      * GET /api/orders/{orderId}
      */
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrderById(
         @PathVariable Long orderId,
-        Principal principal
+        AuthenticatedUser caller
     ) {
         try {
-            String userEmail = principal.getName();
-            UserEntity caller = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            OrderEntity order;
-            if ("ADMIN".equalsIgnoreCase(caller.getRole())) {
-                order = orderService.getOrderByIdAdmin(orderId);
+            OrderDTO order;
+            if (caller.isAdmin()) {
+                order = orderService.getOrderDTOAdmin(orderId);
             } else {
-                order = orderService.getOrderById(userEmail, orderId);
+                order = orderService.getOrderDTO(caller.getUserId(), orderId);
             }
 
-            return ResponseEntity.ok(OrderDTO.fromEntity(order));
+            return ResponseEntity.ok(order);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -158,19 +295,15 @@ public class OrderController {
     @GetMapping("/number/{orderNumber}")
     public ResponseEntity<?> getOrderByNumber(
         @PathVariable String orderNumber,
-        Principal principal
+        AuthenticatedUser caller
     ) {
         try {
-            OrderEntity order = orderService.getOrderByOrderNumber(orderNumber);
-            UserEntity caller = userRepository.findByEmail(principal.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            boolean isAdmin = "ADMIN".equalsIgnoreCase(caller.getRole());
-            if (!isAdmin && !order.getUser().getEmail().equals(principal.getName())) {
+            OrderDTO order = orderService.getOrderDTOByOrderNumber(orderNumber);
+            if (!caller.isAdmin() && !caller.getEmail().equals(order.getCustomerEmail())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Unauthorized access"));
             }
 
-            return ResponseEntity.ok(OrderDTO.fromEntity(order));
+            return ResponseEntity.ok(order);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -184,11 +317,10 @@ public class OrderController {
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<?> cancelOrder(
         @PathVariable Long orderId,
-        Principal principal
+        AuthenticatedUser caller
     ) {
         try {
-            String userEmail = principal.getName();
-            OrderEntity order = orderService.cancelOrder(userEmail, orderId);
+            OrderEntity order = orderService.cancelOrder(caller.getUserId(), orderId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Order cancelled successfully");
@@ -210,13 +342,10 @@ public class OrderController {
     public ResponseEntity<?> updateOrderStatus(
         @PathVariable Long orderId,
         @RequestBody Map<String, String> body,
-        Principal principal
+        AuthenticatedUser caller
     ) {
         try {
-            UserEntity caller = userRepository.findByEmail(principal.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            if (!"ADMIN".equalsIgnoreCase(caller.getRole())) {
+            if (!caller.isAdmin()) {
                 return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
             }
 
@@ -230,4 +359,33 @@ public class OrderController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Admin: move many orders to one status / payment status in a single request
+     * PATCH /api/orders/status   { "orderIds": [..], "status": "DELIVERED", "paymentStatus": "PAID" }
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<?> bulkUpdateOrderStatus(
+        @RequestBody BulkStatusUpdateRequest body,
+        AuthenticatedUser caller
+    ) {
+        try {
+            if (!caller.isAdmin()) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin access required"));
+            }
+
+            List<BulkStatusUpdateResult> results = orderService.bulkUpdateStatus(body);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("requested", results.size());
+            response.put("updated", results.stream().filter(r -> "UPDATED".equals(r.getOutcome())).count());
+            response.put("results", results);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.example.myproject.controller;
 
 import com.example.myproject.dto.*;
 import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.service.IdempotencyService;
 import com.example.myproject.service.OrderService;
+import com.example.myproject.service.PaymentEventService;
 import com.example.myproject.service.RazorpayService;
 import com.razorpay.RazorpayException;
 import org.springframework.http.HttpStatus;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.security.Principal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,62 +24,85 @@ public class PaymentController {
 
     private final OrderService orderService;
     private final RazorpayService razorpayService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentEventService paymentEventService;
 
-    public PaymentController(OrderService orderService, RazorpayService razorpayService) {
+    public PaymentController(OrderService orderService, RazorpayService razorpayService,
+                             IdempotencyService idempotencyService, PaymentEventService paymentEventService) {
         this.orderService = orderService;
         this.razorpayService = razorpayService;
+        this.idempotencyService = idempotencyService;
+        this.paymentEventService = paymentEventService;
     }
 
     /**
      * Step 1: Create order from cart
-     * POST /api/payment/create-order
+     * POST /api/payment/create-order   (optional Idempotency-Key header)
      */
     @PostMapping("/create-order")
     public ResponseEntity<?> createOrder(
         @Valid @RequestBody CreateOrderRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         Principal principal
     ) {
-        try {
-            String userEmail = principal.getName();
+        String userEmail = principal.getName();
+        return idempotencyService.execute(userEmail, idempotencyKey,
+            List.of("payment/create-order", request),
+            () -> createOrderFromCart(userEmail, request));
+    }
 
+    private ResponseEntity<?> createOrderFromCart(String userEmail, CreateOrderRequest request) {
+        OrderEntity order;
+        try {
             // Create order from cart
-            OrderEntity order = orderService.createOrderFromCart(userEmail, request);
-
-            // Create Razorpay order
-            RazorpayOrderResponse response = razorpayService.createRazorpayOrder(order);
-
-            return ResponseEntity.ok(response);
-
-        } catch (RazorpayException e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Failed to create Razorpay order");
-            error.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            order = orderService.createOrderFromCart(userEmail, request);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
         }
+
+        // Create Razorpay order
+        return startPayment(order);
     }
 
     /**
      * Step 1b: Create order from Buy Now (single product, bypasses cart)
-     * POST /api/payment/create-order/buy-now?productId=X&quantity=Y
+     * POST /api/payment/create-order/buy-now?productId=X&quantity=Y   (optional Idempotency-Key header)
      */
     @PostMapping("/create-order/buy-now")
     public ResponseEntity<?> createOrderBuyNow(
         @RequestParam Long productId,
         @RequestParam(defaultValue = "1") int quantity,
         @Valid @RequestBody CreateOrderRequest request,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         Principal principal
     ) {
+        String userEmail = principal.getName();
+        return idempotencyService.execute(userEmail, idempotencyKey,
+            List.of("payment/create-order/buy-now", productId, quantity, request),
+            () -> createOrderFromBuyNow(userEmail, productId, quantity, request));
+    }
+
+    private ResponseEntity<?> createOrderFromBuyNow(String userEmail, Long productId, int quantity,
+                                                    CreateOrderRequest request) {
+        OrderEntity order;
         try {
-            String userEmail = principal.getName();
+            order = orderService.createOrderFromBuyNow(userEmail, productId, quantity, request);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
 
-            OrderEntity order = orderService.createOrderFromBuyNow(userEmail, productId, quantity, request);
+        return startPayment(order);
+    }
 
+    // The order exists by now, so any failure is a 500: IdempotencyService stores
+    // it rather than letting a retry with the same key place a second order
+    private ResponseEntity<?> startPayment(OrderEntity order) {
+        try {
             RazorpayOrderResponse response = razorpayService.createRazorpayOrder(order);
-
             return ResponseEntity.ok(response);
 
         } catch (RazorpayException e) {
@@ -87,7 +113,7 @@ public class PaymentController {
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
 
@@ -124,7 +150,9 @@ public class PaymentController {
             PaymentResponse response = PaymentResponse.success(
                 order.getOrderNumber(),
                 order.getOrderId(),
-                "Payment successful"
+                order.getStatus() == OrderEntity.OrderStatus.CANCELLED
+                    ? "Payment received for a cancelled order; it will be refunded"
+                    : "Payment successful"
             );
             response.setPaymentStatus(order.getPaymentStatus().name());
             response.setOrderStatus(order.getStatus().name());
@@ -167,6 +195,36 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Razorpay webhook (payment.captured, order.paid, payment.failed)
+     * POST /api/payment/webhook   (X-Razorpay-Signature header, no JWT)
+     * The event is only stored here; it is applied by the payment event processor.
+     */
+    @PostMapping("/webhook")
+    public ResponseEntity<?> receiveWebhook(
+        @RequestBody String body,
+        @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature
+    ) {
+        Map<String, String> response = new HashMap<>();
+        if (!paymentEventService.isWebhookConfigured()) {
+            response.put("error", "Webhook secret is not configured");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        if (!paymentEventService.verifyWebhookSignature(body, signature)) {
+            response.put("error", "Invalid webhook signature");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            boolean recorded = paymentEventService.ingestWebhook(body);
+            response.put("status", recorded ? "queued" : "ignored");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Get Razorpay Key ID (for frontend)
      * GET /api/payment/config
@@ -0,0 +1,61 @@
+package com.example.myproject.controller;
+
+import com.example.myproject.entity.DailyPaymentSalesEntity;
+import com.example.myproject.entity.DailyProductSalesEntity;
+import com.example.myproject.service.MailDispatcher;
+import com.example.myproject.service.SalesRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private final SalesRollupService salesRollupService;
+    private final MailDispatcher mailDispatcher;
+
+    public ReportController(SalesRollupService salesRollupService, MailDispatcher mailDispatcher) {
+        this.salesRollupService = salesRollupService;
+        this.mailDispatcher = mailDispatcher;
+    }
+
+    // GET /api/reports/sales/products?from=2025-01-01&to=2025-01-31  (ADMIN only)
+    @GetMapping("/sales/products")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyProductSalesEntity>> getProductSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getProductSales(from, to));
+    }
+
+    // GET /api/reports/sales/payments?from=2025-01-01&to=2025-01-31  (ADMIN only)
+    @GetMapping("/sales/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyPaymentSalesEntity>> getPaymentSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getPaymentSales(from, to));
+    }
+
+    // POST /api/reports/sales/rebuild?day=2025-01-31  (ADMIN only) — on-demand reconciliation of one day
+    @PostMapping("/sales/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> rebuildDay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day) {
+        salesRollupService.rebuildDay(day);
+        return ResponseEntity.ok(Map.of("message", "Sales rollups rebuilt for " + day));
+    }
+
+    // GET /api/reports/mail  (ADMIN only) — queue depth, send latency and failures per kind of mail
+    @GetMapping("/mail")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getMailStats() {
+        return ResponseEntity.ok(mailDispatcher.snapshot());
+    }
+}
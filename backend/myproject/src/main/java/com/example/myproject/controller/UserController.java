@@ -1,13 +1,13 @@
 package com.example.myproject.controller;
 
 import com.example.myproject.dto.UserDTO;
+import com.example.myproject.security.AuthenticatedUser;
 import com.example.myproject.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -27,8 +27,15 @@ public class UserController {
 
     // GET /api/users/profile  ← used by Checkout.jsx and others (gets logged-in user's own profile)
     @GetMapping("/profile")
-    public ResponseEntity<UserDTO> getMyProfile(Principal principal) {
-        return ResponseEntity.ok(userService.getUserByEmail(principal.getName()));
+    public ResponseEntity<UserDTO> getMyProfile(AuthenticatedUser caller) {
+        return ResponseEntity.ok(userService.getUserById(caller.getUserId()));
+    }
+
+    // POST /api/users/logout-all  ← signs the logged-in user out on every device
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, String>> logoutAll(AuthenticatedUser caller) {
+        userService.revokeTokens(caller.getUserId());
+        return ResponseEntity.ok(Map.of("message", "Logged out of all sessions"));
     }
 
     // GET /api/users/{id}
@@ -0,0 +1,15 @@
+package com.example.myproject.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateRequest {
+
+    private List<Long> orderIds;
+
+    // Either or both; null leaves that field alone
+    private String status;
+    private String paymentStatus;
+}
@@ -0,0 +1,18 @@
+package com.example.myproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResult {
+
+    private Long orderId;
+
+    // UPDATED, UNCHANGED, NOT_FOUND or INVALID_TRANSITION
+    private String outcome;
+
+    private String message;
+}
@@ -0,0 +1,14 @@
+package com.example.myproject.dto;
+
+import lombok.Data;
+
+@Data
+public class CreateCampaignRequest {
+
+    private String name;
+    private String subject;
+    private String headline;
+
+    // HTML paragraphs for the body of the email
+    private String bodyHtml;
+}
@@ -0,0 +1,41 @@
+package com.example.myproject.dto;
+
+import com.example.myproject.entity.OrderEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Query parameters of GET /api/orders/search. Every filter is optional and
+ * they are AND-ed together; {@code cursor} is the opaque value returned as
+ * {@code nextCursor} by the previous page.
+ */
+@Data
+@NoArgsConstructor
+public class OrderSearchCriteria {
+
+    private OrderEntity.OrderStatus status;
+    private OrderEntity.PaymentStatus paymentStatus;
+    private OrderEntity.PaymentMethod paymentMethod;
+
+    // Inclusive calendar days on createdAt
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private String customerEmail;
+    private String city;
+    private String pincode;
+
+    // Inclusive bounds on finalAmount
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    private String cursor;
+    private Integer size = 50;
+}
@@ -0,0 +1,19 @@
+package com.example.myproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchResult {
+
+    private List<OrderDTO> orders;
+
+    // Pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
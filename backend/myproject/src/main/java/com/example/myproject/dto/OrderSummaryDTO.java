@@ -0,0 +1,33 @@
+package com.example.myproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** List-view row of an order: no items, no shipping details. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+
+    private Long orderId;
+    private String orderNumber;
+    private BigDecimal finalAmount;
+    private String status;
+    private String paymentStatus;
+    private String paymentMethod;
+    private int itemCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime deliveredAt;
+
+    public static OrderSummaryDTO fromDto(OrderDTO order) {
+        int items = order.getOrderItems() == null ? 0
+            : order.getOrderItems().stream().mapToInt(i -> i.getQuantity() != null ? i.getQuantity() : 0).sum();
+        return new OrderSummaryDTO(order.getOrderId(), order.getOrderNumber(), order.getFinalAmount(),
+            order.getStatus(), order.getPaymentStatus(), order.getPaymentMethod(), items,
+            order.getCreatedAt(), order.getDeliveredAt());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A finished order moved out of orders/order_items by the archival job. The full
+ * order (items and customer included) is kept as a gzipped OrderDTO JSON document;
+ * only the columns needed to find it are stored in the clear.
+ */
+@Entity
+@Table(
+    name = "archived_orders",
+    uniqueConstraints = @UniqueConstraint(name = "uk_archived_order_number", columnNames = "order_number"),
+    indexes = @Index(name = "idx_archived_user_created", columnList = "user_id, created_at")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrderEntity {
+
+    // Same id the order had while it was hot
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_number", nullable = false, length = 50)
+    private String orderNumber;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "payment_status", nullable = false, length = 20)
+    private String paymentStatus;
+
+    @Column(name = "final_amount", precision = 10, scale = 2)
+    private BigDecimal finalAmount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+}
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class CartItemEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long cartItemId;
 
     // ✅ CartItem is the CHILD of Cart
@@ -0,0 +1,46 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales rollup: one row per (day, payment method). Shipping lives here rather
+ * than on the product rollup because it is charged per order, not per item.
+ */
+@Entity
+@Table(name = "sales_daily_payment",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_daily_payment",
+                                             columnNames = {"sales_date", "payment_method"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyPaymentSalesEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    // OrderEntity.PaymentMethod name, or UNKNOWN for legacy rows without one
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal grossAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal shippingAmount = BigDecimal.ZERO;
+}
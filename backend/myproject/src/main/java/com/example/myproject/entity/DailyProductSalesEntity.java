@@ -0,0 +1,45 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales rollup: one row per (day, product). Maintained incrementally by
+ * SalesRollupService and rebuilt per day by the nightly reconciliation.
+ */
+@Entity
+@Table(name = "sales_daily_product",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_daily_product",
+                                             columnNames = {"sales_date", "product_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyProductSalesEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal grossAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long orderCount = 0L;
+}
@@ -0,0 +1,73 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A marketing email sent to every registered user. Recipients are walked in
+ * user-id order and {@code lastUserId} is saved after each batch, so a campaign
+ * interrupted by a crash or a pause picks up after the last batch it finished.
+ */
+@Entity
+@Table(
+    name = "email_campaigns",
+    indexes = @Index(name = "idx_campaign_status", columnList = "status, locked_until")
+)
+@Data
+@NoArgsConstructor
+public class EmailCampaignEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 150)
+    private String name;
+
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    @Column(nullable = false, length = 200)
+    private String headline;
+
+    // Admin-authored HTML, inserted into the campaign template as is
+    @Column(name = "body_html", nullable = false, columnDefinition = "TEXT")
+    private String bodyHtml;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.SCHEDULED;
+
+    // Keyset cursor: every user with a smaller or equal id has been handled
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId = 0L;
+
+    @Column(name = "sent_count", nullable = false)
+    private Integer sentCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    // Lease held by the instance running the campaign; expired means it died
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        SCHEDULED, RUNNING, PAUSED, COMPLETED
+    }
+}
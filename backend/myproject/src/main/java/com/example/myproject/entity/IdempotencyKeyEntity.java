@@ -0,0 +1,59 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One Idempotency-Key per user. While the first request runs the row is
+ * IN_PROGRESS with a short expiry (so a crashed request frees the key); once it
+ * succeeds the response is stored and replayed to retries until {@code expiresAt}.
+ */
+@Entity
+@Table(
+    name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"user_email", "idempotency_key"}),
+    indexes = @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKeyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_email", nullable = false, length = 100)
+    private String userEmail;
+
+    @Column(name = "idempotency_key", nullable = false, length = 255)
+    private String idempotencyKey;
+
+    // SHA-256 of endpoint + request body, to reject a key reused for a different request
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+}
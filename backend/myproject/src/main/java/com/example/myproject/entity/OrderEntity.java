@@ -12,14 +12,26 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Keyset pagination for the admin list/search: (filter column, created_at, order_id)
+    @Index(name = "idx_orders_created",                columnList = "created_at, order_id"),
+    @Index(name = "idx_orders_status_created",         columnList = "status, created_at, order_id"),
+    @Index(name = "idx_orders_payment_status_created", columnList = "payment_status, created_at, order_id"),
+    @Index(name = "idx_orders_payment_method_created", columnList = "payment_method, created_at, order_id"),
+    @Index(name = "idx_orders_user_created",           columnList = "user_id, created_at, order_id"),
+    @Index(name = "idx_orders_city_created",           columnList = "shipping_city, created_at, order_id"),
+    @Index(name = "idx_orders_pincode_created",        columnList = "shipping_pincode, created_at, order_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence (a table on MySQL) with pooled-lo allocation instead of IDENTITY so
+    // inserts can be JDBC-batched; see IdSequenceInitializer for existing data
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -83,6 +95,13 @@ public class OrderEntity {
 
     @Column(columnDefinition = "TEXT")
     private String orderNotes;
+
+    // True while this order holds products' stock; orders placed before stock
+    // reservation existed stay false, so cancelling them doesn't inflate stock.
+    // Set on insert only: it's cleared by conditional UPDATEs (see CheckoutService.releaseStock),
+    // so saving a stale copy of the order can never flip it back to true
+    @Column(nullable = false, updatable = false)
+    private Boolean stockReserved = false;
     
     @JsonManagedReference("order-items")
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -101,6 +120,7 @@ public class OrderEntity {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        // Fallback only — OrderService assigns numbers through OrderNumberGenerator
         if (orderNumber == null) {
             orderNumber = "ORD" + System.currentTimeMillis();
         }
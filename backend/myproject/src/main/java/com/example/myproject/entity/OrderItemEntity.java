@@ -16,7 +16,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 public class OrderItemEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long orderItemId;
     
     @JsonBackReference("order-items")
@@ -0,0 +1,77 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A side effect (email, notification, ...) recorded in the same transaction as
+ * the business change that caused it, and delivered later by the outbox relay.
+ * {@code eventKey} is unique, so recording the same logical event twice
+ * (e.g. payment confirmed by both the client callback and a retry) is a no-op.
+ */
+@Entity
+@Table(
+    name = "outbox_events",
+    uniqueConstraints = @UniqueConstraint(name = "uk_outbox_event_key", columnNames = "event_key"),
+    indexes = @Index(name = "idx_outbox_status_priority", columnList = "status, priority, id, next_attempt_at")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity implements QueuedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, length = 150)
+    private String eventKey;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Lower is claimed first; see OutboxService.priorityOf
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Lease for PROCESSING rows; an expired lease means the relay died mid-dispatch
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    // Which claim holds the lease; SENT/failed updates only apply while it still matches
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum Status {
+        PENDING, PROCESSING, SENT, DEAD
+    }
+}
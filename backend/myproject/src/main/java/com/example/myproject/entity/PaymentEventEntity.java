@@ -0,0 +1,84 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A payment outcome reported by Razorpay (webhook) or found by reconciliation,
+ * stored before it is applied so nothing is lost if applying fails or the app
+ * restarts. {@code eventKey} is "<payment id>:<type>" and unique, so Razorpay's
+ * redeliveries and a reconciliation run that finds the same payment collapse
+ * into one row.
+ */
+@Entity
+@Table(
+    name = "payment_events",
+    uniqueConstraints = @UniqueConstraint(name = "uk_payment_event_key", columnNames = "event_key"),
+    indexes = @Index(name = "idx_payment_events_status_next", columnList = "status, next_attempt_at, id")
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentEventEntity implements QueuedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_key", nullable = false, length = 150)
+    private String eventKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private Type eventType;
+
+    @Column(name = "razorpay_order_id", nullable = false, length = 100)
+    private String razorpayOrderId;
+
+    @Column(name = "razorpay_payment_id", nullable = false, length = 100)
+    private String razorpayPaymentId;
+
+    @Column(nullable = false, length = 20)
+    private String source;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    // Set with the lease; later writes only land while it still matches
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum Type {
+        PAYMENT_CAPTURED, PAYMENT_FAILED
+    }
+
+    public enum Status {
+        PENDING, PROCESSING, PROCESSED, FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.myproject.entity;
+
+/**
+ * A row in one of the DB-backed work queues (outbox_events, payment_events):
+ * what the shared claim/retry code needs to read back from a claimed event.
+ */
+public interface QueuedEvent {
+
+    Long getId();
+
+    String getEventKey();
+
+    /** Already counts the current attempt once the event has been claimed. */
+    Integer getAttempts();
+}
@@ -0,0 +1,28 @@
+package com.example.myproject.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day whose rollups were adjusted incrementally since the last reconciliation.
+ * The nightly job rebuilds only these days from orders/order_items.
+ */
+@Entity
+@Table(name = "sales_rollup_dirty_days")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupDirtyDayEntity {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "marked_at", nullable = false)
+    private LocalDateTime markedAt;
+}
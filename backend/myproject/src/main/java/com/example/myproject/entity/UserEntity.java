@@ -1,10 +1,11 @@
 package com.example.myproject.entity;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name = "users")
 public class UserEntity {
@@ -29,10 +30,13 @@ public class UserEntity {
     @Column(nullable = false)
     private String role = "USER";
 
-    // ✅ User is the PARENT of Cart
-    @JsonManagedReference("user-cart")
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private CartEntity cart;
+    // Tokens issued at or before this instant are rejected ("log out everywhere")
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+
+    // No inverse mapping to CartEntity: a mappedBy @OneToOne cannot be proxied, so it
+    // cost one extra carts SELECT for every user Hibernate hydrated (e.g. per order row).
+    // Look carts up through CartRepository instead.
 
     // Getters & Setters
     public Long getUserId() { return userId; }
@@ -47,6 +51,6 @@ public class UserEntity {
     public void setPhoneNumber(String phoneNumber) { this.phoneNumber = phoneNumber; }
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
-    public CartEntity getCart() { return cart; }
-    public void setCart(CartEntity cart) { this.cart = cart; }
+    public LocalDateTime getTokensValidAfter() { return tokensValidAfter; }
+    public void setTokensValidAfter(LocalDateTime tokensValidAfter) { this.tokensValidAfter = tokensValidAfter; }
 }
\ No newline at end of file
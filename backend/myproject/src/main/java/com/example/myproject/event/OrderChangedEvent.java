@@ -0,0 +1,21 @@
+package com.example.myproject.event;
+
+import com.example.myproject.entity.OrderEntity;
+
+/**
+ * Published whenever an order's customer-visible state changes (created, cancelled,
+ * paid, status moved). Listeners that react to it should do so after commit.
+ */
+public record OrderChangedEvent(Long orderId,
+                                Long userId,
+                                String userEmail,
+                                String orderNumber,
+                                OrderEntity.OrderStatus status,
+                                OrderEntity.PaymentStatus paymentStatus) {
+
+    /** Reads the user's email, so call it while the order is still managed. */
+    public static OrderChangedEvent of(OrderEntity order) {
+        return new OrderChangedEvent(order.getOrderId(), order.getUser().getUserId(), order.getUser().getEmail(),
+            order.getOrderNumber(), order.getStatus(), order.getPaymentStatus());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.myproject.exception;
+
+/**
+ * A delivery that can never succeed (e.g. the mail server rejected the
+ * recipient). The outbox relay marks the event DEAD instead of retrying it.
+ */
+public class PermanentDeliveryException extends RuntimeException {
+    public PermanentDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.myproject.exception;
+
+/**
+ * The caller is over a rate limit, or the server is too busy to take the work.
+ * Answered with 429 and a {@code Retry-After} of {@link #getRetryAfterSeconds()}.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(retryAfterSeconds, 1);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
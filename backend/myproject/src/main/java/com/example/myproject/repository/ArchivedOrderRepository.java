@@ -0,0 +1,16 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.ArchivedOrderEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrderEntity, Long> {
+
+    List<ArchivedOrderEntity> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<ArchivedOrderEntity> findByOrderNumber(String orderNumber);
+}
@@ -0,0 +1,5 @@
+package com.example.myproject.repository;
+
+/** Just what a campaign email needs from a user row. */
+public record CampaignRecipient(Long userId, String email, String fullName) {
+}
@@ -4,6 +4,9 @@ import com.example.myproject.entity.CartEntity;
 import com.example.myproject.entity.CartItemEntity;
 import com.example.myproject.entity.ProductEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,4 +14,8 @@ import java.util.Optional;
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItemEntity, Long> {
     Optional<CartItemEntity> findByCartAndProduct(CartEntity cart, ProductEntity product);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItemEntity ci WHERE ci.cart.cartId = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
 }
\ No newline at end of file
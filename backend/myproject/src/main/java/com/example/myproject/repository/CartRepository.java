@@ -3,6 +3,8 @@ package com.example.myproject.repository;
 import com.example.myproject.entity.CartEntity;
 import com.example.myproject.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,4 +13,9 @@ import java.util.Optional;
 public interface CartRepository extends JpaRepository<CartEntity, Long> {
     Optional<CartEntity> findByUser(UserEntity user);
     Optional<CartEntity> findByUserEmail(String email);
+
+    // Checkout: user, cart lines and their products in one statement
+    @Query("SELECT DISTINCT c FROM CartEntity c JOIN FETCH c.user u " +
+           "LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product WHERE u.email = :email")
+    Optional<CartEntity> findForCheckout(@Param("email") String email);
 }
\ No newline at end of file
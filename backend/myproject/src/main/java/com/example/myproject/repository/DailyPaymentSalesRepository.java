@@ -0,0 +1,54 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.DailyPaymentSalesEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyPaymentSalesRepository extends JpaRepository<DailyPaymentSalesEntity, Long> {
+
+    List<DailyPaymentSalesEntity> findBySalesDateBetweenOrderBySalesDateAscPaymentMethodAsc(LocalDate from, LocalDate to);
+
+    // Incremental delta (negative values for cancellations/refunds)
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_payment (sales_date, payment_method, order_count, units_sold, gross_amount, shipping_amount) " +
+                   "VALUES (:day, :method, :orders, :units, :gross, :shipping) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+                   "units_sold = units_sold + VALUES(units_sold), " +
+                   "gross_amount = gross_amount + VALUES(gross_amount), " +
+                   "shipping_amount = shipping_amount + VALUES(shipping_amount)",
+           nativeQuery = true)
+    void addDelta(@Param("day") LocalDate day,
+                  @Param("method") String method,
+                  @Param("orders") long orders,
+                  @Param("units") long units,
+                  @Param("gross") BigDecimal gross,
+                  @Param("shipping") BigDecimal shipping);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_payment WHERE sales_date = :day", nativeQuery = true)
+    void deleteDay(@Param("day") LocalDate day);
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_payment (sales_date, payment_method, order_count, units_sold, gross_amount, shipping_amount) " +
+                   "SELECT :day, COALESCE(o.payment_method, 'UNKNOWN'), COUNT(*), " +
+                   "COALESCE(SUM((SELECT SUM(oi.quantity) FROM order_items oi WHERE oi.order_id = o.order_id)), 0), " +
+                   "SUM(o.total_amount), SUM(COALESCE(o.shipping_fee, 0)) " +
+                   "FROM orders o " +
+                   "WHERE o.created_at >= :start AND o.created_at < :end " +
+                   "AND o.status IN ('CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED') " +
+                   "AND o.payment_status <> 'REFUNDED' " +
+                   "GROUP BY COALESCE(o.payment_method, 'UNKNOWN')",
+           nativeQuery = true)
+    void rebuildDay(@Param("day") LocalDate day,
+                    @Param("start") LocalDateTime start,
+                    @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,52 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.DailyProductSalesEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSalesEntity, Long> {
+
+    List<DailyProductSalesEntity> findBySalesDateBetweenOrderBySalesDateAscGrossAmountDesc(LocalDate from, LocalDate to);
+
+    // Incremental delta (negative values for cancellations/refunds)
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_product (sales_date, product_id, product_name, units_sold, gross_amount, order_count) " +
+                   "VALUES (:day, :productId, :productName, :units, :gross, :orders) " +
+                   "ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), " +
+                   "gross_amount = gross_amount + VALUES(gross_amount), " +
+                   "order_count = order_count + VALUES(order_count)",
+           nativeQuery = true)
+    void addDelta(@Param("day") LocalDate day,
+                  @Param("productId") Long productId,
+                  @Param("productName") String productName,
+                  @Param("units") long units,
+                  @Param("gross") BigDecimal gross,
+                  @Param("orders") long orders);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_product WHERE sales_date = :day", nativeQuery = true)
+    void deleteDay(@Param("day") LocalDate day);
+
+    // Reconciliation: recompute one day from the source tables (same "counts as a sale" rule as SalesRollupService)
+    @Modifying
+    @Query(value = "INSERT INTO sales_daily_product (sales_date, product_id, product_name, units_sold, gross_amount, order_count) " +
+                   "SELECT :day, oi.product_id, MAX(oi.product_name), SUM(oi.quantity), SUM(oi.subtotal), COUNT(DISTINCT o.order_id) " +
+                   "FROM orders o JOIN order_items oi ON oi.order_id = o.order_id " +
+                   "WHERE o.created_at >= :start AND o.created_at < :end " +
+                   "AND o.status IN ('CONFIRMED', 'PROCESSING', 'SHIPPED', 'DELIVERED') " +
+                   "AND o.payment_status <> 'REFUNDED' " +
+                   "GROUP BY oi.product_id",
+           nativeQuery = true)
+    void rebuildDay(@Param("day") LocalDate day,
+                    @Param("start") LocalDateTime start,
+                    @Param("end") LocalDateTime end);
+}
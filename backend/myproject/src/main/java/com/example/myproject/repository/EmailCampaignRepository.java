@@ -0,0 +1,55 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.EmailCampaignEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaignEntity, Long> {
+
+    // Scheduled campaigns, plus running ones whose lease expired (the instance died)
+    @Query("SELECT c.id FROM EmailCampaignEntity c " +
+           "WHERE c.status = com.example.myproject.entity.EmailCampaignEntity$Status.SCHEDULED " +
+           "OR (c.status = com.example.myproject.entity.EmailCampaignEntity$Status.RUNNING AND c.lockedUntil < :now) " +
+           "ORDER BY c.id")
+    List<Long> findRunnableIds(@Param("now") LocalDateTime now);
+
+    // Conditional update, so only one instance wins the lease. The CASTs are there because
+    // Hibernate can't infer a parameter's type inside COALESCE in an UPDATE
+    @Modifying
+    @Query("UPDATE EmailCampaignEntity c SET c.status = com.example.myproject.entity.EmailCampaignEntity$Status.RUNNING, " +
+           "c.lockedUntil = :lockedUntil, c.startedAt = COALESCE(c.startedAt, CAST(:now AS LocalDateTime)) WHERE c.id = :id " +
+           "AND (c.status = com.example.myproject.entity.EmailCampaignEntity$Status.SCHEDULED " +
+           "OR (c.status = com.example.myproject.entity.EmailCampaignEntity$Status.RUNNING AND c.lockedUntil < :now))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    // Saves a finished batch and sets the lease; 0 rows means the campaign was paused meanwhile
+    @Modifying
+    @Query("UPDATE EmailCampaignEntity c SET c.lastUserId = :lastUserId, c.sentCount = c.sentCount + :sent, " +
+           "c.failedCount = c.failedCount + :failed, c.lastError = COALESCE(CAST(:error AS String), c.lastError), c.lockedUntil = :lockedUntil " +
+           "WHERE c.id = :id AND c.status = com.example.myproject.entity.EmailCampaignEntity$Status.RUNNING")
+    int recordProgress(@Param("id") Long id,
+                       @Param("lastUserId") Long lastUserId,
+                       @Param("sent") int sent,
+                       @Param("failed") int failed,
+                       @Param("error") String error,
+                       @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying
+    @Query("UPDATE EmailCampaignEntity c SET c.status = com.example.myproject.entity.EmailCampaignEntity$Status.COMPLETED, " +
+           "c.completedAt = :now, c.lockedUntil = null " +
+           "WHERE c.id = :id AND c.status = com.example.myproject.entity.EmailCampaignEntity$Status.RUNNING")
+    int markCompleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EmailCampaignEntity c SET c.status = :to, c.lockedUntil = null WHERE c.id = :id AND c.status IN :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") List<EmailCampaignEntity.Status> from,
+                   @Param("to") EmailCampaignEntity.Status to);
+}
@@ -0,0 +1,51 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, Long> {
+
+    Optional<IdempotencyKeyEntity> findByUserEmailAndIdempotencyKey(String userEmail, String idempotencyKey);
+
+    // Returns 1 if we now own the key, 0 if someone else already holds it
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (user_email, idempotency_key, fingerprint, status, created_at, expires_at) " +
+                   "VALUES (:userEmail, :key, :fingerprint, 'IN_PROGRESS', :now, :expiresAt)",
+           nativeQuery = true)
+    int tryClaim(@Param("userEmail") String userEmail,
+                 @Param("key") String key,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.userEmail = :userEmail AND k.idempotencyKey = :key AND k.expiresAt < :now")
+    int deleteIfExpired(@Param("userEmail") String userEmail, @Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKeyEntity k SET k.status = :status, k.responseStatus = :responseStatus, " +
+           "k.responseBody = :responseBody, k.expiresAt = :expiresAt " +
+           "WHERE k.userEmail = :userEmail AND k.idempotencyKey = :key")
+    int complete(@Param("userEmail") String userEmail,
+                 @Param("key") String key,
+                 @Param("status") IdempotencyKeyEntity.Status status,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.userEmail = :userEmail AND k.idempotencyKey = :key")
+    int release(@Param("userEmail") String userEmail, @Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt < :now")
+    int purgeExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.example.myproject.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of an order in the (createdAt DESC, orderId DESC) ordering used by
+ * keyset pagination. Serialized to an opaque URL-safe cursor for clients.
+ */
+public record OrderKey(Long orderId, LocalDateTime createdAt) {
+
+    public String toCursor() {
+        String raw = createdAt + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderKey fromCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new OrderKey(Long.parseLong(raw.substring(sep + 1)), LocalDateTime.parse(raw.substring(0, sep)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
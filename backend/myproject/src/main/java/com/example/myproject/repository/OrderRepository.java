@@ -2,18 +2,43 @@ package com.example.myproject.repository;
 
 import com.example.myproject.entity.OrderEntity;
 import com.example.myproject.entity.UserEntity;
+import com.example.myproject.event.OrderChangedEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, OrderSearchRepository {
 
     // ✅ NEW: Fetch all orders sorted by newest first (for admin)
+    // user + items are fetched in the same query instead of 2 lazy loads per order
+    @EntityGraph(attributePaths = {"user", "orderItems"})
     List<OrderEntity> findAllByOrderByCreatedAtDesc();
 
+    // Paginated admin list, phase 1: just the ids of one page (no collection fetch,
+    // so LIMIT/OFFSET runs in the database instead of in memory)
+    @Query(value = "SELECT o.orderId FROM OrderEntity o",
+           countQuery = "SELECT COUNT(o) FROM OrderEntity o")
+    Page<Long> findOrderIds(Pageable pageable);
+
+    // Paginated admin list, phase 2: orders + users + items for those ids in one query
+    @EntityGraph(attributePaths = {"user", "orderItems"})
+    List<OrderEntity> findByOrderIdIn(Collection<Long> orderIds);
+
+    @EntityGraph(attributePaths = {"orderItems"})
     List<OrderEntity> findByUserOrderByCreatedAtDesc(UserEntity user);
 
     Optional<OrderEntity> findByOrderNumber(String orderNumber);
@@ -29,4 +54,103 @@ public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
         UserEntity user,
         OrderEntity.PaymentStatus paymentStatus
     );
-}
\ No newline at end of file
+
+    // Bulk status update: lock the rows, then change them with set-based updates.
+    // COALESCE keeps an existing timestamp and stamps it only when a value is passed.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.example.myproject.repository.OrderStatusSnapshot(o.orderId, o.status, o.paymentStatus) " +
+           "FROM OrderEntity o WHERE o.orderId IN :ids")
+    List<OrderStatusSnapshot> lockStatuses(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.status = :status, o.updatedAt = :now, " +
+           "o.deliveredAt = COALESCE(o.deliveredAt, :deliveredAt) WHERE o.orderId IN :ids")
+    int bulkUpdateStatus(@Param("ids") Collection<Long> ids,
+                         @Param("status") OrderEntity.OrderStatus status,
+                         @Param("deliveredAt") LocalDateTime deliveredAt,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.paymentStatus = :paymentStatus, o.updatedAt = :now, " +
+           "o.paidAt = COALESCE(o.paidAt, :paidAt) WHERE o.orderId IN :ids")
+    int bulkUpdatePaymentStatus(@Param("ids") Collection<Long> ids,
+                                @Param("paymentStatus") OrderEntity.PaymentStatus paymentStatus,
+                                @Param("paidAt") LocalDateTime paidAt,
+                                @Param("now") LocalDateTime now);
+
+    // Post-update state of bulk-changed orders, for OrderChangedEvent listeners
+    @Query("SELECT new com.example.myproject.event.OrderChangedEvent(" +
+           "o.orderId, u.userId, u.email, o.orderNumber, o.status, o.paymentStatus) " +
+           "FROM OrderEntity o JOIN o.user u WHERE o.orderId IN :ids")
+    List<OrderChangedEvent> findChangeEventsByOrderIds(@Param("ids") Collection<Long> ids);
+
+    // Payment callbacks for the same order (browser, webhook, reconciliation) serialize on this row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OrderEntity o WHERE o.razorpayOrderId = :razorpayOrderId")
+    Optional<OrderEntity> lockByRazorpayOrderId(@Param("razorpayOrderId") String razorpayOrderId);
+
+    // Reconciliation: unpaid Razorpay orders created in [after, before) — a FAILED attempt can still be retried and captured
+    @Query("SELECT new com.example.myproject.repository.PendingPaymentRef(o.orderId, o.razorpayOrderId, o.createdAt) " +
+           "FROM OrderEntity o WHERE o.paymentMethod = :method AND o.paymentStatus IN :paymentStatuses " +
+           "AND o.status = :status AND o.razorpayOrderId IS NOT NULL AND o.createdAt >= :after AND o.createdAt < :before ORDER BY o.createdAt, o.orderId")
+    List<PendingPaymentRef> findPendingPayments(@Param("method") OrderEntity.PaymentMethod method,
+                                                @Param("paymentStatuses") Collection<OrderEntity.PaymentStatus> paymentStatuses,
+                                                @Param("status") OrderEntity.OrderStatus status,
+                                                @Param("after") LocalDateTime after,
+                                                @Param("before") LocalDateTime before,
+                                                Pageable pageable);
+
+    // Reconciliation: Razorpay orders that never got a gateway order id (creation failed or the app died mid-way)
+    @Query("SELECT o.orderId FROM OrderEntity o WHERE o.paymentMethod = :method AND o.status = :status " +
+           "AND o.razorpayOrderId IS NULL AND o.createdAt < :before ORDER BY o.orderId")
+    List<Long> findUnstartedPayments(@Param("method") OrderEntity.PaymentMethod method,
+                                     @Param("status") OrderEntity.OrderStatus status,
+                                     @Param("before") LocalDateTime before,
+                                     Pageable pageable);
+
+    // Cancels an order whose Razorpay order was never attached; no-op once one is, or once it left PENDING
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.status = com.example.myproject.entity.OrderEntity$OrderStatus.CANCELLED, " +
+           "o.paymentStatus = com.example.myproject.entity.OrderEntity$PaymentStatus.FAILED, " +
+           "o.orderNotes = :note, o.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE o.orderId = :orderId AND o.razorpayOrderId IS NULL " +
+           "AND o.status = com.example.myproject.entity.OrderEntity$OrderStatus.PENDING")
+    int cancelUnstartedPayment(@Param("orderId") Long orderId, @Param("note") String note);
+
+    // Runs in its own short transaction after the gateway call
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.razorpayOrderId = :razorpayOrderId, o.paymentMethod = :method, " +
+           "o.updatedAt = CURRENT_TIMESTAMP WHERE o.orderId = :orderId")
+    int attachRazorpayOrder(@Param("orderId") Long orderId,
+                            @Param("razorpayOrderId") String razorpayOrderId,
+                            @Param("method") OrderEntity.PaymentMethod method);
+
+    // Locked, so two releases of the same orders can't both see them as reserved
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.orderId FROM OrderEntity o WHERE o.orderId IN :ids AND o.stockReserved = true")
+    List<Long> lockStockReservedIds(@Param("ids") Collection<Long> ids);
+
+    // Claims one order's stock for release: only the caller that flips the flag gets 1
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.stockReserved = false WHERE o.orderId = :id AND o.stockReserved = true")
+    int claimStockRelease(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.stockReserved = false WHERE o.orderId IN :ids")
+    int clearStockReserved(@Param("ids") Collection<Long> ids);
+
+    // Archival: one chunk of finished orders older than the cutoff, then delete them
+    @Query("SELECT o.orderId FROM OrderEntity o WHERE o.status IN :statuses AND o.createdAt < :cutoff")
+    List<Long> findArchivableIds(@Param("statuses") Collection<OrderEntity.OrderStatus> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderItemEntity i WHERE i.order.orderId IN :ids")
+    int deleteItemsByOrderIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrderEntity o WHERE o.orderId IN :ids")
+    int deleteByOrderIds(@Param("ids") Collection<Long> ids);
+}
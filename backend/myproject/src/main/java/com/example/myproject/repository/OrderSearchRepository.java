@@ -0,0 +1,15 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.dto.OrderSearchCriteria;
+
+import java.util.List;
+
+// Custom fragment of OrderRepository for the admin search (see OrderSearchRepositoryImpl)
+public interface OrderSearchRepository {
+
+    /**
+     * Keys of up to {@code limit} orders matching {@code criteria}, newest first,
+     * strictly after {@code after} (null = first page).
+     */
+    List<OrderKey> searchOrderKeys(OrderSearchCriteria criteria, OrderKey after, int limit);
+}
@@ -0,0 +1,82 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.dto.OrderSearchCriteria;
+import com.example.myproject.entity.OrderEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the admin search as a Criteria query so only the filters that were
+ * actually supplied end up in the WHERE clause. Each equality filter is the
+ * leading column of a (column, created_at, order_id) index on {@code orders},
+ * so MySQL can seek to the keyset position and read rows already sorted.
+ */
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderKey> searchOrderKeys(OrderSearchCriteria criteria, OrderKey after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderKey> query = cb.createQuery(OrderKey.class);
+        Root<OrderEntity> order = query.from(OrderEntity.class);
+
+        Path<Long> orderId = order.get("orderId");
+        Path<LocalDateTime> createdAt = order.get("createdAt");
+        Path<BigDecimal> finalAmount = order.get("finalAmount");
+
+        List<Predicate> where = new ArrayList<>();
+        if (criteria.getStatus() != null)
+            where.add(cb.equal(order.get("status"), criteria.getStatus()));
+        if (criteria.getPaymentStatus() != null)
+            where.add(cb.equal(order.get("paymentStatus"), criteria.getPaymentStatus()));
+        if (criteria.getPaymentMethod() != null)
+            where.add(cb.equal(order.get("paymentMethod"), criteria.getPaymentMethod()));
+        if (hasText(criteria.getCustomerEmail()))
+            // users.email is unique, so MySQL resolves this join to a constant user_id
+            where.add(cb.equal(order.get("user").get("email"), criteria.getCustomerEmail().trim()));
+        if (hasText(criteria.getCity()))
+            where.add(cb.equal(order.get("shippingCity"), criteria.getCity().trim()));
+        if (hasText(criteria.getPincode()))
+            where.add(cb.equal(order.get("shippingPincode"), criteria.getPincode().trim()));
+        if (criteria.getFrom() != null)
+            where.add(cb.greaterThanOrEqualTo(createdAt, criteria.getFrom().atStartOfDay()));
+        if (criteria.getTo() != null)
+            where.add(cb.lessThan(createdAt, criteria.getTo().plusDays(1).atStartOfDay()));
+        if (criteria.getMinAmount() != null)
+            where.add(cb.greaterThanOrEqualTo(finalAmount, criteria.getMinAmount()));
+        if (criteria.getMaxAmount() != null)
+            where.add(cb.lessThanOrEqualTo(finalAmount, criteria.getMaxAmount()));
+
+        // Keyset: (createdAt, orderId) < (after.createdAt, after.orderId)
+        if (after != null) {
+            where.add(cb.or(
+                cb.lessThan(createdAt, after.createdAt()),
+                cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(orderId, after.orderId()))
+            ));
+        }
+
+        query.select(cb.construct(OrderKey.class, orderId, createdAt))
+            .where(where.toArray(new Predicate[0]))
+            .orderBy(cb.desc(createdAt), cb.desc(orderId));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.OrderEntity;
+
+/** Current status columns of one order, read under a row lock before a bulk update. */
+public record OrderStatusSnapshot(Long orderId,
+                                  OrderEntity.OrderStatus status,
+                                  OrderEntity.PaymentStatus paymentStatus) {
+}
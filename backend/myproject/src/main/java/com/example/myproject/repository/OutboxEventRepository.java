@@ -0,0 +1,80 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.OutboxEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    // Duplicate keys are silently ignored so the caller's transaction is never poisoned
+    @Modifying
+    @Query(value = "INSERT INTO outbox_events (event_key, event_type, aggregate_id, payload, status, attempts, priority, next_attempt_at, created_at) " +
+                   "VALUES (:eventKey, :eventType, :aggregateId, :payload, 'PENDING', 0, :priority, :now, :now) " +
+                   "ON DUPLICATE KEY UPDATE event_key = event_key",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("eventKey") String eventKey,
+                       @Param("eventType") String eventType,
+                       @Param("aggregateId") Long aggregateId,
+                       @Param("payload") String payload,
+                       @Param("priority") int priority,
+                       @Param("now") LocalDateTime now);
+
+    // Due rows plus rows whose lease expired, most urgent type first (a welcome backlog
+    // never holds up order confirmations); other relay instances skip what we lock
+    @Query(value = "SELECT id FROM outbox_events " +
+                   "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+                   "OR (status = 'PROCESSING' AND locked_until < :now) " +
+                   "ORDER BY priority, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.status = com.example.myproject.entity.OutboxEventEntity$Status.PROCESSING, " +
+           "e.attempts = e.attempts + 1, e.lockedUntil = :lockedUntil, e.claimToken = :token WHERE e.id IN :ids")
+    int markProcessing(@Param("ids") Collection<Long> ids,
+                       @Param("lockedUntil") LocalDateTime lockedUntil,
+                       @Param("token") String token);
+
+    // Extends the lease on rows this claim still holds; rows another relay took over are left alone
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.lockedUntil = :lockedUntil WHERE e.id IN :ids " +
+           "AND e.status = com.example.myproject.entity.OutboxEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    int renewLease(@Param("ids") Collection<Long> ids,
+                   @Param("token") String token,
+                   @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Query("SELECT e.id FROM OutboxEventEntity e WHERE e.id IN :ids " +
+           "AND e.status = com.example.myproject.entity.OutboxEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    List<Long> findIdsHeldBy(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.status = com.example.myproject.entity.OutboxEventEntity$Status.SENT, " +
+           "e.processedAt = :now, e.lockedUntil = null, e.claimToken = null, e.lastError = null WHERE e.id IN :ids " +
+           "AND e.status = com.example.myproject.entity.OutboxEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lockedUntil = null, e.claimToken = null, e.lastError = :error WHERE e.id = :id " +
+           "AND e.status = com.example.myproject.entity.OutboxEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") OutboxEventEntity.Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error,
+                   @Param("token") String token);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEventEntity e WHERE e.status = com.example.myproject.entity.OutboxEventEntity$Status.SENT " +
+           "AND e.processedAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    long countByEventTypeAndStatus(String eventType, OutboxEventEntity.Status status);
+}
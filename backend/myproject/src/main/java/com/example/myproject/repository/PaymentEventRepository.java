@@ -0,0 +1,63 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.PaymentEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEventEntity, Long> {
+
+    // Redeliveries of the same payment outcome are ignored
+    @Modifying
+    @Query(value = "INSERT INTO payment_events (event_key, event_type, razorpay_order_id, razorpay_payment_id, source, payload, " +
+                   "status, attempts, next_attempt_at, received_at) " +
+                   "VALUES (:eventKey, :eventType, :razorpayOrderId, :razorpayPaymentId, :source, :payload, 'PENDING', 0, :now, :now) " +
+                   "ON DUPLICATE KEY UPDATE event_key = event_key",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("eventKey") String eventKey,
+                       @Param("eventType") String eventType,
+                       @Param("razorpayOrderId") String razorpayOrderId,
+                       @Param("razorpayPaymentId") String razorpayPaymentId,
+                       @Param("source") String source,
+                       @Param("payload") String payload,
+                       @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT id FROM payment_events " +
+                   "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+                   "OR (status = 'PROCESSING' AND locked_until < :now) " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE PaymentEventEntity e SET e.status = com.example.myproject.entity.PaymentEventEntity$Status.PROCESSING, " +
+           "e.attempts = e.attempts + 1, e.lockedUntil = :lockedUntil, e.claimToken = :token WHERE e.id IN :ids")
+    int markProcessing(@Param("ids") Collection<Long> ids,
+                       @Param("lockedUntil") LocalDateTime lockedUntil,
+                       @Param("token") String token);
+
+    // Both outcomes below only apply while the claim that ran the event still holds the row
+
+    @Modifying
+    @Query("UPDATE PaymentEventEntity e SET e.status = com.example.myproject.entity.PaymentEventEntity$Status.PROCESSED, " +
+           "e.processedAt = :now, e.lockedUntil = null, e.claimToken = null, e.lastError = null WHERE e.id = :id " +
+           "AND e.status = com.example.myproject.entity.PaymentEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    int markProcessed(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE PaymentEventEntity e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.lockedUntil = null, e.claimToken = null, e.lastError = :error WHERE e.id = :id " +
+           "AND e.status = com.example.myproject.entity.PaymentEventEntity$Status.PROCESSING AND e.claimToken = :token")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") PaymentEventEntity.Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error,
+                   @Param("token") String token);
+}
@@ -0,0 +1,7 @@
+package com.example.myproject.repository;
+
+import java.time.LocalDateTime;
+
+/** A Razorpay order still waiting for payment, as seen by reconciliation. */
+public record PendingPaymentRef(Long orderId, String razorpayOrderId, LocalDateTime createdAt) {
+}
@@ -2,11 +2,13 @@ package com.example.myproject.repository;
 
 import com.example.myproject.entity.ProductEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,4 +26,12 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
     List<ProductEntity> searchProducts(@Param("query") String query);
 
     List<ProductEntity> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
+
+    // Gives back the stock held by the given orders, one statement for any number of lines
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE products p SET p.stock_quantity = p.stock_quantity + " +
+                   "(SELECT SUM(oi.quantity) FROM order_items oi WHERE oi.order_id IN (:orderIds) AND oi.product_id = p.product_id) " +
+                   "WHERE p.product_id IN (SELECT oi2.product_id FROM order_items oi2 WHERE oi2.order_id IN (:orderIds))",
+           nativeQuery = true)
+    int releaseStockForOrders(@Param("orderIds") Collection<Long> orderIds);
 }
\ No newline at end of file
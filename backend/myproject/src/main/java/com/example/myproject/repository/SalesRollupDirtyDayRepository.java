@@ -0,0 +1,26 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.entity.SalesRollupDirtyDayEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SalesRollupDirtyDayRepository extends JpaRepository<SalesRollupDirtyDayEntity, LocalDate> {
+
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollup_dirty_days (sales_date, marked_at) VALUES (:day, :now) " +
+                   "ON DUPLICATE KEY UPDATE marked_at = VALUES(marked_at)",
+           nativeQuery = true)
+    void markDirty(@Param("day") LocalDate day, @Param("now") LocalDateTime now);
+
+    // Only clears the marker if nothing touched the day while it was being rebuilt
+    @Modifying
+    @Query("DELETE FROM SalesRollupDirtyDayEntity d WHERE d.salesDate = :day AND d.markedAt <= :rebuildStartedAt")
+    int clearIfUnchangedSince(@Param("day") LocalDate day, @Param("rebuildStartedAt") LocalDateTime rebuildStartedAt);
+}
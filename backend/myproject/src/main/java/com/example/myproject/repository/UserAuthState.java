@@ -0,0 +1,7 @@
+package com.example.myproject.repository;
+
+import java.time.LocalDateTime;
+
+/** What the JWT filter needs to know about a user: current email and role, and when tokens were last revoked. */
+public record UserAuthState(Long userId, String email, String role, LocalDateTime tokensValidAfter) {
+}
@@ -1,13 +1,38 @@
 package com.example.myproject.repository;
 
 import com.example.myproject.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByEmail(String email);
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    // Campaign recipients, keyset-paged on the primary key: each page is an index range scan
+    @Query("SELECT new com.example.myproject.repository.CampaignRecipient(u.userId, u.email, u.fullName) " +
+           "FROM UserEntity u WHERE u.userId > :afterUserId ORDER BY u.userId")
+    List<CampaignRecipient> findCampaignRecipients(@Param("afterUserId") Long afterUserId, Pageable pageable);
+
+    // Narrow read for the JWT filter's auth cache (no password hash, no entity hydration)
+    @Query("SELECT new com.example.myproject.repository.UserAuthState(u.userId, u.email, u.role, u.tokensValidAfter) " +
+           "FROM UserEntity u WHERE u.userId = :userId")
+    Optional<UserAuthState> findAuthStateById(@Param("userId") Long userId);
+
+    // Same read by email, for tokens that don't carry a user id
+    @Query("SELECT new com.example.myproject.repository.UserAuthState(u.userId, u.email, u.role, u.tokensValidAfter) " +
+           "FROM UserEntity u WHERE u.email = :email")
+    Optional<UserAuthState> findAuthStateByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.tokensValidAfter = :validAfter WHERE u.userId = :userId")
+    int revokeTokens(@Param("userId") Long userId, @Param("validAfter") LocalDateTime validAfter);
+}
@@ -0,0 +1,59 @@
+package com.example.myproject.security;
+
+import com.example.myproject.exception.TooManyRequestsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Per-IP rate limit on {@code POST /api/auth/**} (login, register), ahead of
+ * {@link JwtAuthFilter} in the security chain. Over the limit the request is
+ * answered 429 with {@code Retry-After} here, before any body parsing or hashing.
+ *
+ * The IP comes from {@link ClientIpResolver}, so behind the platform's proxy it
+ * is the client's, not the proxy's.
+ */
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PATH = "/api/auth/";
+
+    private final AuthRateLimiter rateLimiter;
+    private final ClientIpResolver clientIpResolver;
+
+    public AuthRateLimitFilter(AuthRateLimiter rateLimiter, ClientIpResolver clientIpResolver) {
+        this.rateLimiter = rateLimiter;
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !request.getServletPath().startsWith(AUTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            rateLimiter.checkIp(clientIpResolver.resolve(request));
+        } catch (TooManyRequestsException e) {
+            // Same shape as GlobalExceptionHandler's 429
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
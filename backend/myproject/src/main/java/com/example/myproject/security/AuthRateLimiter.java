@@ -0,0 +1,71 @@
+package com.example.myproject.security;
+
+import com.example.myproject.exception.TooManyRequestsException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits for the unauthenticated auth endpoints, where every request costs a
+ * BCrypt hash: per client IP (checked by {@link AuthRateLimitFilter} before the
+ * request reaches Spring MVC) and per account and IP for failed logins.
+ *
+ * The login bucket is only charged when the password is wrong, and is keyed by
+ * account plus client IP: someone who merely knows an email address can't lock
+ * its owner out, because their failures drain their own bucket, not the one the
+ * owner logs in from. Guesses spread over many IPs are still bounded by each
+ * IP's own limit.
+ *
+ * Buckets live in the {@link RateLimitStore} bean if one is declared (shared
+ * between nodes), otherwise in this instance's memory.
+ */
+@Component
+public class AuthRateLimiter {
+
+    private final RateLimitStore store;
+    private final RateLimit perIp;
+    private final RateLimit failedLogins;
+
+    public AuthRateLimiter(
+        ObjectProvider<RateLimitStore> sharedStore,
+        @Value("${auth.rate-limit.max-keys:100000}") long maxKeys,
+        @Value("${auth.rate-limit.ip.capacity:20}") long ipCapacity,
+        @Value("${auth.rate-limit.ip.per-minute:20}") double ipPerMinute,
+        @Value("${auth.rate-limit.account.capacity:5}") long accountCapacity,
+        @Value("${auth.rate-limit.account.per-minute:5}") double accountPerMinute
+    ) {
+        this.store = sharedStore.getIfAvailable(() -> new InMemoryRateLimitStore(maxKeys));
+        this.perIp = new RateLimit(ipCapacity, ipPerMinute);
+        this.failedLogins = new RateLimit(accountCapacity, accountPerMinute);
+    }
+
+    public void checkIp(String ip) {
+        reject(store.tryConsume("ip:" + ip, perIp));
+    }
+
+    /** Before checking a password: refuses while this IP has used up its failures for the account. */
+    public void checkLogin(String email, String ip) {
+        if (email == null) return;
+        reject(store.waitNanos(loginKey(email, ip), failedLogins));
+    }
+
+    /** After a wrong password: charges the account-and-IP bucket. */
+    public void recordLoginFailure(String email, String ip) {
+        if (email == null) return;
+        store.tryConsume(loginKey(email, ip), failedLogins);
+    }
+
+    private static String loginKey(String email, String ip) {
+        return "login:" + email.trim().toLowerCase(Locale.ROOT) + "|" + ip;
+    }
+
+    private static void reject(long waitNanos) {
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new TooManyRequestsException("Too many attempts. Try again in " + seconds + " seconds.", seconds);
+        }
+    }
+}
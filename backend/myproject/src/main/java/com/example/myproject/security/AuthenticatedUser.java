@@ -0,0 +1,73 @@
+package com.example.myproject.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The caller of the current request, as put in the security context by
+ * {@link JwtAuthFilter}: id, email and role, with no database behind it.
+ *
+ * Controllers take it as a parameter (see {@link AuthenticatedUserArgumentResolver})
+ * and hand the id to services, which use {@code getReferenceById} instead of
+ * loading the user by email. {@link #getUsername()} is the email, so code reading
+ * {@code Principal.getName()} keeps working.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long userId, String email, String role) {
+        this(userId, email, role, "");
+    }
+
+    // With the password hash: only for the login check in CustomUserDetailsService
+    AuthenticatedUser(Long userId, String email, String role, String password) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.password = password;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    public Long getUserId() { return userId; }
+    public String getEmail() { return email; }
+    public String getRole() { return role; }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String getPassword() { return password; }
+
+    @Override
+    public String getUsername() { return email; }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[" + userId + ", " + email + ", " + role + "]";
+    }
+}
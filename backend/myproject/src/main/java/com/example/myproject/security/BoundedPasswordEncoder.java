@@ -0,0 +1,87 @@
+package com.example.myproject.security;
+
+import com.example.myproject.exception.TooManyRequestsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a (BCrypt) password encoder on a fixed pool of {@code threads} workers, so
+ * hashing never uses more than that many cores however many requests arrive. Up
+ * to {@code queueCapacity} hashes wait for a worker; beyond that, or when the
+ * hash isn't done within {@code waitMillis}, the caller gets a
+ * {@link TooManyRequestsException} (429) instead of piling up request threads.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitMillis;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long waitMillis) {
+        this.delegate = delegate;
+        this.waitMillis = waitMillis;
+        AtomicInteger count = new AtomicInteger();
+        int poolSize = Math.max(threads, 1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), r -> {
+                Thread t = new Thread(r, "password-hash-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> hash) {
+        Future<T> future;
+        try {
+            future = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static TooManyRequestsException busy() {
+        return new TooManyRequestsException("Too many sign-ins in progress. Please try again shortly.", 1);
+    }
+
+    /** Called by Spring on shutdown (inferred destroy method). */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
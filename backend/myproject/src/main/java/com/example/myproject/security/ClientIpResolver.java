@@ -0,0 +1,54 @@
+package com.example.myproject.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+
+/**
+ * The client IP the auth rate limits are keyed by.
+ *
+ * In production every request arrives from the platform's edge proxy, so
+ * {@code getRemoteAddr()} alone would put all clients in one bucket. When the
+ * peer is a trusted proxy ({@code auth.rate-limit.trusted-proxies}), the client
+ * is the right-most {@code X-Forwarded-For} entry that isn't itself a trusted
+ * proxy. Entries further left were written by the client and are ignored, and
+ * the header is ignored altogether when the peer isn't trusted, so it can't be
+ * used to pick a fresh bucket per request.
+ */
+@Component
+public class ClientIpResolver {
+
+    static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Pattern trustedProxies;
+
+    public ClientIpResolver(
+        // Loopback plus 100.64.0.0/10, the shared range the platform's edge connects from
+        @Value("${auth.rate-limit.trusted-proxies:127\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}|0:0:0:0:0:0:0:1|::1"
+            + "|100\\.(6[4-9]|[7-9]\\d|1[01]\\d|12[0-7])\\.\\d{1,3}\\.\\d{1,3}}") String trustedProxies
+    ) {
+        this.trustedProxies = Pattern.compile(trustedProxies);
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String client = request.getRemoteAddr();
+        if (client == null || !isTrusted(client)) return client;
+
+        String forwarded = request.getHeader(FORWARDED_FOR);
+        if (forwarded == null) return client;
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) break;
+            client = hop;
+            if (!isTrusted(hop)) break;
+        }
+        return client;
+    }
+
+    private boolean isTrusted(String ip) {
+        return trustedProxies.matcher(ip).matches();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.myproject.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets in a bounded Caffeine cache. A bucket untouched for an hour is
+ * dropped, which is the same as it having refilled; under a flood of distinct
+ * keys the least recently used go first.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        synchronized long tryConsume(RateLimit limit, long now) {
+            refill(limit, now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / limit.tokensPerNano());
+        }
+
+        synchronized long waitNanos(RateLimit limit, long now) {
+            refill(limit, now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / limit.tokensPerNano());
+        }
+
+        private void refill(RateLimit limit, long now) {
+            tokens = Math.min(limit.capacity(), tokens + (now - refilledAt) * limit.tokensPerNano());
+            refilledAt = now;
+        }
+    }
+
+    private final Cache<String, Bucket> buckets;
+    private final LongSupplier nanoClock;
+
+    public InMemoryRateLimitStore(long maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    InMemoryRateLimitStore(long maxKeys, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+    }
+
+    @Override
+    public long tryConsume(String key, RateLimit limit) {
+        long now = nanoClock.getAsLong();
+        return buckets.get(key, k -> new Bucket(limit.capacity(), now)).tryConsume(limit, now);
+    }
+
+    @Override
+    public long waitNanos(String key, RateLimit limit) {
+        Bucket bucket = buckets.getIfPresent(key);
+        return bucket == null ? 0 : bucket.waitNanos(limit, nanoClock.getAsLong());
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.myproject.security;
 
+import com.example.myproject.repository.UserAuthState;
+import com.example.myproject.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,7 +18,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 
+/**
+ * Authenticates requests carrying a JWT; the principal is an {@link AuthenticatedUser}.
+ *
+ * Tokens carry the user id and role as claims, so once the signature and expiry
+ * check out the principal is built from the claims and {@link UserAuthCache};
+ * the only database read is a cache miss. The cached state, not the token, decides
+ * the role (a demoted admin loses access within the cache TTL) and whether the
+ * token was revoked by "log out everywhere". Tokens issued before user ids were
+ * embedded, or any token when {@code jwt.stateless-auth=false}, are checked
+ * against the users table on every request, revocation included.
+ */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
@@ -21,7 +41,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserAuthCache userAuthCache;
+
+    @Value("${jwt.stateless-auth:true}")
+    private boolean statelessAuth;
+
+    // EventSource can't send an Authorization header, so only the order stream accepts the token as a parameter
+    private static final String STREAM_PATH = "/api/orders/stream";
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -31,23 +60,33 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
         String token = null;
-        String email = null;
+        Claims claims = null;
 
         // Extract token from "Bearer <token>"
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
+        } else if (STREAM_PATH.equals(request.getServletPath())) {
+            token = request.getParameter("access_token");
+        }
+
+        if (token != null) {
             try {
-                email = jwtUtil.extractUsername(token);
-            } catch (Exception e) {
+                // Signature and expiry are verified here, once
+                claims = jwtUtil.parseClaims(token);
+            } catch (JwtException | IllegalArgumentException e) {
                 // Invalid token - do nothing, let request proceed without auth
             }
         }
 
-        // Validate token and set authentication in security context
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        // Set authentication in security context
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Object userId = claims.get(JwtUtil.USER_ID_CLAIM);
+            UserDetails userDetails = statelessAuth && userId instanceof Number id
+                    ? fromClaims(id.longValue(), claims.getIssuedAt())
+                    : fromDatabase(claims.getSubject(), claims.getIssuedAt());
 
-            if (jwtUtil.validateToken(token, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -58,4 +97,30 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails fromClaims(Long userId, Date issuedAt) {
+        UserAuthState state = userAuthCache.get(userId).orElse(null);
+        if (state == null || isRevoked(issuedAt, state.tokensValidAfter())) {
+            return null;
+        }
+        // Current email and role from the cache, so renames and role changes apply without a new token
+        return new AuthenticatedUser(state.userId(), state.email(), state.role());
+    }
+
+    private UserDetails fromDatabase(String email, Date issuedAt) {
+        UserAuthState state = userRepository.findAuthStateByEmail(email).orElse(null);
+        if (state == null || isRevoked(issuedAt, state.tokensValidAfter())) {
+            return null;
+        }
+        // Same principal as the stateless path, minus the password hash
+        return new AuthenticatedUser(state.userId(), state.email(), state.role());
+    }
+
+    // iat has whole-second precision, so a token from the same second as the revocation is rejected too
+    private static boolean isRevoked(Date issuedAt, LocalDateTime validAfter) {
+        if (validAfter == null) return false;
+        if (issuedAt == null) return true;
+        Date cutoff = Date.from(validAfter.truncatedTo(ChronoUnit.SECONDS).atZone(ZoneId.systemDefault()).toInstant());
+        return !issuedAt.after(cutoff);
+    }
+}
@@ -1,29 +1,74 @@
 package com.example.myproject.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * The HMAC key and the parser are built once; both are immutable and thread-safe.
+ * A token that verified is remembered, by the SHA-256 of its text, until it expires
+ * (at most {@code jwt.verified-cache.max-tokens} of them), so a client repeating
+ * its token skips the signature check and JSON parsing. Revocation and role
+ * changes aren't decided here but in {@link JwtAuthFilter}, per request.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // Claims carried by every token, so the filter can authenticate without loading the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final Long expiration;
+    private final Cache<ByteBuffer, Claims> verified;
 
-    // Generate signing key
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public JwtUtil(
+        @Value("${jwt.secret}") String secret,
+        @Value("${jwt.expiration}") Long expiration,
+        @Value("${jwt.verified-cache.max-tokens:10000}") long maxVerifiedTokens
+    ) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.expiration = expiration;
+        this.verified = Caffeine.newBuilder()
+            .maximumSize(maxVerifiedTokens)
+            .expireAfter(new Expiry<ByteBuffer, Claims>() {
+                @Override
+                public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+                    long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+                }
+
+                @Override
+                public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
     }
 
     // Generate token for a user
@@ -37,20 +82,25 @@ public class JwtUtil {
         return createToken(extraClaims, userDetails.getUsername());
     }
 
+    // Generate token for a subject (email) with the given claims
+    public String generateToken(String subject, Map<String, Object> claims) {
+        return createToken(claims, subject);
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // Validate token
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
     // Extract username (email) from token
@@ -65,19 +115,37 @@ public class JwtUtil {
 
     // Extract any claim from token
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies signature and expiry and returns every claim; throws JwtException when
+     * the token is invalid. The returned claims may be shared between requests: read only.
+     */
+    public Claims parseClaims(String token) {
+        ByteBuffer key = sha256(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null && !isTokenExpired(claims)) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        // Tokens without an expiry are verified every time rather than cached forever
+        if (claims.getExpiration() != null) {
+            verified.put(key, claims);
+        }
+        return claims;
+    }
+
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static ByteBuffer sha256(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.example.myproject.security;
+
+/** A token bucket: up to {@code capacity} requests at once, refilled at {@code perMinute}. */
+public record RateLimit(long capacity, double perMinute) {
+
+    public RateLimit {
+        if (capacity < 1 || perMinute <= 0) {
+            throw new IllegalArgumentException("Rate limit needs capacity >= 1 and perMinute > 0");
+        }
+    }
+
+    double tokensPerNano() {
+        return perMinute / 60_000_000_000.0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.myproject.security;
+
+/**
+ * Where token buckets live. {@link InMemoryRateLimitStore} keeps them per instance;
+ * for limits shared by several nodes, declare a bean of this type backed by a
+ * shared store (e.g. a Redis script doing the same refill-and-take) and
+ * {@link AuthRateLimiter} uses it instead.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from the bucket for {@code key}, creating it full if needed.
+     *
+     * @return 0 when a token was taken, otherwise nanoseconds until one will be available
+     */
+    long tryConsume(String key, RateLimit limit);
+
+    /**
+     * Like {@link #tryConsume} but takes nothing: 0 when the bucket for {@code key}
+     * has a token (or doesn't exist yet), otherwise nanoseconds until it will.
+     */
+    long waitNanos(String key, RateLimit limit);
+}
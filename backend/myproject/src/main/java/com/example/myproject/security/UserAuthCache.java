@@ -0,0 +1,60 @@
+package com.example.myproject.security;
+
+import com.example.myproject.repository.UserAuthState;
+import com.example.myproject.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived, per-instance copy of each user's {@link UserAuthState}, keyed by user id.
+ *
+ * The JWT filter trusts the signed claims for who the caller is and only asks this
+ * cache whether the account still exists, what its role is now and whether its
+ * tokens were revoked. Changes made on this instance are invalidated after they
+ * commit; the TTL ({@code jwt.auth-cache.ttl-seconds}) bounds how long a change
+ * made on another instance takes to apply. Missing users are cached too, so a
+ * token for a deleted account doesn't hit the database on every request.
+ */
+@Component
+public class UserAuthCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Optional<UserAuthState>> cache;
+
+    public UserAuthCache(
+        UserRepository userRepository,
+        @Value("${jwt.auth-cache.max-users:10000}") long maxUsers,
+        @Value("${jwt.auth-cache.ttl-seconds:30}") long ttlSeconds
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build();
+    }
+
+    public Optional<UserAuthState> get(Long userId) {
+        return cache.get(userId, userRepository::findAuthStateById);
+    }
+
+    /** Drops the entry once the current transaction commits (immediately when there is none). */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        } else {
+            cache.invalidate(userId);
+        }
+    }
+}
@@ -5,12 +5,14 @@ import com.example.myproject.dto.LoginRequest;
 import com.example.myproject.dto.RegisterRequest;
 import com.example.myproject.entity.UserEntity;
 import com.example.myproject.repository.UserRepository;
+import com.example.myproject.security.AuthRateLimiter;
 import com.example.myproject.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.*;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -31,12 +33,13 @@ public class AuthService {
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private com.example.myproject.security.CustomUserDetailsService userDetailsService;
+    private OutboxService outboxService;
 
     @Autowired
-    private EmailService emailService;
+    private AuthRateLimiter authRateLimiter;
 
     // REGISTER
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already registered: " + request.getEmail());
@@ -51,32 +54,42 @@ public class AuthService {
 
         userRepository.save(user);
 
-        emailService.sendWelcomeEmail(user.getEmail(), user.getFullName());
+        // Sent by the outbox relay (WelcomeEmailHandler) once this commits
+        outboxService.welcomeEmail(user.getUserId());
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", user.getRole());
-        String token = jwtUtil.generateToken(userDetails, claims);
+        String token = issueToken(user);
 
         // FIX: pass user.getUserId() so localStorage has userId
         return new AuthResponse(token, user.getUserId(), user.getEmail(), user.getFullName(), user.getRole());
     }
 
     // LOGIN
-    public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        // Failed logins per account and IP (any auth request per IP is AuthRateLimitFilter)
+        authRateLimiter.checkLogin(request.getEmail(), clientIp);
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+            );
+        } catch (AuthenticationException e) {
+            authRateLimiter.recordLoginFailure(request.getEmail(), clientIp);
+            throw e;
+        }
 
         UserEntity user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", user.getRole());
-        String token = jwtUtil.generateToken(userDetails, claims);
+        String token = issueToken(user);
 
         // FIX: pass user.getUserId() so localStorage has userId
         return new AuthResponse(token, user.getUserId(), user.getEmail(), user.getFullName(), user.getRole());
     }
-}
\ No newline at end of file
+
+    // The filter authenticates from these claims alone (see JwtAuthFilter)
+    private String issueToken(UserEntity user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtUtil.USER_ID_CLAIM, user.getUserId());
+        claims.put(JwtUtil.ROLE_CLAIM, user.getRole());
+        return jwtUtil.generateToken(user.getEmail(), claims);
+    }
+}
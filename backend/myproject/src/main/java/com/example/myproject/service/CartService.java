@@ -31,9 +31,9 @@ public class CartService {
     private ProductRepository productRepository;
 
     // ─── Helper: get or create cart for user ───────────────────────────────
-    private CartEntity getOrCreateCart(String email) {
-        UserEntity user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + email));
+    // The user is a proxy from the authenticated id: looking up the cart needs only the key
+    private CartEntity getOrCreateCart(Long userId) {
+        UserEntity user = userRepository.getReferenceById(userId);
 
         return cartRepository.findByUser(user)
                 .orElseGet(() -> {
@@ -93,21 +93,21 @@ public class CartService {
     }
 
     // ─── GET CART ───────────────────────────────────────────────────────────
-    public CartDTO getCart(String email) {
-        CartEntity cart = getOrCreateCart(email);
+    public CartDTO getCart(Long userId) {
+        CartEntity cart = getOrCreateCart(userId);
         return toDTO(cart);
     }
 
     // ─── GET CART ITEM COUNT ────────────────────────────────────────────────
-    public Map<String, Integer> getCartCount(String email) {
-        CartEntity cart = getOrCreateCart(email);
+    public Map<String, Integer> getCartCount(Long userId) {
+        CartEntity cart = getOrCreateCart(userId);
         return Map.of("count", cart.getTotalItems());
     }
 
     // ─── ADD TO CART ────────────────────────────────────────────────────────
     @Transactional
-    public CartDTO addToCart(String email, AddToCartRequest request) {
-        CartEntity cart = getOrCreateCart(email);
+    public CartDTO addToCart(Long userId, AddToCartRequest request) {
+        CartEntity cart = getOrCreateCart(userId);
 
         ProductEntity product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -156,8 +156,8 @@ public class CartService {
 
     // ─── UPDATE CART ITEM QUANTITY ──────────────────────────────────────────
     @Transactional
-    public CartDTO updateCartItem(String email, Long cartItemId, Integer quantity) {
-        CartEntity cart = getOrCreateCart(email);
+    public CartDTO updateCartItem(Long userId, Long cartItemId, Integer quantity) {
+        CartEntity cart = getOrCreateCart(userId);
 
         CartItemEntity item = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -188,8 +188,8 @@ public class CartService {
 
     // ─── REMOVE CART ITEM ───────────────────────────────────────────────────
     @Transactional
-    public CartDTO removeCartItem(String email, Long cartItemId) {
-        CartEntity cart = getOrCreateCart(email);
+    public CartDTO removeCartItem(Long userId, Long cartItemId) {
+        CartEntity cart = getOrCreateCart(userId);
 
         CartItemEntity item = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -209,8 +209,8 @@ public class CartService {
 
     // ─── CLEAR CART ─────────────────────────────────────────────────────────
     @Transactional
-    public void clearCart(String email) {
-        CartEntity cart = getOrCreateCart(email);
+    public void clearCart(Long userId) {
+        CartEntity cart = getOrCreateCart(userId);
         cart.getItems().clear();
         cart.setTotalAmount(BigDecimal.ZERO);
         cart.setTotalItems(0);
@@ -218,8 +218,8 @@ public class CartService {
     }
 
     // ─── GET CART ITEMS (for order creation) ───────────────────────────────
-    public List<CartItemEntity> getCartItems(String email) {
-        CartEntity cart = getOrCreateCart(email);
+    public List<CartItemEntity> getCartItems(Long userId) {
+        CartEntity cart = getOrCreateCart(userId);
         return cart.getItems();
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+
+/** How a checkout is paid, and the state the new order starts in because of it. */
+public enum CheckoutPayment {
+
+    // Stays PENDING until the Razorpay payment is verified
+    RAZORPAY(OrderEntity.OrderStatus.PENDING, OrderEntity.PaymentMethod.RAZORPAY, false),
+
+    // Confirmed straight away, paid on delivery
+    COD(OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentMethod.COD, true);
+
+    private final OrderEntity.OrderStatus initialStatus;
+    private final OrderEntity.PaymentMethod method;
+    private final boolean confirmsImmediately;
+
+    CheckoutPayment(OrderEntity.OrderStatus initialStatus, OrderEntity.PaymentMethod method,
+                    boolean confirmsImmediately) {
+        this.initialStatus = initialStatus;
+        this.method = method;
+        this.confirmsImmediately = confirmsImmediately;
+    }
+
+    public OrderEntity.OrderStatus initialStatus() {
+        return initialStatus;
+    }
+
+    public OrderEntity.PaymentMethod method() {
+        return method;
+    }
+
+    /** Whether the order counts as a sale and gets its confirmation email at placement. */
+    public boolean confirmsImmediately() {
+        return confirmsImmediately;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.CreateOrderRequest;
+import com.example.myproject.entity.CartEntity;
+import com.example.myproject.entity.CartItemEntity;
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OrderItemEntity;
+import com.example.myproject.entity.ProductEntity;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.event.OrderChangedEvent;
+import com.example.myproject.repository.CartItemRepository;
+import com.example.myproject.repository.CartRepository;
+import com.example.myproject.repository.OrderRepository;
+import com.example.myproject.repository.ProductRepository;
+import com.example.myproject.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The one path every order is placed through.
+ *
+ * load (user + lines + products) → price once → reserve stock → persist →
+ * source clean-up, with the source ({@link CheckoutSource}) and payment
+ * ({@link CheckoutPayment}) plugged in. The statement count does not grow with
+ * the basket: the cart comes back in one join fetch, stock for all lines is
+ * reserved in one JDBC batch, order and items are batch-inserted, and the cart
+ * is emptied with one DELETE.
+ */
+@Service
+public class CheckoutService {
+
+    private static final BigDecimal FREE_SHIPPING_FROM = new BigDecimal("50");
+    private static final BigDecimal SHIPPING_FEE = new BigDecimal("5.00");
+
+    // Conditional decrement: a line that would oversell matches no row
+    private static final String RESERVE_STOCK_SQL =
+        "UPDATE products SET stock_quantity = stock_quantity - ? " +
+        "WHERE product_id = ? AND is_available = TRUE AND stock_quantity >= ?";
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final SalesRollupService salesRollupService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CheckoutService(
+        OrderRepository orderRepository,
+        UserRepository userRepository,
+        CartRepository cartRepository,
+        CartItemRepository cartItemRepository,
+        ProductRepository productRepository,
+        OrderNumberGenerator orderNumberGenerator,
+        SalesRollupService salesRollupService,
+        OutboxService outboxService,
+        ApplicationEventPublisher eventPublisher,
+        JdbcTemplate jdbcTemplate
+    ) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.salesRollupService = salesRollupService;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SOURCES
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Everything in the user's cart; the cart is emptied once the order is saved. */
+    public CheckoutSource fromCart() {
+        return new CheckoutSource() {
+            private Long cartId;
+
+            @Override
+            public Basket load(String userEmail) {
+                CartEntity cart = cartRepository.findForCheckout(userEmail)
+                    .orElseThrow(() -> new RuntimeException("Cart is empty"));
+                if (cart.getItems().isEmpty()) throw new RuntimeException("Cart is empty");
+                cartId = cart.getCartId();
+
+                List<Line> lines = new ArrayList<>(cart.getItems().size());
+                for (CartItemEntity item : cart.getItems()) {
+                    lines.add(new Line(item.getProduct(), item.getQuantity()));
+                }
+                cart.setTotalAmount(BigDecimal.ZERO);
+                cart.setTotalItems(0);
+                return new Basket(cart.getUser(), lines);
+            }
+
+            @Override
+            public void onOrderPlaced(Basket basket) {
+                cartItemRepository.deleteByCartId(cartId);
+            }
+        };
+    }
+
+    /** A single product bought directly, bypassing the cart. */
+    public CheckoutSource buyNow(Long productId, int quantity) {
+        return userEmail -> {
+            if (quantity < 1) throw new RuntimeException("Quantity must be at least 1.");
+            UserEntity user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+            ProductEntity product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+            return new CheckoutSource.Basket(user, List.of(new CheckoutSource.Line(product, quantity)));
+        };
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PLACE ORDER
+    // ─────────────────────────────────────────────────────────────────────────
+    @Transactional
+    public OrderEntity placeOrder(String userEmail, CheckoutSource source, CheckoutPayment payment,
+                                  CreateOrderRequest request) {
+        CheckoutSource.Basket basket = source.load(userEmail);
+
+        OrderEntity order = new OrderEntity();
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+        order.setUser(basket.user());
+        order.setStatus(payment.initialStatus());
+        order.setPaymentStatus(OrderEntity.PaymentStatus.PENDING);
+        order.setPaymentMethod(payment.method());
+        applyShipping(order, request);
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        List<OrderItemEntity> items = new ArrayList<>(basket.lines().size());
+        for (CheckoutSource.Line line : basket.lines()) {
+            ProductEntity product = line.product();
+            if (!Boolean.TRUE.equals(product.getIsAvailable()))
+                throw new RuntimeException("Product is not available: " + product.getName());
+
+            BigDecimal unitPrice = product.getPrice();
+            BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(line.quantity()));
+            totalAmount = totalAmount.add(subtotal);
+
+            OrderItemEntity oi = new OrderItemEntity();
+            oi.setOrder(order);
+            oi.setProduct(product);
+            oi.setProductName(product.getName());
+            oi.setQuantity(line.quantity());
+            oi.setPriceAtPurchase(unitPrice);
+            oi.setSubtotal(subtotal);
+            oi.setProductImageUrl(product.getImageUrl());
+            items.add(oi);
+        }
+
+        BigDecimal shippingFee = totalAmount.compareTo(FREE_SHIPPING_FROM) >= 0 ? BigDecimal.ZERO : SHIPPING_FEE;
+        order.setTotalAmount(totalAmount);
+        order.setShippingFee(shippingFee);
+        order.setFinalAmount(totalAmount.add(shippingFee));
+        order.setOrderItems(items);
+
+        reserveStock(basket.lines());
+        order.setStockReserved(true);
+
+        OrderEntity saved = orderRepository.save(order);
+        source.onOrderPlaced(basket);
+
+        if (payment.confirmsImmediately()) {
+            salesRollupService.recordTransition(saved, false);
+            outboxService.orderConfirmed(saved);
+        }
+        // Online payments are confirmed (and emailed) once the payment is verified
+        eventPublisher.publishEvent(OrderChangedEvent.of(saved));
+        return saved;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // STOCK
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Decrements stock for every line in one batch. Lines are merged per product
+     * and sent in product-id order so concurrent checkouts lock rows in the same
+     * order and can't deadlock; any line that would oversell fails the checkout.
+     */
+    private void reserveStock(List<CheckoutSource.Line> lines) {
+        Map<Long, Integer> perProduct = new TreeMap<>();
+        Map<Long, ProductEntity> products = new TreeMap<>();
+        for (CheckoutSource.Line line : lines) {
+            perProduct.merge(line.product().getProductId(), line.quantity(), Integer::sum);
+            products.putIfAbsent(line.product().getProductId(), line.product());
+        }
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(perProduct.entrySet());
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> row = rows.get(i);
+                ps.setInt(1, row.getValue());
+                ps.setLong(2, row.getKey());
+                ps.setInt(3, row.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                ProductEntity product = products.get(rows.get(i).getKey());
+                throw new RuntimeException("Insufficient stock for " + product.getName()
+                    + ". Only " + product.getStockQuantity() + " items available.");
+            }
+        }
+    }
+
+    /**
+     * Returns the stock a managed order holds, if it holds any. The in-memory flag
+     * may be stale (the order wasn't loaded with a lock), so the release is claimed
+     * with a conditional UPDATE: of two racing cancels only one gives stock back.
+     */
+    @Transactional
+    public void releaseStock(OrderEntity order) {
+        if (!Boolean.TRUE.equals(order.getStockReserved())) return;
+        if (orderRepository.claimStockRelease(order.getOrderId()) == 1) {
+            productRepository.releaseStockForOrders(List.of(order.getOrderId()));
+        }
+        order.setStockReserved(false);
+    }
+
+    /** Returns the stock held by any of the given orders in a fixed number of statements. */
+    @Transactional
+    public void releaseStock(Collection<Long> orderIds) {
+        List<Long> reserved = orderRepository.lockStockReservedIds(orderIds);
+        if (reserved.isEmpty()) return;
+        productRepository.releaseStockForOrders(reserved);
+        orderRepository.clearStockReserved(reserved);
+    }
+
+    private void applyShipping(OrderEntity order, CreateOrderRequest request) {
+        order.setShippingName(request.getName());
+        order.setShippingPhone(request.getPhone());
+        order.setShippingAddress(request.getAddress());
+        order.setShippingCity(request.getCity());
+        order.setShippingState(request.getState());
+        order.setShippingPincode(request.getPincode());
+        order.setOrderNotes(request.getNotes() != null ? request.getNotes() : "");
+    }
+}
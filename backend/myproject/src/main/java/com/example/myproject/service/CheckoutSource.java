@@ -0,0 +1,26 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.ProductEntity;
+import com.example.myproject.entity.UserEntity;
+
+import java.util.List;
+
+/**
+ * Where a checkout's lines come from (the cart, a single Buy Now product).
+ * Instances are obtained from {@link CheckoutService}.
+ */
+public interface CheckoutSource {
+
+    record Line(ProductEntity product, int quantity) {
+    }
+
+    record Basket(UserEntity user, List<Line> lines) {
+    }
+
+    /** Loads the buyer and lines, products included, in as few statements as the source allows. */
+    Basket load(String userEmail);
+
+    /** Runs after the order is saved, in the same transaction. */
+    default void onOrderPlaced(Basket basket) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.CreateCampaignRequest;
+import com.example.myproject.entity.EmailCampaignEntity;
+import com.example.myproject.exception.ResourceNotFoundException;
+import com.example.myproject.repository.CampaignRecipient;
+import com.example.myproject.repository.EmailCampaignRepository;
+import com.example.myproject.repository.UserRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marketing campaigns to every registered user.
+ *
+ * Each {@link #runDueCampaigns()} tick sends one batch per due campaign, on
+ * whichever instance wins that batch's lease. Recipients are read
+ * {@code mail.campaign.batch-size} at a time by keyset on user id (never the whole
+ * table), rendered from the campaign template and sent through
+ * {@link MailDispatcher#sendCampaign}, whose connection pool and rate limit keep
+ * the SMTP provider happy. After the batch the cursor and counters are saved and
+ * the lease given back, so after a crash the campaign resumes from the last
+ * finished batch: at most one batch is sent twice, and nobody is skipped.
+ * Recipients that fail are counted, not retried.
+ */
+@Service
+public class EmailCampaignService {
+
+    private final EmailCampaignRepository campaignRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${mail.campaign.batch-size:200}")
+    private int batchSize;
+
+    @Value("${mail.campaign.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public EmailCampaignService(
+        EmailCampaignRepository campaignRepository,
+        UserRepository userRepository,
+        EmailService emailService,
+        MailDispatcher mailDispatcher,
+        TransactionTemplate transactionTemplate
+    ) {
+        this.campaignRepository = campaignRepository;
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+        this.mailDispatcher = mailDispatcher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // ADMIN
+    // ─────────────────────────────────────────────────────────────────────────
+    public EmailCampaignEntity create(CreateCampaignRequest request) {
+        if (isBlank(request.getName()) || isBlank(request.getSubject())
+            || isBlank(request.getHeadline()) || isBlank(request.getBodyHtml())) {
+            throw new RuntimeException("Campaign name, subject, headline and body are required");
+        }
+        EmailCampaignEntity campaign = new EmailCampaignEntity();
+        campaign.setName(request.getName().trim());
+        campaign.setSubject(request.getSubject().trim());
+        campaign.setHeadline(request.getHeadline().trim());
+        campaign.setBodyHtml(request.getBodyHtml());
+        campaign.setCreatedAt(LocalDateTime.now());
+        return campaignRepository.save(campaign);
+    }
+
+    public List<EmailCampaignEntity> getCampaigns() {
+        return campaignRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    public EmailCampaignEntity getCampaign(Long id) {
+        return campaignRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Campaign not found: " + id));
+    }
+
+    /** Stops after the batch in flight; the cursor stays where it is. */
+    public EmailCampaignEntity pause(Long id) {
+        transition(id, List.of(EmailCampaignEntity.Status.SCHEDULED, EmailCampaignEntity.Status.RUNNING),
+            EmailCampaignEntity.Status.PAUSED);
+        return getCampaign(id);
+    }
+
+    public EmailCampaignEntity resume(Long id) {
+        transition(id, List.of(EmailCampaignEntity.Status.PAUSED), EmailCampaignEntity.Status.SCHEDULED);
+        return getCampaign(id);
+    }
+
+    private void transition(Long id, List<EmailCampaignEntity.Status> from, EmailCampaignEntity.Status to) {
+        EmailCampaignEntity campaign = getCampaign(id);
+        Integer updated = transactionTemplate.execute(s -> campaignRepository.transition(id, from, to));
+        if (updated == null || updated == 0) {
+            throw new RuntimeException("Campaign " + id + " is " + campaign.getStatus() + " and can't be moved to " + to);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SENDING
+    // ─────────────────────────────────────────────────────────────────────────
+    /**
+     * Sends at most one batch per campaign and returns, so a large campaign never
+     * holds a scheduler thread for longer than a batch takes; the next tick (on
+     * whichever instance claims it) carries on from the saved cursor.
+     */
+    @Scheduled(fixedDelayString = "${mail.campaign.poll-interval-ms:2000}")
+    public void runDueCampaigns() {
+        for (Long id : campaignRepository.findRunnableIds(LocalDateTime.now())) {
+            if (claim(id)) runBatch(id);
+        }
+    }
+
+    private boolean claim(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(s ->
+            campaignRepository.claim(id, now, now.plusSeconds(leaseSeconds)));
+        return claimed != null && claimed == 1;
+    }
+
+    private void runBatch(Long id) {
+        EmailCampaignEntity campaign = campaignRepository.findById(id).orElse(null);
+        if (campaign == null) return;
+        long cursor = campaign.getLastUserId();
+
+        List<CampaignRecipient> recipients =
+            userRepository.findCampaignRecipients(cursor, PageRequest.of(0, batchSize));
+        if (recipients.isEmpty()) {
+            transactionTemplate.executeWithoutResult(s -> campaignRepository.markCompleted(id, LocalDateTime.now()));
+            System.out.println("✅ Campaign " + id + " completed");
+            return;
+        }
+        if (cursor == 0) {
+            System.out.println("✅ Campaign " + id + " (" + campaign.getName() + ") started");
+        }
+
+        int failed = 0;
+        String error = null;
+        List<MimeMessage> messages = new ArrayList<>(recipients.size());
+        for (CampaignRecipient recipient : recipients) {
+            try {
+                messages.add(emailService.buildCampaignEmail(campaign, recipient));
+            } catch (MessagingException e) {
+                failed++;
+                error = "User " + recipient.userId() + ": " + e.getMessage();
+            }
+        }
+        Map<MimeMessage, Exception> failures = mailDispatcher.sendCampaign(messages);
+        for (Exception e : failures.values()) error = e.getMessage();
+        failed += failures.size();
+
+        long next = recipients.get(recipients.size() - 1).userId();
+        if (!saveProgress(id, next, recipients.size() - failed, failed, error)) {
+            System.out.println("✅ Campaign " + id + " paused at user " + next);
+        }
+    }
+
+    private boolean saveProgress(Long id, long cursor, int sent, int failed, String error) {
+        String trimmed = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        // Gives the lease back (already expired), so the next tick on any instance can claim the next batch
+        LocalDateTime released = LocalDateTime.now().minusSeconds(1);
+        Integer updated = transactionTemplate.execute(s ->
+            campaignRepository.recordProgress(id, cursor, sent, failed, trimmed, released));
+        return updated != null && updated == 1;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
@@ -28,10 +28,9 @@ public class FavouriteService {
     @Autowired
     private ProductRepository productRepository;
 
-    // ─── Helper: get user by email ─────────────────────────────────────────
-    private UserEntity getUser(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + email));
+    // ─── Helper: user proxy for the authenticated id (no SELECT) ──────────
+    private UserEntity getUser(Long userId) {
+        return userRepository.getReferenceById(userId);
     }
 
     // ─── Helper: map entity → DTO ──────────────────────────────────────────
@@ -52,8 +51,8 @@ public class FavouriteService {
     }
 
     // ─── GET ALL FAVOURITES ────────────────────────────────────────────────
-    public List<FavouriteDTO> getFavourites(String email) {
-        UserEntity user = getUser(email);
+    public List<FavouriteDTO> getFavourites(Long userId) {
+        UserEntity user = getUser(userId);
         return favouriteRepository.findByUser(user)
                 .stream()
                 .map(this::toDTO)
@@ -62,8 +61,8 @@ public class FavouriteService {
 
     // ─── TOGGLE FAVOURITE (add if not exists, remove if exists) ───────────
     @Transactional
-    public Map<String, Object> toggleFavourite(String email, Long productId) {
-        UserEntity user = getUser(email);
+    public Map<String, Object> toggleFavourite(Long userId, Long productId) {
+        UserEntity user = getUser(userId);
         ProductEntity product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + productId));
 
@@ -90,23 +89,23 @@ public class FavouriteService {
     }
 
     // ─── CHECK IF A PRODUCT IS FAVOURITED ─────────────────────────────────
-    public boolean isFavourited(String email, Long productId) {
-        UserEntity user = getUser(email);
+    public boolean isFavourited(Long userId, Long productId) {
+        UserEntity user = getUser(userId);
         ProductEntity product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found: " + productId));
         return favouriteRepository.existsByUserAndProduct(user, product);
     }
 
     // ─── GET FAVOURITE COUNT ───────────────────────────────────────────────
-    public Map<String, Long> getFavouriteCount(String email) {
-        UserEntity user = getUser(email);
+    public Map<String, Long> getFavouriteCount(Long userId) {
+        UserEntity user = getUser(userId);
         return Map.of("count", favouriteRepository.countByUser(user));
     }
 
     // ─── REMOVE A SPECIFIC FAVOURITE BY ID ────────────────────────────────
     @Transactional
-    public void removeFavourite(String email, Long favouriteId) {
-        UserEntity user = getUser(email);
+    public void removeFavourite(Long userId, Long favouriteId) {
+        UserEntity user = getUser(userId);
         FavouriteEntity fav = favouriteRepository.findById(favouriteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Favourite not found: " + favouriteId));
 
@@ -119,15 +118,15 @@ public class FavouriteService {
 
     // ─── CLEAR ALL FAVOURITES ──────────────────────────────────────────────
     @Transactional
-    public void clearAllFavourites(String email) {
-        UserEntity user = getUser(email);
+    public void clearAllFavourites(Long userId) {
+        UserEntity user = getUser(userId);
         List<FavouriteEntity> favs = favouriteRepository.findByUser(user);
         favouriteRepository.deleteAll(favs);
     }
 
     // ─── GET ALL FAVOURITED PRODUCT IDs (for UI highlighting) ─────────────
-    public List<Long> getFavouritedProductIds(String email) {
-        UserEntity user = getUser(email);
+    public List<Long> getFavouritedProductIds(Long userId) {
+        UserEntity user = getUser(userId);
         return favouriteRepository.findByUser(user)
                 .stream()
                 .map(f -> f.getProduct().getProductId())
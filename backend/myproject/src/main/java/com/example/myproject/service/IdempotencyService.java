@@ -0,0 +1,243 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.IdempotencyKeyEntity;
+import com.example.myproject.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for the order-creating endpoints.
+ *
+ * The first request with a given (user, key) claims a row in idempotency_keys and
+ * runs; its response is stored and replayed verbatim to every retry until the key
+ * expires. That includes 5xx responses: by then the order may already exist (a
+ * Razorpay failure comes after checkout), so a retry must not place it again — the
+ * client sends a new key to start over. Only a 4xx, which checkout returns after
+ * rolling back, or an exception releases the key so the client can try again.
+ * Duplicates that arrive while the first request is still running wait for its
+ * result — on this instance through a shared future, across instances by polling
+ * the row — instead of running the action a second time. Reusing a key with a
+ * different request body is rejected with 422.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNew;
+
+    // Requests currently executing on this instance, keyed by user + key
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-ttl-seconds:60}")
+    private long inProgressTtlSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyService(
+        IdempotencyKeyRepository repository,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    record StoredResponse(int status, String body) {
+        ResponseEntity<?> replay() {
+            return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // EXECUTE — runs the action at most once per (user, key)
+    // ─────────────────────────────────────────────────────────────────────────
+    public ResponseEntity<?> execute(String userEmail, String key, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) return action.get();
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+
+        String fingerprint = fingerprint(request);
+        // Fingerprint is part of the local key so a different body never shares a result
+        String localKey = userEmail + "\n" + key + "\n" + fingerprint;
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(localKey, mine);
+        if (running != null) {
+            return awaitLocal(running);
+        }
+
+        try {
+            ResponseEntity<?> result = claimAndRun(userEmail, key, fingerprint, action, mine);
+            if (!mine.isDone()) mine.complete(null);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, mine);
+        }
+    }
+
+    private ResponseEntity<?> claimAndRun(String userEmail, String key, String fingerprint,
+                                          Supplier<ResponseEntity<?>> action,
+                                          CompletableFuture<StoredResponse> mine) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            if (tryClaim(userEmail, key, fingerprint)) {
+                return runClaimed(userEmail, key, action, mine);
+            }
+
+            Optional<IdempotencyKeyEntity> existing = repository.findByUserEmailAndIdempotencyKey(userEmail, key);
+            if (existing.isEmpty()) {
+                // Released or expired in between — try to claim again
+                if (System.currentTimeMillis() >= deadline) return stillInProgress();
+                continue;
+            }
+
+            IdempotencyKeyEntity row = existing.get();
+            if (!row.getFingerprint().equals(fingerprint)) return mismatch();
+            if (row.getStatus() == IdempotencyKeyEntity.Status.COMPLETED) {
+                StoredResponse stored = new StoredResponse(row.getResponseStatus(), row.getResponseBody());
+                mine.complete(stored);
+                return stored.replay();
+            }
+
+            // Another instance is running it; wait for its outcome
+            if (System.currentTimeMillis() >= deadline) return stillInProgress();
+            sleep();
+        }
+    }
+
+    private ResponseEntity<?> runClaimed(String userEmail, String key,
+                                         Supplier<ResponseEntity<?>> action,
+                                         CompletableFuture<StoredResponse> mine) {
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(userEmail, key);
+            throw e;
+        }
+
+        StoredResponse stored = new StoredResponse(response.getStatusCode().value(), serialize(response.getBody()));
+        if (response.getStatusCode().is4xxClientError()) {
+            // Rejected before anything was written, so let the client retry with the same key
+            release(userEmail, key);
+        } else {
+            requiresNew.executeWithoutResult(status -> repository.complete(userEmail, key,
+                IdempotencyKeyEntity.Status.COMPLETED, stored.status(), stored.body(),
+                LocalDateTime.now().plusHours(ttlHours)));
+        }
+        mine.complete(stored);
+        return response;
+    }
+
+    private ResponseEntity<?> awaitLocal(CompletableFuture<StoredResponse> running) {
+        try {
+            StoredResponse stored = running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            return stored != null ? stored.replay() : stillInProgress();
+        } catch (TimeoutException e) {
+            return stillInProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stillInProgress();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+        }
+    }
+
+    private boolean tryClaim(String userEmail, String key, String fingerprint) {
+        Integer claimed = requiresNew.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            repository.deleteIfExpired(userEmail, key, now);
+            return repository.tryClaim(userEmail, key, fingerprint, now, now.plusSeconds(inProgressTtlSeconds));
+        });
+        return claimed != null && claimed > 0;
+    }
+
+    private void release(String userEmail, String key) {
+        requiresNew.executeWithoutResult(status -> repository.release(userEmail, key));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HOUSEKEEPING
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(cron = "${idempotency.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        requiresNew.executeWithoutResult(status -> repository.purgeExpired(LocalDateTime.now()));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+    String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not fingerprint request: " + e.getMessage());
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body instanceof String s ? s : objectMapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not store idempotent response: " + e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.unprocessableEntity()
+            .body(Map.of("error", HEADER + " was already used for a different request"));
+    }
+
+    private static ResponseEntity<?> stillInProgress() {
+        return ResponseEntity.status(409)
+            .body(Map.of("error", "A request with this " + HEADER + " is still being processed"));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
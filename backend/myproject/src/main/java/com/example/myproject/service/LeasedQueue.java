@@ -0,0 +1,92 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.QueuedEvent;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Claim and retry plumbing shared by the DB-backed work queues: the outbox
+ * ({@link OutboxRelay}) and the payment inbox ({@link PaymentEventService}).
+ *
+ * A claim locks due ids with {@code FOR UPDATE SKIP LOCKED}, flips them to
+ * PROCESSING under a lease tagged with the caller's claim token and loads them,
+ * all in one short transaction. A failure is written back with an exponential,
+ * jittered backoff, or as given up once {@link Retry#maxAttempts} is reached.
+ * Every write after the claim is fenced by the token, so a row whose lease
+ * lapsed and was claimed again by another worker is left to that worker.
+ */
+final class LeasedQueue<E extends QueuedEvent> {
+
+    /** The per-table queries each queue's repository provides. */
+    interface Rows<E> {
+        List<Long> lockDueIds(LocalDateTime now, int limit);
+
+        void markProcessing(List<Long> ids, LocalDateTime lockedUntil, String token);
+
+        List<E> findAllById(List<Long> ids);
+
+        /** Back to pending at {@code nextAttemptAt}, or given up; returns 0 when the token no longer holds the row. */
+        int markFailed(Long id, boolean giveUp, LocalDateTime nextAttemptAt, String error, String token);
+    }
+
+    /** How often and how far apart a failing event is retried. */
+    record Retry(int maxAttempts, long backoffBaseSeconds, long backoffMaxSeconds) {
+
+        // base * 2^(attempt-1), capped, with up to 20% jitter so retries don't align
+        Duration backoff(int attempts) {
+            long seconds = backoffBaseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+            seconds = Math.min(seconds, backoffMaxSeconds);
+            long jitter = (long) (seconds * 0.2 * ThreadLocalRandom.current().nextDouble());
+            return Duration.ofSeconds(seconds + jitter);
+        }
+    }
+
+    private final String label;
+    private final Rows<E> rows;
+    private final TransactionTemplate transactionTemplate;
+
+    LeasedQueue(String label, Rows<E> rows, TransactionTemplate transactionTemplate) {
+        this.label = label;
+        this.rows = rows;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** Claims up to {@code batchSize} due events for {@code token}; the result is in id order. */
+    List<E> claim(String token, int batchSize, long leaseSeconds) {
+        List<E> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = rows.lockDueIds(now, batchSize);
+            if (ids.isEmpty()) return List.<E>of();
+            rows.markProcessing(ids, now.plusSeconds(leaseSeconds), token);
+            return rows.findAllById(ids);
+        });
+        if (batch == null) return List.of();
+        return batch.stream().sorted(Comparator.comparing(QueuedEvent::getId)).toList();
+    }
+
+    /**
+     * Records a failed attempt; {@code permanent} gives up at once. Returns false
+     * when another worker holds the row by now, in which case nothing was written.
+     */
+    boolean recordFailure(E event, Exception e, boolean permanent, Retry retry, String token) {
+        // attempts was already incremented when the event was claimed
+        int attempts = event.getAttempts() != null ? event.getAttempts() : 1;
+        boolean giveUp = permanent || attempts >= retry.maxAttempts();
+        LocalDateTime next = LocalDateTime.now().plus(retry.backoff(attempts));
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        String truncated = error.length() > 1000 ? error.substring(0, 1000) : error;
+
+        Integer marked = transactionTemplate.execute(status ->
+            rows.markFailed(event.getId(), giveUp, next, truncated, token));
+        if (marked == null || marked == 0) return false;
+
+        System.err.println("❌ " + label + " " + event.getEventKey() + " failed (attempt " + attempts + ")"
+            + (giveUp ? ", giving up: " : ": ") + e.getMessage());
+        return true;
+    }
+}
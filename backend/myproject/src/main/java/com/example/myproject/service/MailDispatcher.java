@@ -0,0 +1,287 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OutboxEventEntity;
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends mail over long-lived SMTP connections, and measures it.
+ *
+ * Transactional mail is queued in the outbox table (welcome and order-confirmation
+ * events) and handed over here a batch at a time by the relay's handlers; it goes
+ * out over one {@link SmtpConnection} kept open across batches instead of
+ * JavaMailSender's connect/EHLO/STARTTLS/AUTH per message. Campaign mail uses its
+ * own pool of {@code mail.campaign.connections} connections, sending in parallel
+ * but never faster than {@code mail.campaign.max-per-second} overall, so a
+ * newsletter can't crowd out order confirmations or trip the provider's limits.
+ *
+ * Recipients the server rejects for good come back as
+ * {@link PermanentDeliveryException}; other failures are worth retrying.
+ * {@link #snapshot()} reports queue depth (pending outbox events), send latency,
+ * failures and connection reuse per kind of mail.
+ */
+@Component
+public class MailDispatcher {
+
+    public enum Kind {
+        WELCOME("welcome", OutboxService.WELCOME_EMAIL),
+        ORDER_CONFIRMATION("orderConfirmation", OutboxService.ORDER_CONFIRMATION),
+        CAMPAIGN("campaign", null);
+
+        private final String key;
+        private final String eventType;
+
+        Kind(String key, String eventType) {
+            this.key = key;
+            this.eventType = eventType;
+        }
+    }
+
+    @FunctionalInterface
+    public interface MailSend {
+        void send() throws MessagingException;
+    }
+
+    private static final class SendStats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final OutboxEventRepository outboxEventRepository;
+    private final long idleCloseMs;
+
+    private final Map<Kind, SendStats> stats = new EnumMap<>(Kind.class);
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    private final SmtpConnection transactional;
+    private final List<SmtpConnection> campaignConnections = new ArrayList<>();
+    private final ExecutorService campaignExecutor;
+    private final long campaignIntervalNanos;
+    private long nextCampaignSlot;   // guarded by campaignConnections
+
+    public MailDispatcher(
+        JavaMailSenderImpl mailSender,
+        OutboxEventRepository outboxEventRepository,
+        @Value("${mail.transport.max-messages-per-connection:100}") int maxMessagesPerConnection,
+        @Value("${mail.transport.idle-close-ms:30000}") long idleCloseMs,
+        @Value("${mail.campaign.connections:2}") int campaignConnectionCount,
+        @Value("${mail.campaign.max-per-second:10}") double campaignMaxPerSecond
+    ) {
+        this.mailSender = mailSender;
+        this.outboxEventRepository = outboxEventRepository;
+        this.idleCloseMs = idleCloseMs;
+        for (Kind kind : Kind.values()) stats.put(kind, new SendStats());
+
+        this.transactional = new SmtpConnection(mailSender, maxMessagesPerConnection, connectionsOpened);
+        int poolSize = Math.max(campaignConnectionCount, 1);
+        for (int i = 0; i < poolSize; i++) {
+            campaignConnections.add(new SmtpConnection(mailSender, maxMessagesPerConnection, connectionsOpened));
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.campaignExecutor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "mail-campaign-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.campaignIntervalNanos = campaignMaxPerSecond > 0 ? (long) (1_000_000_000L / campaignMaxPerSecond) : 0L;
+    }
+
+    public MimeMessage createMimeMessage() {
+        return mailSender.createMimeMessage();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // TRANSACTIONAL MAIL — one connection, in order
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Sends the messages in order; returns the failure for each message that wasn't sent. */
+    public Map<MimeMessage, Exception> sendAll(Kind kind, List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        for (MimeMessage message : messages) {
+            try {
+                prepare(message);
+                transactional.send(message, kind, this);
+            } catch (MessagingException e) {
+                failures.put(message, classify(e));
+            }
+        }
+        return failures;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CAMPAIGN MAIL — connection pool, rate-limited
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Sends a batch spread over the campaign connections and waits for all of it;
+     * returns the failure for each message that wasn't sent.
+     */
+    public Map<MimeMessage, Exception> sendCampaign(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = Collections.synchronizedMap(new IdentityHashMap<>());
+        int poolSize = campaignConnections.size();
+        List<Future<?>> shares = new ArrayList<>(poolSize);
+        for (int c = 0; c < poolSize; c++) {
+            SmtpConnection connection = campaignConnections.get(c);
+            List<MimeMessage> share = new ArrayList<>();
+            for (int i = c; i < messages.size(); i += poolSize) share.add(messages.get(i));
+            if (share.isEmpty()) continue;
+
+            shares.add(campaignExecutor.submit(() -> {
+                for (MimeMessage message : share) {
+                    try {
+                        awaitCampaignSlot();
+                        prepare(message);
+                        connection.send(message, Kind.CAMPAIGN, this);
+                    } catch (MessagingException e) {
+                        failures.put(message, classify(e));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failures.put(message, e);
+                        return;
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> share : shares) share.get();
+        } catch (InterruptedException e) {
+            shares.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending campaign batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Campaign batch failed", e.getCause());
+        }
+
+        synchronized (failures) {
+            return new IdentityHashMap<>(failures);
+        }
+    }
+
+    // Hands out send slots campaignIntervalNanos apart, across all campaign connections
+    private void awaitCampaignSlot() throws InterruptedException {
+        if (campaignIntervalNanos == 0) return;
+        long wait;
+        synchronized (campaignConnections) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextCampaignSlot);
+            nextCampaignSlot = slot + campaignIntervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) message.setSentDate(new Date());
+        message.saveChanges();
+    }
+
+    // Rejected recipients and no one accepted: retrying can't help
+    private static Exception classify(MessagingException e) {
+        if (e instanceof SendFailedException sfe) {
+            Address[] invalid = sfe.getInvalidAddresses();
+            Address[] sent = sfe.getValidSentAddresses();
+            if (invalid != null && invalid.length > 0 && (sent == null || sent.length == 0)) {
+                return new PermanentDeliveryException("Recipient rejected: " + e.getMessage(), e);
+            }
+        }
+        return e;
+    }
+
+    /** Runs one SMTP send, recording its latency and whether it failed. */
+    public void timed(Kind kind, MailSend send) throws MessagingException {
+        SendStats s = stats.get(kind);
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            send.send();
+            ok = true;
+        } finally {
+            long micros = (System.nanoTime() - start) / 1_000;
+            s.totalMicros.add(micros);
+            s.maxMicros.accumulate(micros);
+            (ok ? s.sent : s.failed).increment();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CONNECTION LIFECYCLE
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(fixedDelayString = "${mail.transport.idle-check-ms:10000}")
+    public void closeIfIdle() {
+        transactional.closeIfIdle(idleCloseMs);
+        campaignConnections.forEach(c -> c.closeIfIdle(idleCloseMs));
+    }
+
+    @PreDestroy
+    public void close() {
+        campaignExecutor.shutdownNow();
+        transactional.close();
+        campaignConnections.forEach(SmtpConnection::close);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // METRICS
+    // ─────────────────────────────────────────────────────────────────────────
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long totalSent = 0;
+        for (Kind kind : Kind.values()) {
+            SendStats s = stats.get(kind);
+            long sent = s.sent.sum();
+            long failed = s.failed.sum();
+            long attempts = sent + failed;
+            totalSent += sent;
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            if (kind.eventType != null) {
+                m.put("queued", outboxEventRepository.countByEventTypeAndStatus(kind.eventType, OutboxEventEntity.Status.PENDING));
+                m.put("dead", outboxEventRepository.countByEventTypeAndStatus(kind.eventType, OutboxEventEntity.Status.DEAD));
+            }
+            m.put("sent", sent);
+            m.put("failed", failed);
+            m.put("avgSendMs", attempts == 0 ? 0.0 : s.totalMicros.sum() / 1000.0 / attempts);
+            m.put("maxSendMs", s.maxMicros.get() / 1000.0);
+            snapshot.put(kind.key, m);
+        }
+
+        long connections = connectionsOpened.sum();
+        Map<String, Object> smtp = new LinkedHashMap<>();
+        smtp.put("connectionsOpened", connections);
+        smtp.put("messagesPerConnection", connections == 0 ? 0.0 : (double) totalSent / connections);
+        snapshot.put("smtp", smtp);
+        return snapshot;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.myproject.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An email template parsed once into its static text and named slots.
+ *
+ * Syntax: {@code {{name}}} is a text slot (HTML-escaped when rendered),
+ * {@code {{{name}}}} an HTML slot (inserted as is, for fragments rendered from
+ * other templates). At parse time every line is trimmed and the lines are joined,
+ * so indentation and line breaks in the file never reach the wire; blank lines and
+ * lines starting with {@code <!--#} (template comments) are dropped.
+ *
+ * Rendering appends the precomputed static segments and the slot values to a
+ * per-thread buffer and escapes text values in the same pass; a slot a template
+ * doesn't have, or filled with the wrong type, is an {@link IllegalArgumentException}.
+ */
+public final class MailTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    private final String name;
+    private final String[] statics;        // statics[i] comes before occurrence i; the last one trails
+    private final int[] occurrences;       // slot index of each occurrence
+    private final boolean[] html;          // per slot
+    private final Map<String, Integer> slots;
+    private final int staticLength;
+
+    private MailTemplate(String name, String[] statics, int[] occurrences, boolean[] html, Map<String, Integer> slots) {
+        this.name = name;
+        this.statics = statics;
+        this.occurrences = occurrences;
+        this.html = html;
+        this.slots = slots;
+        int length = 0;
+        for (String s : statics) length += s.length();
+        this.staticLength = length;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PARSE
+    // ─────────────────────────────────────────────────────────────────────────
+    public static MailTemplate parse(String name, String source) {
+        StringBuilder joined = new StringBuilder(source.length());
+        for (String line : source.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("<!--#")) continue;
+            joined.append(trimmed);
+        }
+        String text = joined.toString();
+
+        List<String> statics = new ArrayList<>();
+        List<Integer> occurrences = new ArrayList<>();
+        List<Boolean> htmlSlots = new ArrayList<>();
+        Map<String, Integer> slots = new HashMap<>();
+
+        int pos = 0;
+        while (true) {
+            int open = text.indexOf("{{", pos);
+            if (open < 0) break;
+            boolean raw = text.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int start = open + (raw ? 3 : 2);
+            int end = text.indexOf(close, start);
+            if (end < 0) throw new IllegalArgumentException("Unclosed slot in mail template " + name + " at " + open);
+
+            String slot = text.substring(start, end).strip();
+            if (slot.isEmpty()) throw new IllegalArgumentException("Empty slot in mail template " + name + " at " + open);
+            Integer index = slots.get(slot);
+            if (index == null) {
+                index = htmlSlots.size();
+                slots.put(slot, index);
+                htmlSlots.add(raw);
+            } else if (htmlSlots.get(index) != raw) {
+                throw new IllegalArgumentException("Slot " + slot + " is used both as text and as HTML in mail template " + name);
+            }
+
+            statics.add(text.substring(pos, open));
+            occurrences.add(index);
+            pos = end + close.length();
+        }
+        statics.add(text.substring(pos));
+
+        boolean[] html = new boolean[htmlSlots.size()];
+        for (int i = 0; i < html.length; i++) html[i] = htmlSlots.get(i);
+        return new MailTemplate(name, statics.toArray(String[]::new),
+            occurrences.stream().mapToInt(Integer::intValue).toArray(), html, Map.copyOf(slots));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Fill fill() {
+        return new Fill();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // RENDER
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Slot values for one render. */
+    public final class Fill {
+
+        private final CharSequence[] values = new CharSequence[html.length];
+
+        /** Fills a {@code {{slot}}}; the value is escaped when rendered. Null renders as nothing. */
+        public Fill text(String slot, Object value) {
+            values[index(slot, false)] = value == null ? null : value instanceof CharSequence cs ? cs : String.valueOf(value);
+            return this;
+        }
+
+        /** Fills a {@code {{{slot}}}} with markup that is trusted as is. */
+        public Fill html(String slot, CharSequence value) {
+            values[index(slot, true)] = value;
+            return this;
+        }
+
+        private int index(String slot, boolean asHtml) {
+            Integer index = slots.get(slot);
+            if (index == null) throw new IllegalArgumentException("Mail template " + name + " has no slot " + slot);
+            if (html[index] != asHtml) {
+                throw new IllegalArgumentException("Slot " + slot + " in mail template " + name + " is "
+                    + (html[index] ? "HTML" : "text"));
+            }
+            return index;
+        }
+
+        /** Appends the rendered template, e.g. one row of a list into the caller's buffer. */
+        public void renderTo(StringBuilder out) {
+            for (int i = 0; i < occurrences.length; i++) {
+                out.append(statics[i]);
+                int slot = occurrences[i];
+                CharSequence value = values[slot];
+                if (value == null) continue;
+                if (html[slot]) out.append(value);
+                else appendEscaped(out, value);
+            }
+            out.append(statics[occurrences.length]);
+        }
+
+        public String render() {
+            StringBuilder out = BUFFER.get();
+            out.setLength(0);
+            out.ensureCapacity(staticLength + 1024);
+            try {
+                renderTo(out);
+                return out.toString();
+            } finally {
+                // One huge render shouldn't pin its buffer to the thread
+                if (out.capacity() > MAX_RETAINED_BUFFER) BUFFER.remove();
+            }
+        }
+    }
+
+    static void appendEscaped(StringBuilder out, CharSequence s) {
+        int length = s.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            String entity = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (entity == null) continue;
+            out.append(s, from, i).append(entity);
+            from = i + 1;
+        }
+        out.append(s, from, length);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.myproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The email templates under {@code mail.templates.location}, parsed once at
+ * startup. A broken template fails startup rather than the first email.
+ *
+ * With {@code mail.templates.reload=true} (dev, pointing the location at
+ * {@code file:src/main/resources/mail-templates/}) a template whose file changed
+ * is parsed again on its next use.
+ */
+@Component
+public class MailTemplates {
+
+    private record Loaded(MailTemplate template, Resource resource, long lastModified) {
+    }
+
+    private final boolean reload;
+    private final Map<String, Loaded> templates = new ConcurrentHashMap<>();
+
+    public MailTemplates(
+        ResourceLoader resourceLoader,
+        @Value("${mail.templates.location:classpath:mail-templates/}") String location,
+        @Value("${mail.templates.reload:false}") boolean reload
+    ) {
+        this.reload = reload;
+        ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+        String base = location.endsWith("/") ? location : location + "/";
+        try {
+            for (Resource resource : resolver.getResources(base + "*.html")) {
+                Loaded loaded = load(resource);
+                templates.put(loaded.template().name(), loaded);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read mail templates from " + location, e);
+        }
+        if (templates.isEmpty()) throw new IllegalStateException("No mail templates found in " + location);
+        System.out.println("✅ Loaded " + templates.size() + " mail templates" + (reload ? " (reloading on change)" : ""));
+    }
+
+    public MailTemplate get(String name) {
+        Loaded loaded = templates.get(name);
+        if (loaded == null) throw new IllegalArgumentException("No mail template " + name);
+        if (reload) loaded = reloadIfChanged(name, loaded);
+        return loaded.template();
+    }
+
+    private Loaded reloadIfChanged(String name, Loaded loaded) {
+        try {
+            // Only files can change under us; templates inside a jar can't
+            if (!loaded.resource().isFile() || loaded.resource().lastModified() == loaded.lastModified()) return loaded;
+            Loaded fresh = load(loaded.resource());
+            templates.put(name, fresh);
+            System.out.println("✅ Reloaded mail template " + name);
+            return fresh;
+        } catch (IOException | RuntimeException e) {
+            // Mid-edit or unparseable: keep serving the last good version
+            System.err.println("❌ Could not reload mail template " + name + ": " + e.getMessage());
+            return loaded;
+        }
+    }
+
+    private static Loaded load(Resource resource) throws IOException {
+        String filename = resource.getFilename();
+        String name = filename.substring(0, filename.length() - ".html".length());
+        String source = resource.getContentAsString(StandardCharsets.UTF_8);
+        long lastModified = resource.isFile() ? resource.lastModified() : 0L;
+        return new Loaded(MailTemplate.parse(name, source), resource, lastModified);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.entity.ArchivedOrderEntity;
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.repository.ArchivedOrderRepository;
+import com.example.myproject.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves DELIVERED/CANCELLED orders older than {@code orders.archive.older-than-months}
+ * out of orders/order_items into archived_orders, one chunk per transaction, so the
+ * hot tables only hold recent and in-flight orders. Reads fall back here through
+ * OrderService when an order is no longer hot.
+ *
+ * Archived orders are final: they no longer appear in admin lists, search, export or
+ * rollup rebuilds, which is why SalesRollupService won't rebuild days past the horizon.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Set<OrderEntity.OrderStatus> ARCHIVABLE =
+        EnumSet.of(OrderEntity.OrderStatus.DELIVERED, OrderEntity.OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.archive.older-than-months:6}")
+    private int olderThanMonths;
+
+    @Value("${orders.archive.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${orders.archive.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    public OrderArchiveService(
+        OrderRepository orderRepository,
+        ArchivedOrderRepository archivedOrderRepository,
+        TransactionTemplate transactionTemplate,
+        ObjectMapper objectMapper
+    ) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Orders created before this day may already be archived. */
+    public LocalDate archiveHorizon() {
+        return LocalDate.now().minusMonths(olderThanMonths);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // ARCHIVAL JOB — small transactions so locks and undo stay short
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(cron = "${orders.archive.cron:0 0 4 * * *}")
+    public void archiveOldOrders() {
+        LocalDateTime cutoff = archiveHorizon().atStartOfDay();
+        int total = 0;
+        for (int i = 0; i < maxChunksPerRun; i++) {
+            int moved;
+            try {
+                moved = archiveChunk(cutoff);
+            } catch (Exception e) {
+                System.err.println("❌ Order archival chunk failed: " + e.getMessage());
+                break;
+            }
+            total += moved;
+            if (moved < chunkSize) break;
+        }
+        if (total > 0) {
+            System.out.println("✅ Archived " + total + " order(s) created before " + cutoff.toLocalDate());
+        }
+    }
+
+    /** Archives up to one chunk of orders; returns how many were moved. */
+    public int archiveChunk(LocalDateTime cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = orderRepository.findArchivableIds(ARCHIVABLE, cutoff, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) return 0;
+
+            LocalDateTime now = LocalDateTime.now();
+            // persist, not saveAll: the id is assigned, so save() would merge (a SELECT per row) and
+            // overwrite an existing archive row instead of failing on it; plain inserts also batch
+            orderRepository.findByOrderIdIn(ids).forEach(order -> entityManager.persist(toArchive(order, now)));
+            entityManager.flush();
+
+            orderRepository.deleteItemsByOrderIds(ids);
+            orderRepository.deleteByOrderIds(ids);
+            return ids.size();
+        });
+        return moved != null ? moved : 0;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // READS
+    // ─────────────────────────────────────────────────────────────────────────
+    public Optional<OrderDTO> findById(Long orderId) {
+        return archivedOrderRepository.findById(orderId).map(this::toDto);
+    }
+
+    public Optional<ArchivedOrderEntity> findEntityById(Long orderId) {
+        return archivedOrderRepository.findById(orderId);
+    }
+
+    public Optional<OrderDTO> findByOrderNumber(String orderNumber) {
+        return archivedOrderRepository.findByOrderNumber(orderNumber).map(this::toDto);
+    }
+
+    public List<OrderDTO> findForUser(Long userId) {
+        return archivedOrderRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+            .map(this::toDto)
+            .collect(Collectors.toList());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // ENCODING — gzipped OrderDTO JSON
+    // ─────────────────────────────────────────────────────────────────────────
+    private ArchivedOrderEntity toArchive(OrderEntity order, LocalDateTime archivedAt) {
+        OrderDTO dto = OrderDTO.fromEntity(order);
+        return new ArchivedOrderEntity(
+            order.getOrderId(),
+            order.getUser().getUserId(),
+            order.getOrderNumber(),
+            order.getStatus().name(),
+            order.getPaymentStatus().name(),
+            order.getFinalAmount(),
+            order.getCreatedAt(),
+            archivedAt,
+            gzip(dto)
+        );
+    }
+
+    public OrderDTO toDto(ArchivedOrderEntity archived) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archived.getPayload()))) {
+            return objectMapper.readValue(in, OrderDTO.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read archived order " + archived.getOrderId() + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] gzip(OrderDTO dto) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, dto);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not archive order " + dto.getOrderId() + ": " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+}
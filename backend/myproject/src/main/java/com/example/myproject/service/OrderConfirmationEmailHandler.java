@@ -0,0 +1,82 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OutboxEventEntity;
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.OrderRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class OrderConfirmationEmailHandler implements OutboxEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+
+    public OrderConfirmationEmailHandler(OrderRepository orderRepository, EmailService emailService,
+                                         MailDispatcher mailDispatcher) {
+        this.orderRepository = orderRepository;
+        this.emailService = emailService;
+        this.mailDispatcher = mailDispatcher;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_CONFIRMATION;
+    }
+
+    @Override
+    public void handle(OutboxEventEntity event) throws Exception {
+        Exception failure = handleAll(List.of(event)).get(event.getId());
+        if (failure != null) throw failure;
+    }
+
+    /** Loads the whole batch in one query and sends it over one SMTP connection. */
+    @Override
+    public Map<Long, Exception> handleAll(List<OutboxEventEntity> events) {
+        // Loads user + items together so the emails can be built without a session
+        Map<Long, OrderEntity> orders = orderRepository.findByOrderIdIn(
+                events.stream().map(OutboxEventEntity::getAggregateId).toList())
+            .stream().collect(Collectors.toMap(OrderEntity::getOrderId, Function.identity(), (a, b) -> a));
+
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, OutboxEventEntity> eventByMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        for (OutboxEventEntity event : events) {
+            OrderEntity order = orders.get(event.getAggregateId());
+            if (order == null) {
+                System.err.println("❌ Order " + event.getAggregateId() + " no longer exists, skipping confirmation email");
+                continue;
+            }
+            try {
+                MimeMessage message = emailService.buildOrderConfirmationEmail(order);
+                eventByMessage.put(message, event);
+                messages.add(message);
+            } catch (MessagingException e) {
+                // A malformed address won't get better on retry
+                failures.put(event.getId(), new PermanentDeliveryException("Cannot build confirmation email: " + e.getMessage(), e));
+            }
+        }
+
+        mailDispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, messages)
+            .forEach((message, e) -> failures.put(eventByMessage.get(message).getId(), e));
+
+        for (MimeMessage message : messages) {
+            OutboxEventEntity event = eventByMessage.get(message);
+            if (!failures.containsKey(event.getId())) {
+                System.out.println("✅ Order confirmation email sent → order " + event.getAggregateId());
+            }
+        }
+        return failures;
+    }
+}
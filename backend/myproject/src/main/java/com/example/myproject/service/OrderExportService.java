@@ -0,0 +1,151 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OrderItemEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes orders as CSV (one row per order item, order columns repeated) straight
+ * to an OutputStream with constant memory.
+ *
+ * Rows come from a single forward-only query over order_items with the order
+ * and customer join-fetched, so nothing lazy is touched while the cursor is
+ * open — MySQL does not allow other statements on a connection that is
+ * streaming a result. The default fetch size of Integer.MIN_VALUE is what makes
+ * Connector/J stream row by row instead of buffering the whole result. The
+ * persistence context is cleared every {@code flushEvery} rows so managed
+ * entities don't pile up, and the writer is flushed at the same point so the
+ * client sees steady progress. If the client goes away the next write throws,
+ * which closes the stream and releases the cursor.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String HEADER =
+        "order_number,created_at,status,payment_status,payment_method,customer_name,customer_email," +
+        "shipping_name,shipping_phone,shipping_city,shipping_state,shipping_pincode," +
+        "total_amount,shipping_fee,discount_amount,final_amount,paid_at,delivered_at," +
+        "product_id,product_name,quantity,price_at_purchase,item_subtotal\n";
+
+    private static final String EXPORT_QUERY =
+        "SELECT i FROM OrderItemEntity i JOIN FETCH i.order o JOIN FETCH o.user " +
+        "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+        "ORDER BY o.createdAt DESC, o.orderId DESC, i.orderItemId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public OrderExportService(
+        PlatformTransactionManager transactionManager,
+        @Value("${orders.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize,
+        @Value("${orders.export.flush-every:500}") int flushEvery
+    ) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.flushEvery = Math.max(flushEvery, 1);
+    }
+
+    /** Streams every order item created in [from, to] (inclusive days, both optional). */
+    public void writeCsv(OutputStream out, LocalDate from, LocalDate to) throws IOException {
+        LocalDateTime start = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                TypedQuery<OrderItemEntity> query = entityManager
+                    .createQuery(EXPORT_QUERY, OrderItemEntity.class)
+                    .setParameter("from", start)
+                    .setParameter("to", end)
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(AvailableHints.HINT_READ_ONLY, true);
+
+                try (Stream<OrderItemEntity> rows = query.getResultStream()) {
+                    Iterator<OrderItemEntity> it = rows.iterator();
+                    long written = 0;
+                    while (it.hasNext()) {
+                        writeRow(writer, it.next());
+                        if (++written % flushEvery == 0) {
+                            writer.flush();
+                            entityManager.clear();
+                        }
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    // Usually the client cancelled the download; closing the stream frees the cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeRow(Writer w, OrderItemEntity item) throws IOException {
+        OrderEntity o = item.getOrder();
+        w.write(csv(o.getOrderNumber()));                                  w.write(',');
+        w.write(csv(o.getCreatedAt()));                                    w.write(',');
+        w.write(csv(o.getStatus()));                                       w.write(',');
+        w.write(csv(o.getPaymentStatus()));                                w.write(',');
+        w.write(csv(o.getPaymentMethod()));                                w.write(',');
+        w.write(csv(o.getUser().getFullName()));                           w.write(',');
+        w.write(csv(o.getUser().getEmail()));                              w.write(',');
+        w.write(csv(o.getShippingName()));                                 w.write(',');
+        w.write(csv(o.getShippingPhone()));                                w.write(',');
+        w.write(csv(o.getShippingCity()));                                 w.write(',');
+        w.write(csv(o.getShippingState()));                                w.write(',');
+        w.write(csv(o.getShippingPincode()));                              w.write(',');
+        w.write(csv(o.getTotalAmount()));                                  w.write(',');
+        w.write(csv(o.getShippingFee()));                                  w.write(',');
+        w.write(csv(o.getDiscountAmount()));                               w.write(',');
+        w.write(csv(o.getFinalAmount()));                                  w.write(',');
+        w.write(csv(o.getPaidAt()));                                       w.write(',');
+        w.write(csv(o.getDeliveredAt()));                                  w.write(',');
+        // getProductId() on the lazy proxy returns the FK without loading the product
+        w.write(csv(item.getProduct().getProductId()));                    w.write(',');
+        w.write(csv(item.getProductName()));                               w.write(',');
+        w.write(csv(item.getQuantity()));                                  w.write(',');
+        w.write(csv(item.getPriceAtPurchase()));                           w.write(',');
+        w.write(csv(item.getSubtotal()));
+        w.write('\n');
+    }
+
+    // RFC 4180 quoting; also neutralises spreadsheet formula injection in free-text fields
+    static String csv(Object value) {
+        if (value == null) return "";
+        if (value instanceof BigDecimal amount) return amount.toPlainString();
+        if (value instanceof Number || value instanceof Enum<?> || value instanceof LocalDateTime) return value.toString();
+
+        String s = value.toString();
+        if (!s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0) s = "'" + s;
+        boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+        return quote ? '"' + s.replace("\"", "\"\"") + '"' : s;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.dto.OrderSummaryDTO;
+import com.example.myproject.event.OrderChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-customer cache of "my orders" in front of {@link OrderService#getUserOrders}.
+ *
+ * A hit touches no database at all — this class is deliberately not transactional,
+ * so not even a connection is borrowed. Entries are dropped after the change that
+ * made them stale has committed ({@link OrderChangedEvent}); the TTL only bounds
+ * how long a missed invalidation could linger. Summaries are derived once per load
+ * and cached alongside the full list.
+ */
+@Service
+public class OrderHistoryService {
+
+    private record UserOrders(List<OrderDTO> orders, List<OrderSummaryDTO> summaries) {
+    }
+
+    private final OrderService orderService;
+    private final Cache<String, UserOrders> cache;
+
+    public OrderHistoryService(
+        OrderService orderService,
+        @Value("${orders.history-cache.max-users:10000}") long maxUsers,
+        @Value("${orders.history-cache.ttl-minutes:10}") long ttlMinutes
+    ) {
+        this.orderService = orderService;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .build();
+    }
+
+    public List<OrderDTO> getOrders(String userEmail) {
+        return load(userEmail).orders();
+    }
+
+    public List<OrderSummaryDTO> getSummaries(String userEmail) {
+        return load(userEmail).summaries();
+    }
+
+    private UserOrders load(String userEmail) {
+        return cache.get(userEmail, email -> {
+            List<OrderDTO> orders = List.copyOf(orderService.getUserOrders(email));
+            List<OrderSummaryDTO> summaries = orders.stream()
+                .map(OrderSummaryDTO::fromDto)
+                .collect(Collectors.toUnmodifiableList());
+            return new UserOrders(orders, summaries);
+        });
+    }
+
+    // fallbackExecution: changes made outside a transaction still invalidate
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.userEmail() != null) {
+            cache.invalidate(event.userEmail());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.myproject.service;
+
+/**
+ * Produces the customer-facing order number stored in {@code orders.order_number}.
+ * Implementations must never hand out the same value twice, including across
+ * several application instances writing to the same database.
+ */
+public interface OrderNumberGenerator {
+
+    String nextOrderNumber();
+}
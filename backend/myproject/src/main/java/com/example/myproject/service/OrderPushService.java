@@ -0,0 +1,374 @@
+package com.example.myproject.service;
+
+import com.example.myproject.event.OrderChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events channel that pushes order status changes to the customer's
+ * open tabs, replacing the refresh/poll loop on MyOrders and OrderSuccess.
+ *
+ * The subscription registry and the per-user replay buffers are owned by one
+ * dispatcher thread, so they need no locks; request threads and the after-commit
+ * listener only hand tasks to it. Channels are keyed by user id, which survives an
+ * email change. The dispatcher never writes to a response itself: each open stream
+ * has its own queue, drained by one of {@code writer-threads} writers at a time,
+ * so sends to one stream stay in order and a client that stops reading only holds
+ * up its own stream. Once more than {@code max-pending-per-connection} events are
+ * queued for a stream it is closed; EventSource reconnects and resumes or resyncs.
+ *
+ * Event ids are "<boot>-<sequence>". A reconnecting browser sends the last one it
+ * saw (Last-Event-ID); anything newer still in the user's buffer is replayed, and
+ * if the buffer can't prove nothing was missed (restart, idle channel pruned,
+ * buffer overflowed) the client gets a single "resync" event and reloads the list.
+ * Channels live in this JVM only: with several instances a tab only hears about
+ * changes committed on the node it is connected to, and falls back to resync.
+ */
+@Service
+public class OrderPushService {
+
+    static final String ORDER_EVENT = "order";
+    static final String RESYNC_EVENT = "resync";
+
+    private static final String BOOT = Long.toString(System.currentTimeMillis(), 36);
+
+    private record Pushed(long seq, Map<String, Object> data) {
+    }
+
+    /** One open stream. Only a writer touches the emitter, one writer at a time. */
+    private static final class Connection {
+        final SseEmitter emitter;
+        // Guarded by this
+        final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        boolean writing;   // a writer task is draining pending
+        boolean closing;   // no new events; complete once pending is flushed
+        boolean done;      // completed, failed or detached
+
+        Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    private static final class Channel {
+        final List<Connection> connections = new ArrayList<>();
+        final ArrayDeque<Pushed> recent = new ArrayDeque<>();
+        // Events up to this sequence may have been missed by a resuming client
+        long coveredAfter;
+        long idleSince;
+
+        Channel(long coveredAfter) {
+            this.coveredAfter = coveredAfter;
+        }
+    }
+
+    // Only touched on the dispatcher thread
+    private final Map<Long, Channel> channels = new HashMap<>();
+    private long sequence;
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "order-push");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService writers;
+
+    private final long emitterTimeoutMs;
+    private final int bufferSize;
+    private final int maxConnectionsPerUser;
+    private final long resumeWindowMs;
+    private final long reconnectMs;
+    private final int maxPendingPerConnection;
+
+    public OrderPushService(
+        @Value("${orders.push.timeout-ms:1800000}") long emitterTimeoutMs,
+        @Value("${orders.push.buffer-size:50}") int bufferSize,
+        @Value("${orders.push.max-connections-per-user:10}") int maxConnectionsPerUser,
+        @Value("${orders.push.resume-window-ms:300000}") long resumeWindowMs,
+        @Value("${orders.push.reconnect-ms:3000}") long reconnectMs,
+        @Value("${orders.push.writer-threads:4}") int writerThreads,
+        @Value("${orders.push.max-pending-per-connection:100}") int maxPendingPerConnection
+    ) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.maxConnectionsPerUser = Math.max(maxConnectionsPerUser, 1);
+        this.resumeWindowMs = resumeWindowMs;
+        this.reconnectMs = reconnectMs;
+        this.maxPendingPerConnection = Math.max(maxPendingPerConnection, 1);
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(writerThreads, 1), r -> {
+            Thread t = new Thread(r, "order-push-writer-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SUBSCRIBE
+    // ─────────────────────────────────────────────────────────────────────────
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(userId, lastEventId, emitter);
+        return emitter;
+    }
+
+    void register(Long userId, String lastEventId, SseEmitter emitter) {
+        Connection connection = new Connection(emitter);
+        Runnable detach = () -> dispatcher.execute(() -> detach(userId, connection));
+        emitter.onCompletion(detach);
+        emitter.onTimeout(detach);
+        emitter.onError(e -> detach.run());
+
+        dispatcher.execute(() -> attach(userId, lastEventId, connection));
+    }
+
+    private void attach(Long userId, String lastEventId, Connection connection) {
+        Channel channel = channels.get(userId);
+        boolean existed = channel != null;
+        if (!existed) {
+            channel = new Channel(sequence);
+            channels.put(userId, channel);
+        }
+
+        if (channel.connections.size() >= maxConnectionsPerUser) {
+            // Oldest tab is most likely abandoned; EventSource will reconnect it if not
+            close(channel.connections.remove(0));
+        }
+        channel.connections.add(connection);
+
+        enqueue(connection, SseEmitter.event().comment("connected").reconnectTime(reconnectMs));
+
+        Long resumeFrom = parseSequence(lastEventId);
+        if (lastEventId == null || lastEventId.isBlank()) return;
+
+        if (!existed || resumeFrom == null || resumeFrom < channel.coveredAfter) {
+            enqueue(connection, SseEmitter.event().id(eventId(sequence)).name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON));
+            return;
+        }
+        for (Pushed p : channel.recent) {
+            if (p.seq() > resumeFrom) enqueue(connection, orderEvent(p));
+        }
+    }
+
+    private void detach(Long userId, Connection connection) {
+        synchronized (connection) {
+            connection.done = true;
+            connection.pending.clear();
+        }
+        Channel channel = channels.get(userId);
+        if (channel != null && channel.connections.remove(connection) && channel.connections.isEmpty()) {
+            channel.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // DISPATCH
+    // Only users with a live (or recently live) channel get buffered events;
+    // a browser that shows up later loads the list fresh anyway.
+    // ─────────────────────────────────────────────────────────────────────────
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.userId() == null || event.orderId() == null) return;
+        dispatcher.execute(() -> dispatch(event));
+    }
+
+    private void dispatch(OrderChangedEvent event) {
+        Channel channel = channels.get(event.userId());
+        if (channel == null) return;
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("orderId", event.orderId());
+        data.put("orderNumber", event.orderNumber());
+        data.put("status", event.status() != null ? event.status().name() : null);
+        data.put("paymentStatus", event.paymentStatus() != null ? event.paymentStatus().name() : null);
+        Pushed pushed = new Pushed(++sequence, data);
+
+        channel.recent.addLast(pushed);
+        if (channel.recent.size() > bufferSize) {
+            channel.coveredAfter = channel.recent.removeFirst().seq();
+        }
+
+        // A builder is consumed by the send that writes it, so every tab gets its own
+        for (Connection connection : channel.connections) {
+            enqueue(connection, orderEvent(pushed));
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HEARTBEAT — keeps proxies from closing idle streams, finds dead sockets
+    // and drops channels nobody has resumed within the window.
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(fixedDelayString = "${orders.push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        dispatcher.execute(() -> {
+            long now = System.currentTimeMillis();
+            Iterator<Channel> it = channels.values().iterator();
+            while (it.hasNext()) {
+                Channel channel = it.next();
+                for (Connection connection : channel.connections) {
+                    enqueue(connection, SseEmitter.event().comment("ping"));
+                }
+                if (channel.connections.isEmpty() && now - channel.idleSince > resumeWindowMs) {
+                    it.remove();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.execute(() -> {
+            channels.values().forEach(c -> c.connections.forEach(this::close));
+            channels.clear();
+        });
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        writers.shutdown();
+        writers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // WRITERS — one drain per connection at a time, so its frames stay in order
+    // ─────────────────────────────────────────────────────────────────────────
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event) {
+        synchronized (connection) {
+            if (connection.closing || connection.done) return;
+            if (connection.pending.size() >= maxPendingPerConnection) {
+                // Not reading: drop what's queued and close, the client resumes or resyncs
+                connection.pending.clear();
+                connection.closing = true;
+            } else {
+                connection.pending.addLast(event);
+            }
+            if (connection.writing) return;
+            connection.writing = true;
+        }
+        writers.execute(() -> drain(connection));
+    }
+
+    private void close(Connection connection) {
+        synchronized (connection) {
+            if (connection.closing || connection.done) return;
+            connection.closing = true;
+            if (connection.writing) return;
+            connection.writing = true;
+        }
+        writers.execute(() -> drain(connection));
+    }
+
+    private void drain(Connection connection) {
+        try {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (connection) {
+                    event = connection.pending.pollFirst();
+                    if (event == null) {
+                        connection.writing = false;
+                        if (!connection.closing || connection.done) return;
+                        connection.done = true;
+                    }
+                }
+                if (event == null) {
+                    connection.emitter.complete();
+                    return;
+                }
+                if (!send(connection.emitter, event)) {
+                    abandon(connection);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never leave the connection marked as being written, or nothing reaches it again
+            System.err.println("❌ Order stream write failed: " + e.getMessage());
+            abandon(connection);
+            try {
+                connection.emitter.completeWithError(e);
+            } catch (RuntimeException ignored) {
+                // already completed
+            }
+        }
+    }
+
+    private void abandon(Connection connection) {
+        synchronized (connection) {
+            connection.done = true;
+            connection.pending.clear();
+            connection.writing = false;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+    private static SseEmitter.SseEventBuilder orderEvent(Pushed pushed) {
+        return SseEmitter.event()
+            .id(eventId(pushed.seq()))
+            .name(ORDER_EVENT)
+            .data(pushed.data(), MediaType.APPLICATION_JSON);
+    }
+
+    // A failed write means the client is gone; completing fires the detach callback
+    private boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static String eventId(long seq) {
+        return BOOT + "-" + seq;
+    }
+
+    private static Long parseSequence(String lastEventId) {
+        if (lastEventId == null) return null;
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash <= 0 || !BOOT.equals(lastEventId.substring(0, dash))) return null;
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // For tests: waits until everything queued so far has been dispatched and written
+    void awaitDispatch() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!dispatcher.submit(this::allWritten).get(5, TimeUnit.SECONDS)) {
+            if (System.nanoTime() > deadline) throw new TimeoutException("order-push writers still busy");
+            Thread.sleep(5);
+        }
+    }
+
+    private boolean allWritten() {
+        for (Channel channel : channels.values()) {
+            for (Connection connection : channel.connections) {
+                synchronized (connection) {
+                    if (connection.writing || !connection.pending.isEmpty()) return false;
+                }
+            }
+        }
+        return true;
+    }
+}
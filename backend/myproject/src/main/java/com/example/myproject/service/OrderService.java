@@ -1,243 +1,94 @@
 package com.example.myproject.service;
 
+import com.example.myproject.dto.BulkStatusUpdateRequest;
+import com.example.myproject.dto.BulkStatusUpdateResult;
 import com.example.myproject.dto.CreateOrderRequest;
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.dto.OrderSearchCriteria;
+import com.example.myproject.dto.OrderSearchResult;
 import com.example.myproject.entity.*;
+import com.example.myproject.event.OrderChangedEvent;
+import com.example.myproject.repository.OrderKey;
 import com.example.myproject.repository.OrderRepository;
-import com.example.myproject.repository.ProductRepository;
+import com.example.myproject.repository.OrderStatusSnapshot;
 import com.example.myproject.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_ADMIN_PAGE_SIZE = 200;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_BULK_STATUS_UPDATE = 500;
+    private static final Sort ADMIN_ORDER_SORT =
+        Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "orderId"));
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final CartService cartService;
-    private final ProductRepository productRepository;
+    private final CheckoutService checkoutService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
 
     @Autowired
-    private EmailService emailService;
+    private ApplicationEventPublisher eventPublisher;
 
     public OrderService(
         OrderRepository orderRepository,
         UserRepository userRepository,
-        CartService cartService,
-        ProductRepository productRepository
+        CheckoutService checkoutService
     ) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
-        this.cartService = cartService;
-        this.productRepository = productRepository;
+        this.checkoutService = checkoutService;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
-    // SHARED HELPER — builds the base OrderEntity from shipping fields
+    // PLACING ORDERS — all four entry points go through CheckoutService
     // ─────────────────────────────────────────────────────────────────────────
-    private void applyShipping(OrderEntity order, CreateOrderRequest request) {
-        order.setShippingName(request.getName());
-        order.setShippingPhone(request.getPhone());
-        order.setShippingAddress(request.getAddress());
-        order.setShippingCity(request.getCity());
-        order.setShippingState(request.getState());
-        order.setShippingPincode(request.getPincode());
-        order.setOrderNotes(request.getNotes() != null ? request.getNotes() : "");
-    }
-
-    private BigDecimal calcShippingFee(BigDecimal totalAmount) {
-        return totalAmount.compareTo(new BigDecimal("50")) >= 0
-            ? BigDecimal.ZERO
-            : new BigDecimal("5.00");
-    }
 
-    // ─────────────────────────────────────────────────────────────────────────
-    // RAZORPAY — create order from cart (existing, unchanged)
-    // ─────────────────────────────────────────────────────────────────────────
-    @Transactional
+    /** Razorpay, from cart. Confirmation is queued once the payment is verified. */
     public OrderEntity createOrderFromCart(String userEmail, CreateOrderRequest request) {
-        UserEntity user = userRepository.findByEmail(userEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<CartItemEntity> cartItems = cartService.getCartItems(userEmail);
-        if (cartItems.isEmpty()) throw new RuntimeException("Cart is empty");
-
-        BigDecimal totalAmount = cartItems.stream()
-            .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal shippingFee = calcShippingFee(totalAmount);
-
-        OrderEntity order = new OrderEntity();
-        order.setUser(user);
-        order.setTotalAmount(totalAmount);
-        order.setShippingFee(shippingFee);
-        order.setFinalAmount(totalAmount.add(shippingFee));
-        order.setStatus(OrderEntity.OrderStatus.PENDING);
-        order.setPaymentStatus(OrderEntity.PaymentStatus.PENDING);
-        order.setPaymentMethod(OrderEntity.PaymentMethod.RAZORPAY);
-        applyShipping(order, request);
-
-        List<OrderItemEntity> orderItems = new ArrayList<>();
-        for (CartItemEntity cartItem : cartItems) {
-            OrderItemEntity oi = new OrderItemEntity();
-            oi.setOrder(order);
-            oi.setProduct(cartItem.getProduct());
-            oi.setProductName(cartItem.getProduct().getName());
-            oi.setQuantity(cartItem.getQuantity());
-            oi.setPriceAtPurchase(cartItem.getProduct().getPrice());
-            oi.setSubtotal(cartItem.getProduct().getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
-            oi.setProductImageUrl(cartItem.getProduct().getImageUrl());
-            orderItems.add(oi);
-        }
-        order.setOrderItems(orderItems);
-
-        OrderEntity saved = orderRepository.save(order);
-        cartService.clearCart(userEmail);
-        emailService.sendOrderConfirmationEmail(saved);
-        return saved;
+        return checkoutService.placeOrder(userEmail, checkoutService.fromCart(), CheckoutPayment.RAZORPAY, request);
     }
 
-    // ─────────────────────────────────────────────────────────────────────────
-    // RAZORPAY — create order from Buy Now (existing, unchanged)
-    // ─────────────────────────────────────────────────────────────────────────
-    @Transactional
+    /** Razorpay, single product (Buy Now). */
     public OrderEntity createOrderFromBuyNow(String userEmail, Long productId, int quantity, CreateOrderRequest request) {
-        UserEntity user = userRepository.findByEmail(userEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-
-        ProductEntity product = productRepository.findById(productId)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        if (!product.getIsAvailable()) throw new RuntimeException("Product is not available");
-        if (product.getStockQuantity() < quantity)
-            throw new RuntimeException("Insufficient stock. Only " + product.getStockQuantity() + " items available.");
-
-        BigDecimal unitPrice   = product.getPrice();
-        BigDecimal totalAmount = unitPrice.multiply(new BigDecimal(quantity));
-        BigDecimal shippingFee = calcShippingFee(totalAmount);
-
-        OrderEntity order = new OrderEntity();
-        order.setUser(user);
-        order.setTotalAmount(totalAmount);
-        order.setShippingFee(shippingFee);
-        order.setFinalAmount(totalAmount.add(shippingFee));
-        order.setStatus(OrderEntity.OrderStatus.PENDING);
-        order.setPaymentStatus(OrderEntity.PaymentStatus.PENDING);
-        order.setPaymentMethod(OrderEntity.PaymentMethod.RAZORPAY);
-        applyShipping(order, request);
-
-        OrderItemEntity oi = new OrderItemEntity();
-        oi.setOrder(order);
-        oi.setProduct(product);
-        oi.setProductName(product.getName());
-        oi.setQuantity(quantity);
-        oi.setPriceAtPurchase(unitPrice);
-        oi.setSubtotal(totalAmount);
-        oi.setProductImageUrl(product.getImageUrl());
-
-        List<OrderItemEntity> buyNowItems1 = new ArrayList<>();
-        buyNowItems1.add(oi);
-        order.setOrderItems(buyNowItems1);
-        return orderRepository.save(order);
+        return checkoutService.placeOrder(userEmail, checkoutService.buyNow(productId, quantity),
+            CheckoutPayment.RAZORPAY, request);
     }
 
-    // ─────────────────────────────────────────────────────────────────────────
-    // COD — create order from cart  ← NEW
-    // ─────────────────────────────────────────────────────────────────────────
-    @Transactional
+    /** COD, from cart — confirmed immediately. */
     public OrderEntity createCodOrderFromCart(String userEmail, CreateOrderRequest request) {
-        UserEntity user = userRepository.findByEmail(userEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<CartItemEntity> cartItems = cartService.getCartItems(userEmail);
-        if (cartItems.isEmpty()) throw new RuntimeException("Cart is empty");
-
-        BigDecimal totalAmount = cartItems.stream()
-            .map(item -> item.getProduct().getPrice().multiply(new BigDecimal(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal shippingFee = calcShippingFee(totalAmount);
-
-        OrderEntity order = new OrderEntity();
-        order.setUser(user);
-        order.setTotalAmount(totalAmount);
-        order.setShippingFee(shippingFee);
-        order.setFinalAmount(totalAmount.add(shippingFee));
-        order.setStatus(OrderEntity.OrderStatus.CONFIRMED);      // COD orders go straight to CONFIRMED
-        order.setPaymentStatus(OrderEntity.PaymentStatus.PENDING); // paid on delivery
-        order.setPaymentMethod(OrderEntity.PaymentMethod.COD);
-        applyShipping(order, request);
-
-        List<OrderItemEntity> orderItems = new ArrayList<>();
-        for (CartItemEntity cartItem : cartItems) {
-            OrderItemEntity oi = new OrderItemEntity();
-            oi.setOrder(order);
-            oi.setProduct(cartItem.getProduct());
-            oi.setProductName(cartItem.getProduct().getName());
-            oi.setQuantity(cartItem.getQuantity());
-            oi.setPriceAtPurchase(cartItem.getProduct().getPrice());
-            oi.setSubtotal(cartItem.getProduct().getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
-            oi.setProductImageUrl(cartItem.getProduct().getImageUrl());
-            orderItems.add(oi);
-        }
-        order.setOrderItems(orderItems);
-
-        OrderEntity saved = orderRepository.save(order);
-        cartService.clearCart(userEmail);
-        emailService.sendOrderConfirmationEmail(saved);
-        return saved;
+        return checkoutService.placeOrder(userEmail, checkoutService.fromCart(), CheckoutPayment.COD, request);
     }
 
-    // ─────────────────────────────────────────────────────────────────────────
-    // COD — create order from Buy Now  ← NEW
-    // ─────────────────────────────────────────────────────────────────────────
-    @Transactional
+    /** COD, single product (Buy Now) — confirmed immediately. */
     public OrderEntity createCodOrderFromBuyNow(String userEmail, Long productId, int quantity, CreateOrderRequest request) {
-        UserEntity user = userRepository.findByEmail(userEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-
-        ProductEntity product = productRepository.findById(productId)
-            .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        if (!product.getIsAvailable()) throw new RuntimeException("Product is not available");
-        if (product.getStockQuantity() < quantity)
-            throw new RuntimeException("Insufficient stock. Only " + product.getStockQuantity() + " items available.");
-
-        BigDecimal unitPrice   = product.getPrice();
-        BigDecimal totalAmount = unitPrice.multiply(new BigDecimal(quantity));
-        BigDecimal shippingFee = calcShippingFee(totalAmount);
-
-        OrderEntity order = new OrderEntity();
-        order.setUser(user);
-        order.setTotalAmount(totalAmount);
-        order.setShippingFee(shippingFee);
-        order.setFinalAmount(totalAmount.add(shippingFee));
-        order.setStatus(OrderEntity.OrderStatus.CONFIRMED);       // COD = confirmed immediately
-        order.setPaymentStatus(OrderEntity.PaymentStatus.PENDING); // paid on delivery
-        order.setPaymentMethod(OrderEntity.PaymentMethod.COD);
-        applyShipping(order, request);
-
-        OrderItemEntity oi = new OrderItemEntity();
-        oi.setOrder(order);
-        oi.setProduct(product);
-        oi.setProductName(product.getName());
-        oi.setQuantity(quantity);
-        oi.setPriceAtPurchase(unitPrice);
-        oi.setSubtotal(totalAmount);
-        oi.setProductImageUrl(product.getImageUrl());
-
-        List<OrderItemEntity> buyNowItems2 = new ArrayList<>();
-        buyNowItems2.add(oi);
-        order.setOrderItems(buyNowItems2);
-        OrderEntity savedBuyNow = orderRepository.save(order);
-        emailService.sendOrderConfirmationEmail(savedBuyNow);
-        return savedBuyNow;
+        return checkoutService.placeOrder(userEmail, checkoutService.buyNow(productId, quantity),
+            CheckoutPayment.COD, request);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -249,63 +100,287 @@ public class OrderService {
         return orderRepository.findAllByOrderByCreatedAtDesc();
     }
 
-    /** A specific user's orders */
-    public List<OrderEntity> getUserOrders(String userEmail) {
+    /**
+     * One page of all orders — admin only.
+     * Ids first, then orders + users + items for that page in one query, so the
+     * statement count stays fixed no matter how many orders are on the page.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> getAllOrdersPage(int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0),
+            Math.min(Math.max(size, 1), MAX_ADMIN_PAGE_SIZE), ADMIN_ORDER_SORT);
+
+        Page<Long> ids = orderRepository.findOrderIds(pageable);
+        if (ids.isEmpty()) return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+
+        Map<Long, OrderEntity> byId = orderRepository.findByOrderIdIn(ids.getContent()).stream()
+            .collect(Collectors.toMap(OrderEntity::getOrderId, Function.identity()));
+
+        // Keep the page order from phase 1; skip rows deleted in between
+        List<OrderDTO> content = ids.getContent().stream()
+            .map(byId::get)
+            .filter(o -> o != null)
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Admin search with combinable filters and keyset pagination (newest first).
+     * Fetches one extra key to know whether another page exists, then loads the
+     * page's orders + users + items in a single query.
+     */
+    @Transactional(readOnly = true)
+    public OrderSearchResult searchOrders(OrderSearchCriteria criteria) {
+        int size = criteria.getSize() == null ? DEFAULT_SEARCH_PAGE_SIZE
+            : Math.min(Math.max(criteria.getSize(), 1), MAX_ADMIN_PAGE_SIZE);
+        OrderKey after = criteria.getCursor() != null && !criteria.getCursor().isBlank()
+            ? OrderKey.fromCursor(criteria.getCursor())
+            : null;
+
+        List<OrderKey> keys = orderRepository.searchOrderKeys(criteria, after, size + 1);
+        boolean hasMore = keys.size() > size;
+        if (hasMore) keys = keys.subList(0, size);
+        if (keys.isEmpty()) return new OrderSearchResult(List.of(), null, false);
+
+        List<Long> ids = keys.stream().map(OrderKey::orderId).collect(Collectors.toList());
+        Map<Long, OrderEntity> byId = orderRepository.findByOrderIdIn(ids).stream()
+            .collect(Collectors.toMap(OrderEntity::getOrderId, Function.identity()));
+
+        List<OrderDTO> orders = ids.stream()
+            .map(byId::get)
+            .filter(o -> o != null)
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+        String nextCursor = hasMore ? keys.get(keys.size() - 1).toCursor() : null;
+        return new OrderSearchResult(orders, nextCursor, hasMore);
+    }
+
+    /** A specific user's orders — recent ones from orders, older ones from the archive */
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getUserOrders(String userEmail) {
         UserEntity user = userRepository.findByEmail(userEmail)
             .orElseThrow(() -> new RuntimeException("User not found"));
-        return orderRepository.findByUserOrderByCreatedAtDesc(user);
+
+        List<OrderDTO> orders = orderRepository.findByUserOrderByCreatedAtDesc(user).stream()
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+        List<OrderDTO> archived = orderArchiveService.findForUser(user.getUserId());
+        if (!archived.isEmpty()) {
+            // Old unfinished orders stay hot, so the two lists can interleave
+            orders.addAll(archived);
+            orders.sort(Comparator.comparing(OrderDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        }
+        return orders;
     }
 
     /** Single order with ownership check (for regular users) */
-    public OrderEntity getOrderById(String userEmail, Long orderId) {
-        UserEntity user = userRepository.findByEmail(userEmail)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+    public OrderEntity getOrderById(Long userId, Long orderId) {
         OrderEntity order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
-        if (!order.getUser().getUserId().equals(user.getUserId()))
+        if (!order.getUser().getUserId().equals(userId))
             throw new RuntimeException("Unauthorized access to order");
         return order;
     }
 
+    /** Single order as DTO with ownership check, falling back to the archive */
+    @Transactional(readOnly = true)
+    public OrderDTO getOrderDTO(Long userId, Long orderId) {
+        Optional<OrderEntity> hot = orderRepository.findById(orderId);
+        if (hot.isPresent()) {
+            if (!hot.get().getUser().getUserId().equals(userId))
+                throw new RuntimeException("Unauthorized access to order");
+            return OrderDTO.fromEntity(hot.get());
+        }
+
+        ArchivedOrderEntity archived = orderArchiveService.findEntityById(orderId)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (!archived.getUserId().equals(userId))
+            throw new RuntimeException("Unauthorized access to order");
+        return orderArchiveService.toDto(archived);
+    }
+
     /** Single order without ownership check (admin only) */
     public OrderEntity getOrderByIdAdmin(Long orderId) {
         return orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
+    /** Single order as DTO without ownership check (admin only), falling back to the archive */
+    @Transactional(readOnly = true)
+    public OrderDTO getOrderDTOAdmin(Long orderId) {
+        return orderRepository.findById(orderId)
+            .map(OrderDTO::fromEntity)
+            .or(() -> orderArchiveService.findById(orderId))
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
     /** Find by order number */
     public OrderEntity getOrderByOrderNumber(String orderNumber) {
         return orderRepository.findByOrderNumber(orderNumber)
             .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
+    /** Find by order number as DTO, falling back to the archive */
+    @Transactional(readOnly = true)
+    public OrderDTO getOrderDTOByOrderNumber(String orderNumber) {
+        return orderRepository.findByOrderNumber(orderNumber)
+            .map(OrderDTO::fromEntity)
+            .or(() -> orderArchiveService.findByOrderNumber(orderNumber))
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
     /** Cancel order — only if not already paid */
     @Transactional
-    public OrderEntity cancelOrder(String userEmail, Long orderId) {
-        OrderEntity order = getOrderById(userEmail, orderId);
+    public OrderEntity cancelOrder(Long userId, Long orderId) {
+        OrderEntity order = getOrderById(userId, orderId);
         if (order.getPaymentStatus() == OrderEntity.PaymentStatus.PAID)
             throw new RuntimeException("Cannot cancel paid order. Please contact support for refund.");
+        boolean countedBefore = SalesRollupService.countsAsSale(order);
         order.setStatus(OrderEntity.OrderStatus.CANCELLED);
-        return orderRepository.save(order);
+        checkoutService.releaseStock(order);
+        OrderEntity cancelled = orderRepository.save(order);
+        salesRollupService.recordTransition(cancelled, countedBefore);
+        publishChanged(cancelled);
+        return cancelled;
     }
 
-    /** Admin: update status + payment status with auto-timestamps */
+    /**
+     * Admin: update status + payment status with auto-timestamps. Both moves are
+     * checked against {@link OrderStateMachine} before anything changes, so e.g.
+     * a shipped order can't be cancelled back into stock.
+     */
     @Transactional
     public OrderEntity updateOrderStatus(Long orderId, String status, String paymentStatus) {
         OrderEntity order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
-
-        if (status != null) {
-            order.setStatus(OrderEntity.OrderStatus.valueOf(status));
-            if ("DELIVERED".equals(status) && order.getDeliveredAt() == null)
+        OrderEntity.OrderStatus targetStatus = status != null
+            ? parseEnum(OrderEntity.OrderStatus.class, status, "status") : null;
+        OrderEntity.PaymentStatus targetPayment = paymentStatus != null
+            ? parseEnum(OrderEntity.PaymentStatus.class, paymentStatus, "paymentStatus") : null;
+
+        if (targetStatus != null && !OrderStateMachine.canMove(order.getStatus(), targetStatus))
+            throw new RuntimeException("Cannot move order from " + order.getStatus() + " to " + targetStatus);
+        if (targetPayment != null && !OrderStateMachine.canMove(order.getPaymentStatus(), targetPayment))
+            throw new RuntimeException("Cannot move payment from " + order.getPaymentStatus() + " to " + targetPayment);
+
+        boolean countedBefore = SalesRollupService.countsAsSale(order);
+        if (targetStatus != null) {
+            order.setStatus(targetStatus);
+            if (targetStatus == OrderEntity.OrderStatus.DELIVERED && order.getDeliveredAt() == null)
                 order.setDeliveredAt(LocalDateTime.now());
+            if (targetStatus == OrderEntity.OrderStatus.CANCELLED)
+                checkoutService.releaseStock(order);
         }
-        if (paymentStatus != null) {
-            order.setPaymentStatus(OrderEntity.PaymentStatus.valueOf(paymentStatus));
-            if ("PAID".equals(paymentStatus) && order.getPaidAt() == null)
+        if (targetPayment != null) {
+            order.setPaymentStatus(targetPayment);
+            if (targetPayment == OrderEntity.PaymentStatus.PAID && order.getPaidAt() == null)
                 order.setPaidAt(LocalDateTime.now());
         }
 
-        return orderRepository.save(order);
+        OrderEntity updated = orderRepository.save(order);
+        salesRollupService.recordTransition(updated, countedBefore);
+        publishChanged(updated);
+        return updated;
+    }
+
+    /**
+     * Admin: move many orders to the same status and/or payment status at once.
+     * Rows are locked and validated against {@link OrderStateMachine}, then changed
+     * with one set-based UPDATE per field; each order gets its own result. Only
+     * orders whose sales counting flips are reloaded to adjust the rollups.
+     */
+    @Transactional
+    public List<BulkStatusUpdateResult> bulkUpdateStatus(BulkStatusUpdateRequest request) {
+        if (request.getOrderIds() == null || request.getOrderIds().isEmpty())
+            throw new RuntimeException("orderIds is required");
+        if (request.getStatus() == null && request.getPaymentStatus() == null)
+            throw new RuntimeException("status or paymentStatus is required");
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+        if (ids.size() > MAX_BULK_STATUS_UPDATE)
+            throw new RuntimeException("At most " + MAX_BULK_STATUS_UPDATE + " orders can be updated at once");
+
+        OrderEntity.OrderStatus targetStatus = request.getStatus() != null
+            ? parseEnum(OrderEntity.OrderStatus.class, request.getStatus(), "status") : null;
+        OrderEntity.PaymentStatus targetPayment = request.getPaymentStatus() != null
+            ? parseEnum(OrderEntity.PaymentStatus.class, request.getPaymentStatus(), "paymentStatus") : null;
+
+        Map<Long, OrderStatusSnapshot> current = orderRepository.lockStatuses(ids).stream()
+            .collect(Collectors.toMap(OrderStatusSnapshot::orderId, Function.identity()));
+
+        List<BulkStatusUpdateResult> results = new ArrayList<>(ids.size());
+        List<Long> statusIds = new ArrayList<>();
+        List<Long> paymentIds = new ArrayList<>();
+        Map<Long, Boolean> salesFlips = new HashMap<>();
+
+        for (Long id : ids) {
+            OrderStatusSnapshot before = current.get(id);
+            if (before == null) {
+                results.add(new BulkStatusUpdateResult(id, "NOT_FOUND", "Order not found"));
+                continue;
+            }
+            if (targetStatus != null && !OrderStateMachine.canMove(before.status(), targetStatus)) {
+                results.add(new BulkStatusUpdateResult(id, "INVALID_TRANSITION",
+                    "Cannot move order from " + before.status() + " to " + targetStatus));
+                continue;
+            }
+            if (targetPayment != null && !OrderStateMachine.canMove(before.paymentStatus(), targetPayment)) {
+                results.add(new BulkStatusUpdateResult(id, "INVALID_TRANSITION",
+                    "Cannot move payment from " + before.paymentStatus() + " to " + targetPayment));
+                continue;
+            }
+
+            OrderEntity.OrderStatus afterStatus = targetStatus != null ? targetStatus : before.status();
+            OrderEntity.PaymentStatus afterPayment = targetPayment != null ? targetPayment : before.paymentStatus();
+            if (afterStatus == before.status() && afterPayment == before.paymentStatus()) {
+                results.add(new BulkStatusUpdateResult(id, "UNCHANGED", "Already " + afterStatus + "/" + afterPayment));
+                continue;
+            }
+
+            if (afterStatus != before.status()) statusIds.add(id);
+            if (afterPayment != before.paymentStatus()) paymentIds.add(id);
+
+            boolean countedBefore = SalesRollupService.countsAsSale(before.status(), before.paymentStatus());
+            if (countedBefore != SalesRollupService.countsAsSale(afterStatus, afterPayment)) {
+                salesFlips.put(id, countedBefore);
+            }
+            results.add(new BulkStatusUpdateResult(id, "UPDATED", afterStatus + "/" + afterPayment));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!statusIds.isEmpty()) {
+            orderRepository.bulkUpdateStatus(statusIds, targetStatus,
+                targetStatus == OrderEntity.OrderStatus.DELIVERED ? now : null, now);
+            if (targetStatus == OrderEntity.OrderStatus.CANCELLED) checkoutService.releaseStock(statusIds);
+        }
+        if (!paymentIds.isEmpty()) {
+            orderRepository.bulkUpdatePaymentStatus(paymentIds, targetPayment,
+                targetPayment == OrderEntity.PaymentStatus.PAID ? now : null, now);
+        }
+        if (!salesFlips.isEmpty()) {
+            for (OrderEntity order : orderRepository.findByOrderIdIn(salesFlips.keySet())) {
+                salesRollupService.recordTransition(order, salesFlips.get(order.getOrderId()));
+            }
+        }
+
+        LinkedHashSet<Long> changed = new LinkedHashSet<>(statusIds);
+        changed.addAll(paymentIds);
+        if (!changed.isEmpty()) {
+            orderRepository.findChangeEventsByOrderIds(changed).forEach(eventPublisher::publishEvent);
+        }
+        return results;
+    }
+
+    private void publishChanged(OrderEntity order) {
+        eventPublisher.publishEvent(OrderChangedEvent.of(order));
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String field) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid " + field + ": " + value);
+        }
     }
-}
\ No newline at end of file
+}
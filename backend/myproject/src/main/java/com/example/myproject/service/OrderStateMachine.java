@@ -0,0 +1,45 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity.OrderStatus;
+import com.example.myproject.entity.OrderEntity.PaymentStatus;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed order and payment status transitions. Moving to the current status is
+ * always allowed (a no-op); anything not listed here is rejected.
+ */
+public final class OrderStateMachine {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ORDER = new EnumMap<>(OrderStatus.class);
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PAYMENT = new EnumMap<>(PaymentStatus.class);
+
+    static {
+        ORDER.put(OrderStatus.PENDING,    EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.CANCELLED));
+        ORDER.put(OrderStatus.CONFIRMED,  EnumSet.of(OrderStatus.PROCESSING, OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED));
+        ORDER.put(OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED));
+        ORDER.put(OrderStatus.SHIPPED,    EnumSet.of(OrderStatus.DELIVERED));
+        ORDER.put(OrderStatus.DELIVERED,  EnumSet.of(OrderStatus.REFUNDED));
+        ORDER.put(OrderStatus.CANCELLED,  EnumSet.of(OrderStatus.REFUNDED));
+        ORDER.put(OrderStatus.REFUNDED,   EnumSet.noneOf(OrderStatus.class));
+
+        PAYMENT.put(PaymentStatus.PENDING,  EnumSet.of(PaymentStatus.PAID, PaymentStatus.FAILED));
+        PAYMENT.put(PaymentStatus.FAILED,   EnumSet.of(PaymentStatus.PENDING, PaymentStatus.PAID));
+        PAYMENT.put(PaymentStatus.PAID,     EnumSet.of(PaymentStatus.REFUNDED));
+        PAYMENT.put(PaymentStatus.REFUNDED, EnumSet.noneOf(PaymentStatus.class));
+    }
+
+    private OrderStateMachine() {
+    }
+
+    public static boolean canMove(OrderStatus from, OrderStatus to) {
+        return from == to || ORDER.get(from).contains(to);
+    }
+
+    public static boolean canMove(PaymentStatus from, PaymentStatus to) {
+        return from == to || PAYMENT.get(from).contains(to);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OutboxEventEntity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers one type of outbox event. Called by {@link OutboxRelay} outside any
+ * transaction; throwing schedules a retry with backoff, throwing
+ * {@link com.example.myproject.exception.PermanentDeliveryException} gives up.
+ */
+public interface OutboxEventHandler {
+
+    String eventType();
+
+    void handle(OutboxEventEntity event) throws Exception;
+
+    /**
+     * Delivers a batch of events of this type, returning the failure for each
+     * event id that wasn't delivered. Override when a batch is cheaper than the
+     * sum of its parts (one query, one connection).
+     */
+    default Map<Long, Exception> handleAll(List<OutboxEventEntity> events) {
+        Map<Long, Exception> failures = new HashMap<>();
+        for (OutboxEventEntity event : events) {
+            try {
+                handle(event);
+            } catch (Exception e) {
+                failures.put(event.getId(), e);
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OutboxEventEntity;
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Polls outbox_events and hands each due event to its {@link OutboxEventHandler}.
+ *
+ * A batch is claimed through {@link LeasedQueue}: a short transaction with
+ * {@code FOR UPDATE SKIP LOCKED} flips it to PROCESSING under a lease tagged
+ * with a claim token, so several app instances can run the relay without
+ * picking the same rows. Handlers run after that transaction has committed, so
+ * slow SMTP never holds row locks or a connection. If the process dies
+ * mid-dispatch, the lease expires and the events are retried. Failures back off exponentially and end up DEAD after
+ * {@code maxAttempts}, or at once when the handler says the failure is permanent.
+ *
+ * Events are claimed and dispatched in priority order (order confirmations
+ * before welcome mail, see {@link OutboxService#priorityOf}), so a burst of
+ * sign-ups can't delay a confirmation by more than the batch in flight.
+ *
+ * A claimed batch is handed to each handler as one list per event type (in id
+ * order), at most {@code dispatch-chunk-size} events at a time, so a handler can
+ * load everything in one query and deliver over one connection. Each chunk's
+ * results are recorded as soon as it returns, and before the next chunk the
+ * lease on the rest of the batch is renewed. Every write after the claim is
+ * fenced by the claim token: once a lease has lapsed and another relay has
+ * taken the rows, this relay neither sends them nor overwrites their status.
+ */
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LeasedQueue<OutboxEventEntity> queue;
+    private final Map<String, OutboxEventHandler> handlers = new HashMap<>();
+
+    @Value("${outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${outbox.relay.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${outbox.relay.dispatch-chunk-size:25}")
+    private int dispatchChunkSize;
+
+    @Value("${outbox.relay.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${outbox.relay.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${outbox.relay.retention-days:30}")
+    private int retentionDays;
+
+    public OutboxRelay(
+        OutboxEventRepository outboxEventRepository,
+        TransactionTemplate transactionTemplate,
+        List<OutboxEventHandler> handlerBeans
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new LeasedQueue<>("Outbox event", new LeasedQueue.Rows<>() {
+            public List<Long> lockDueIds(LocalDateTime now, int limit) {
+                return outboxEventRepository.lockDueIds(now, limit);
+            }
+
+            public void markProcessing(List<Long> ids, LocalDateTime lockedUntil, String token) {
+                outboxEventRepository.markProcessing(ids, lockedUntil, token);
+            }
+
+            public List<OutboxEventEntity> findAllById(List<Long> ids) {
+                return outboxEventRepository.findAllById(ids);
+            }
+
+            public int markFailed(Long id, boolean giveUp, LocalDateTime nextAttemptAt, String error, String token) {
+                return outboxEventRepository.markFailed(id,
+                    giveUp ? OutboxEventEntity.Status.DEAD : OutboxEventEntity.Status.PENDING,
+                    nextAttemptAt, error, token);
+            }
+        }, transactionTemplate);
+        for (OutboxEventHandler handler : handlerBeans) {
+            handlers.put(handler.eventType(), handler);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // POLL — drain due events in batches
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:2000}")
+    public void poll() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            int claimed = relayBatch();
+            if (claimed < batchSize) break;
+        }
+    }
+
+    /** Claims and dispatches one batch; returns how many events were claimed. */
+    public int relayBatch() {
+        String token = UUID.randomUUID().toString();
+        List<OutboxEventEntity> batch = claimBatch(token);
+        Map<String, List<OutboxEventEntity>> byType = new LinkedHashMap<>();
+        Set<Long> unsettled = new HashSet<>();
+        for (OutboxEventEntity event : batch) {
+            byType.computeIfAbsent(event.getEventType(), t -> new ArrayList<>()).add(event);
+            unsettled.add(event.getId());
+        }
+
+        boolean first = true;
+        for (Map.Entry<String, List<OutboxEventEntity>> group : byType.entrySet()) {
+            List<OutboxEventEntity> events = group.getValue();
+            for (int from = 0; from < events.size(); from += dispatchChunkSize) {
+                List<OutboxEventEntity> chunk = events.subList(from, Math.min(events.size(), from + dispatchChunkSize));
+                // The claim itself just set the lease; later chunks renew it first
+                if (!first) chunk = renewLease(token, unsettled, chunk);
+                first = false;
+                if (chunk.isEmpty()) continue;
+                dispatch(group.getKey(), chunk, token);
+                chunk.forEach(event -> unsettled.remove(event.getId()));
+            }
+        }
+        return batch.size();
+    }
+
+    // The queue claims in id order; confirmations go out ahead of welcome mail within the batch
+    private List<OutboxEventEntity> claimBatch(String token) {
+        return queue.claim(token, batchSize, leaseSeconds).stream()
+            .sorted(Comparator.comparing(OutboxEventEntity::getPriority).thenComparing(OutboxEventEntity::getId))
+            .toList();
+    }
+
+    // Renews the lease on everything not yet settled and returns the part of the
+    // chunk this claim still holds (normally all of it)
+    private List<OutboxEventEntity> renewLease(String token, Set<Long> unsettled, List<OutboxEventEntity> chunk) {
+        Integer renewed = transactionTemplate.execute(status ->
+            outboxEventRepository.renewLease(unsettled, token, LocalDateTime.now().plusSeconds(leaseSeconds)));
+        if (renewed != null && renewed == unsettled.size()) return chunk;
+
+        List<Long> held = transactionTemplate.execute(status -> outboxEventRepository.findIdsHeldBy(unsettled, token));
+        unsettled.retainAll(held != null ? held : List.of());
+        List<OutboxEventEntity> stillHeld = chunk.stream().filter(e -> unsettled.contains(e.getId())).toList();
+        System.err.println("❌ Outbox lease lost on " + (chunk.size() - stillHeld.size())
+            + " event(s); leaving them to the relay that took them");
+        return stillHeld;
+    }
+
+    private void dispatch(String eventType, List<OutboxEventEntity> events, String token) {
+        OutboxEventHandler handler = handlers.get(eventType);
+        Map<Long, Exception> failures;
+        try {
+            if (handler == null) throw new IllegalStateException("No handler for event type " + eventType);
+            failures = handler.handleAll(events);
+        } catch (RuntimeException e) {
+            failures = new HashMap<>();
+            for (OutboxEventEntity event : events) failures.put(event.getId(), e);
+        }
+
+        List<Long> sent = new ArrayList<>();
+        for (OutboxEventEntity event : events) {
+            Exception failure = failures.get(event.getId());
+            if (failure == null) sent.add(event.getId());
+            else recordFailure(event, failure, token);
+        }
+        if (!sent.isEmpty()) {
+            Integer marked = transactionTemplate.execute(status ->
+                outboxEventRepository.markSent(sent, LocalDateTime.now(), token));
+            if (marked == null || marked < sent.size()) {
+                System.err.println("❌ Outbox lease lost before " + (sent.size() - (marked == null ? 0 : marked))
+                    + " delivered event(s) were recorded; they may be delivered again");
+            }
+        }
+    }
+
+    private void recordFailure(OutboxEventEntity event, Exception e, String token) {
+        // Another relay owns the row when this returns false; its outcome stands
+        queue.recordFailure(event, e, e instanceof PermanentDeliveryException,
+            new LeasedQueue.Retry(maxAttempts, backoffBaseSeconds, backoffMaxSeconds), token);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HOUSEKEEPING — delivered events are only kept long enough to dedupe
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(cron = "${outbox.relay.purge-cron:0 15 3 * * *}")
+    public void purgeSent() {
+        Integer removed = transactionTemplate.execute(status ->
+            outboxEventRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (removed != null && removed > 0) {
+            System.out.println("✅ Purged " + removed + " delivered outbox event(s)");
+        }
+    }
+}
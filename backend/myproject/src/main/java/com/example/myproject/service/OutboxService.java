@@ -0,0 +1,55 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records side effects in the caller's transaction. Nothing is sent here — if the
+ * business transaction rolls back, so does the event; {@link OutboxRelay} delivers
+ * whatever committed.
+ */
+@Service
+public class OutboxService {
+
+    public static final String ORDER_CONFIRMATION = "ORDER_CONFIRMATION";
+    public static final String WELCOME_EMAIL = "WELCOME_EMAIL";
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /** One confirmation per order, however many code paths confirm it. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderConfirmed(OrderEntity order) {
+        enqueue(ORDER_CONFIRMATION, "order-confirmation:" + order.getOrderId(), order.getOrderId(), null);
+    }
+
+    /** Queued with the new account, so a failed SMTP send is retried instead of lost. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void welcomeEmail(Long userId) {
+        enqueue(WELCOME_EMAIL, "welcome:" + userId, userId, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, String eventKey, Long aggregateId, String payload) {
+        outboxEventRepository.insertIfAbsent(eventKey, eventType, aggregateId, payload,
+            priorityOf(eventType), LocalDateTime.now());
+    }
+
+    // The relay claims lower values first: a customer waiting on a confirmation
+    // beats a welcome mail, which beats anything else
+    static int priorityOf(String eventType) {
+        return switch (eventType) {
+            case ORDER_CONFIRMATION -> 0;
+            case WELCOME_EMAIL -> 1;
+            default -> 5;
+        };
+    }
+}
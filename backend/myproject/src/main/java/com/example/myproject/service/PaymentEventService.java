@@ -0,0 +1,192 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.PaymentEventEntity;
+import com.example.myproject.repository.PaymentEventRepository;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable inbox for payment outcomes Razorpay reports without the browser:
+ * webhooks, and captures found by {@link PaymentReconciliationJob}.
+ *
+ * The webhook only verifies the signature and inserts a row keyed by payment id,
+ * so Razorpay gets its 200 quickly and redeliveries collapse into one event.
+ * {@link #processPending()} claims due rows in batches through {@link LeasedQueue}
+ * (SKIP LOCKED + a lease fenced by a claim token, as in {@link OutboxRelay}) and
+ * applies each one in its own transaction together with marking it PROCESSED. Applying is idempotent on the order row, so a replay
+ * after a crash, or a browser /verify that got there first, changes nothing.
+ */
+@Service
+public class PaymentEventService {
+
+    public static final String SOURCE_WEBHOOK = "WEBHOOK";
+    public static final String SOURCE_RECONCILIATION = "RECONCILIATION";
+
+    private final PaymentEventRepository paymentEventRepository;
+    private final RazorpayService razorpayService;
+    private final TransactionTemplate transactionTemplate;
+    private final RazorpaySignatureVerifier signatureVerifier;
+    private final LeasedQueue<PaymentEventEntity> queue;
+
+    @Value("${payments.events.batch-size:50}")
+    private int batchSize;
+
+    @Value("${payments.events.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${payments.events.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${payments.events.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${payments.events.backoff-base-seconds:15}")
+    private long backoffBaseSeconds;
+
+    @Value("${payments.events.backoff-max-seconds:1800}")
+    private long backoffMaxSeconds;
+
+    public PaymentEventService(
+        PaymentEventRepository paymentEventRepository,
+        RazorpayService razorpayService,
+        TransactionTemplate transactionTemplate,
+        RazorpaySignatureVerifier signatureVerifier
+    ) {
+        this.paymentEventRepository = paymentEventRepository;
+        this.razorpayService = razorpayService;
+        this.transactionTemplate = transactionTemplate;
+        this.signatureVerifier = signatureVerifier;
+        this.queue = new LeasedQueue<>("Payment event", new LeasedQueue.Rows<>() {
+            public List<Long> lockDueIds(LocalDateTime now, int limit) {
+                return paymentEventRepository.lockDueIds(now, limit);
+            }
+
+            public void markProcessing(List<Long> ids, LocalDateTime lockedUntil, String token) {
+                paymentEventRepository.markProcessing(ids, lockedUntil, token);
+            }
+
+            public List<PaymentEventEntity> findAllById(List<Long> ids) {
+                return paymentEventRepository.findAllById(ids);
+            }
+
+            public int markFailed(Long id, boolean giveUp, LocalDateTime nextAttemptAt, String error, String token) {
+                return paymentEventRepository.markFailed(id,
+                    giveUp ? PaymentEventEntity.Status.FAILED : PaymentEventEntity.Status.PENDING,
+                    nextAttemptAt, error, token);
+            }
+        }, transactionTemplate);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // WEBHOOK INGESTION
+    // ─────────────────────────────────────────────────────────────────────────
+    public boolean isWebhookConfigured() {
+        return signatureVerifier.isWebhookConfigured();
+    }
+
+    /** X-Razorpay-Signature is the hex HMAC-SHA256 of the raw request body. */
+    public boolean verifyWebhookSignature(String body, String signature) {
+        return signatureVerifier.verifyWebhook(body, signature);
+    }
+
+    /**
+     * Stores a verified webhook. Returns false for events this app doesn't act on;
+     * anything recorded (including a duplicate) returns true.
+     */
+    public boolean ingestWebhook(String body) {
+        JSONObject payment;
+        String event;
+        try {
+            JSONObject json = new JSONObject(body);
+            event = json.optString("event");
+            JSONObject payload = json.optJSONObject("payload");
+            JSONObject wrapper = payload != null ? payload.optJSONObject("payment") : null;
+            payment = wrapper != null ? wrapper.optJSONObject("entity") : null;
+        } catch (JSONException e) {
+            throw new RuntimeException("Malformed webhook payload");
+        }
+
+        PaymentEventEntity.Type type = switch (event) {
+            case "payment.captured", "order.paid" -> PaymentEventEntity.Type.PAYMENT_CAPTURED;
+            case "payment.failed" -> PaymentEventEntity.Type.PAYMENT_FAILED;
+            default -> null;
+        };
+        if (type == null || payment == null) return false;
+
+        String paymentId = payment.optString("id", null);
+        String razorpayOrderId = payment.optString("order_id", null);
+        if (paymentId == null || razorpayOrderId == null) return false;
+
+        record(type, razorpayOrderId, paymentId, SOURCE_WEBHOOK, body);
+        return true;
+    }
+
+    /** Inserts the event unless the same outcome for this payment is already stored. */
+    public void record(PaymentEventEntity.Type type, String razorpayOrderId, String paymentId,
+                       String source, String payload) {
+        transactionTemplate.executeWithoutResult(status -> paymentEventRepository.insertIfAbsent(
+            paymentId + ":" + type.name(), type.name(), razorpayOrderId, paymentId, source, payload,
+            LocalDateTime.now()));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PROCESSING — drain due events in batches
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(fixedDelayString = "${payments.events.poll-interval-ms:2000}")
+    public void processPending() {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            int claimed = processBatch();
+            if (claimed < batchSize) break;
+        }
+    }
+
+    /** Claims and applies one batch; returns how many events were claimed. */
+    public int processBatch() {
+        String token = UUID.randomUUID().toString();
+        List<PaymentEventEntity> batch = queue.claim(token, batchSize, leaseSeconds);
+        for (PaymentEventEntity event : batch) {
+            apply(event, token);
+        }
+        return batch.size();
+    }
+
+    private void apply(PaymentEventEntity event, String token) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (event.getEventType() == PaymentEventEntity.Type.PAYMENT_CAPTURED) {
+                    razorpayService.applyCapturedPayment(event.getRazorpayOrderId(), event.getRazorpayPaymentId());
+                } else {
+                    razorpayService.handlePaymentFailure(event.getRazorpayOrderId(), failureReason(event));
+                }
+                // The lease lapsed and another worker has the event; roll back and let its run stand
+                if (paymentEventRepository.markProcessed(event.getId(), LocalDateTime.now(), token) == 0) {
+                    throw new IllegalStateException("Lease on payment event " + event.getEventKey() + " was lost");
+                }
+            });
+        } catch (Exception e) {
+            queue.recordFailure(event, e, false,
+                new LeasedQueue.Retry(maxAttempts, backoffBaseSeconds, backoffMaxSeconds), token);
+        }
+    }
+
+    private static String failureReason(PaymentEventEntity event) {
+        if (event.getPayload() == null) return "Payment failed (reported by Razorpay)";
+        try {
+            JSONObject payment = new JSONObject(event.getPayload())
+                .getJSONObject("payload").getJSONObject("payment").getJSONObject("entity");
+            String description = payment.optString("error_description", "");
+            if (!description.isBlank()) return description;
+        } catch (JSONException e) {
+            // fall through to the generic reason
+        }
+        return "Payment failed (reported by Razorpay)";
+    }
+}
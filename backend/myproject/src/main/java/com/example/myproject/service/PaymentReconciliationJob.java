@@ -0,0 +1,180 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.PaymentEventEntity;
+import com.example.myproject.repository.OrderRepository;
+import com.example.myproject.repository.PendingPaymentRef;
+import com.razorpay.RazorpayException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catches payments whose browser callback and webhook both went missing.
+ *
+ * Orders still waiting for a Razorpay payment after {@code stale-after-minutes}
+ * are loaded in one query, then Razorpay's payment list for the window they were
+ * created in is paged through ({@code page-size} per call) and matched against
+ * them by order id — a handful of gateway calls per run, however many orders are
+ * pending. Captures go through {@link PaymentEventService} like a webhook would.
+ * Orders older than {@code abandon-after-hours} with no capture are cancelled and
+ * their stock released, but only when the whole window was listed. Razorpay
+ * orders that never got a gateway order id are cancelled once stale.
+ */
+@Component
+public class PaymentReconciliationJob {
+
+    private static final List<OrderEntity.PaymentStatus> UNPAID =
+        List.of(OrderEntity.PaymentStatus.PENDING, OrderEntity.PaymentStatus.FAILED);
+
+    // Razorpay stamps payments after the order was created; allow for clock skew
+    private static final long WINDOW_MARGIN_SECONDS = 300;
+
+    private final OrderRepository orderRepository;
+    private final RazorpayGateway razorpayGateway;
+    private final PaymentEventService paymentEventService;
+    private final RazorpayService razorpayService;
+
+    @Value("${payments.reconcile.stale-after-minutes:15}")
+    private long staleAfterMinutes;
+
+    @Value("${payments.reconcile.lookback-hours:72}")
+    private long lookbackHours;
+
+    @Value("${payments.reconcile.abandon-after-hours:24}")
+    private long abandonAfterHours;
+
+    @Value("${payments.reconcile.max-orders:500}")
+    private int maxOrders;
+
+    @Value("${payments.reconcile.page-size:100}")
+    private int pageSize;
+
+    @Value("${payments.reconcile.max-pages:50}")
+    private int maxPages;
+
+    public PaymentReconciliationJob(
+        OrderRepository orderRepository,
+        RazorpayGateway razorpayGateway,
+        PaymentEventService paymentEventService,
+        RazorpayService razorpayService
+    ) {
+        this.orderRepository = orderRepository;
+        this.razorpayGateway = razorpayGateway;
+        this.paymentEventService = paymentEventService;
+        this.razorpayService = razorpayService;
+    }
+
+    @Scheduled(fixedDelayString = "${payments.reconcile.interval-ms:300000}",
+               initialDelayString = "${payments.reconcile.initial-delay-ms:60000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        abandonUnstartedPayments(now);
+
+        List<PendingPaymentRef> pending = orderRepository.findPendingPayments(
+            OrderEntity.PaymentMethod.RAZORPAY, UNPAID, OrderEntity.OrderStatus.PENDING,
+            now.minusHours(lookbackHours), now.minusMinutes(staleAfterMinutes),
+            PageRequest.of(0, maxOrders));
+        if (pending.isEmpty()) return;
+
+        Map<String, PendingPaymentRef> byRazorpayOrderId = new HashMap<>();
+        for (PendingPaymentRef ref : pending) {
+            byRazorpayOrderId.put(ref.razorpayOrderId(), ref);
+        }
+
+        long from = toEpochSecond(pending.get(0).createdAt()) - WINDOW_MARGIN_SECONDS;
+        long to = toEpochSecond(now);
+
+        Set<String> captured = new HashSet<>();
+        boolean complete;
+        try {
+            complete = listCaptures(from, to, byRazorpayOrderId, captured);
+        } catch (RazorpayException e) {
+            System.err.println("❌ Payment reconciliation skipped: " + e.getMessage());
+            return;
+        }
+
+        int abandoned = 0;
+        if (complete) {
+            LocalDateTime abandonBefore = now.minusHours(abandonAfterHours);
+            for (PendingPaymentRef ref : pending) {
+                if (captured.contains(ref.razorpayOrderId()) || !ref.createdAt().isBefore(abandonBefore)) continue;
+                try {
+                    razorpayService.abandonUnpaidOrder(ref.razorpayOrderId());
+                    abandoned++;
+                } catch (Exception e) {
+                    System.err.println("❌ Could not cancel unpaid order " + ref.orderId() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (!captured.isEmpty() || abandoned > 0) {
+            System.out.println("✅ Payment reconciliation: " + captured.size() + " capture(s) recovered, "
+                + abandoned + " unpaid order(s) cancelled");
+        }
+    }
+
+    /**
+     * Orders whose Razorpay order was never created can't be paid; cancel them so
+     * their stock comes back. Normally createRazorpayOrder does this itself.
+     */
+    private void abandonUnstartedPayments(LocalDateTime now) {
+        List<Long> unstarted = orderRepository.findUnstartedPayments(OrderEntity.PaymentMethod.RAZORPAY,
+            OrderEntity.OrderStatus.PENDING, now.minusMinutes(staleAfterMinutes), PageRequest.of(0, maxOrders));
+        int abandoned = 0;
+        for (Long orderId : unstarted) {
+            try {
+                if (razorpayService.abandonUnstartedPayment(orderId, "Razorpay order was never created")) abandoned++;
+            } catch (Exception e) {
+                System.err.println("❌ Could not cancel order " + orderId + " without a Razorpay order: " + e.getMessage());
+            }
+        }
+        if (abandoned > 0) {
+            System.out.println("✅ Payment reconciliation: " + abandoned + " order(s) without a Razorpay order cancelled");
+        }
+    }
+
+    /**
+     * Pages through payments created in [from, to], recording captures for the
+     * pending orders. Returns whether the listing reached the end of the window.
+     */
+    private boolean listCaptures(long from, long to, Map<String, PendingPaymentRef> pending,
+                                 Set<String> captured) throws RazorpayException {
+        for (int page = 0; page < maxPages; page++) {
+            JSONArray items;
+            try {
+                items = razorpayGateway.fetchPayments(from, to, pageSize, page * pageSize).getJSONArray("items");
+                for (int i = 0; i < items.length(); i++) {
+                    JSONObject payment = items.getJSONObject(i);
+                    String razorpayOrderId = payment.optString("order_id", null);
+                    if (razorpayOrderId == null || !pending.containsKey(razorpayOrderId)) continue;
+                    if (!"captured".equals(payment.optString("status"))) continue;
+
+                    paymentEventService.record(PaymentEventEntity.Type.PAYMENT_CAPTURED, razorpayOrderId,
+                        payment.getString("id"), PaymentEventService.SOURCE_RECONCILIATION, payment.toString());
+                    captured.add(razorpayOrderId);
+                }
+            } catch (JSONException e) {
+                throw new RazorpayException("Unexpected payment list from Razorpay: " + e.getMessage());
+            }
+            if (items.length() < pageSize) return true;
+        }
+        return false;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
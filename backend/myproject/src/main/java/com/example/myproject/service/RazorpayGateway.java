@@ -0,0 +1,209 @@
+package com.example.myproject.service;
+
+import com.razorpay.RazorpayException;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one HTTP client for Razorpay's REST API, shared by every request.
+ *
+ * One java.net.http.HttpClient keeps connections alive between calls; every call
+ * has a connect and a response timeout. A semaphore caps how many calls can be in
+ * flight (so a slow gateway can't soak up every request thread), and a
+ * consecutive-failure circuit breaker stops calling a gateway that keeps timing
+ * out or returning 5xx, answering immediately until a trial call succeeds.
+ * 4xx answers are the caller's problem and don't count against the gateway.
+ *
+ * Errors surface as {@link RazorpayException}, like the SDK client it replaces.
+ */
+@Component
+public class RazorpayGateway {
+
+    enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final URI ordersUri;
+    private final String authorization;
+    private final Duration readTimeout;
+
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMs;
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    // Breaker state, guarded by this
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public RazorpayGateway(
+        @Value("${razorpay.api.base-url:https://api.razorpay.com}") String baseUrl,
+        @Value("${razorpay.key.id}") String keyId,
+        @Value("${razorpay.key.secret}") String keySecret,
+        @Value("${razorpay.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+        @Value("${razorpay.http.read-timeout-ms:5000}") long readTimeoutMs,
+        @Value("${razorpay.bulkhead.max-concurrent:20}") int maxConcurrent,
+        @Value("${razorpay.bulkhead.max-wait-ms:200}") long bulkheadWaitMs,
+        @Value("${razorpay.circuit.failure-threshold:5}") int failureThreshold,
+        @Value("${razorpay.circuit.open-ms:30000}") long openMs
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.ordersUri = URI.create(this.baseUrl + "/v1/orders");
+        this.authorization = "Basic " + Base64.getEncoder()
+            .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.bulkhead = new Semaphore(Math.max(maxConcurrent, 1));
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openMs = openMs;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // POST /v1/orders
+    // ─────────────────────────────────────────────────────────────────────────
+    public JSONObject createOrder(JSONObject orderRequest) throws RazorpayException {
+        HttpRequest request = HttpRequest.newBuilder(ordersUri)
+            .timeout(readTimeout)
+            .header("Authorization", authorization)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(orderRequest.toString()))
+            .build();
+        return call(request);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // GET /v1/payments — one page of payments created in [from, to] (epoch seconds)
+    // ─────────────────────────────────────────────────────────────────────────
+    public JSONObject fetchPayments(long from, long to, int count, int skip) throws RazorpayException {
+        URI uri = URI.create(baseUrl + "/v1/payments?from=" + from + "&to=" + to + "&count=" + count + "&skip=" + skip);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(readTimeout)
+            .header("Authorization", authorization)
+            .GET()
+            .build();
+        return call(request);
+    }
+
+    private JSONObject call(HttpRequest request) throws RazorpayException {
+        if (!allowRequest()) {
+            throw new RazorpayException("Payment gateway is temporarily unavailable, please try again shortly");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            releaseTrial();
+            throw new RazorpayException("Payment gateway is busy, please try again shortly");
+        }
+
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+
+            if (status >= 500 || status == 429) {
+                onFailure();
+                throw new RazorpayException("Razorpay returned HTTP " + status);
+            }
+            // The gateway answered; even a rejected request means it is healthy
+            onSuccess();
+            if (status >= 400) {
+                throw new RazorpayException(errorDescription(response.body(), status));
+            }
+            return new JSONObject(response.body());
+
+        } catch (HttpTimeoutException e) {
+            onFailure();
+            throw new RazorpayException("Razorpay did not respond in " + readTimeout.toMillis() + " ms");
+        } catch (IOException e) {
+            onFailure();
+            throw new RazorpayException("Razorpay connection failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseTrial();
+            throw new RazorpayException("Interrupted while calling Razorpay");
+        } catch (JSONException e) {
+            throw new RazorpayException("Unexpected response from Razorpay: " + e.getMessage());
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CIRCUIT BREAKER
+    // ─────────────────────────────────────────────────────────────────────────
+    private synchronized boolean allowRequest() {
+        if (state == CircuitState.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            state = CircuitState.HALF_OPEN;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            // One trial call at a time decides whether to close again
+            if (trialInFlight) return false;
+            trialInFlight = true;
+            return true;
+        }
+        return state == CircuitState.CLOSED;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != CircuitState.CLOSED) {
+            System.out.println("✅ Razorpay circuit closed");
+        }
+        state = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == CircuitState.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            if (state != CircuitState.OPEN) {
+                System.err.println("❌ Razorpay circuit opened after " + consecutiveFailures + " failures");
+            }
+            state = CircuitState.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    // A trial that never reached the gateway proves nothing either way
+    private synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    synchronized CircuitState circuitState() {
+        return state;
+    }
+
+    private static String errorDescription(String body, int status) {
+        try {
+            return new JSONObject(body).getJSONObject("error").getString("description");
+        } catch (JSONException e) {
+            return "Razorpay rejected the request (HTTP " + status + ")";
+        }
+    }
+}
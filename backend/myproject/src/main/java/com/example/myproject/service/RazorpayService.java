@@ -2,20 +2,21 @@ package com.example.myproject.service;
 
 import com.example.myproject.dto.RazorpayOrderResponse;
 import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.event.OrderChangedEvent;
 import com.example.myproject.repository.OrderRepository;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class RazorpayService {
@@ -23,81 +24,135 @@ public class RazorpayService {
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
 
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
-
     private final OrderRepository orderRepository;
+    private final RazorpayGateway razorpayGateway;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    private EmailService emailService;
+    private CheckoutService checkoutService;
 
-    public RazorpayService(OrderRepository orderRepository) {
+    @Autowired
+    private RazorpaySignatureVerifier signatureVerifier;
+
+    public RazorpayService(OrderRepository orderRepository, RazorpayGateway razorpayGateway,
+                           PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
+        this.razorpayGateway = razorpayGateway;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
     // CREATE RAZORPAY ORDER
     // Called AFTER our OrderEntity is already saved (PENDING state).
-    // We re-fetch the order by ID inside @Transactional so the session is fresh
-    // and lazy relations (user, orderItems) are fully accessible.
+    // Three steps so no DB connection is held while Razorpay is called:
+    // read the order (short read-only tx) → call the gateway (no tx) →
+    // store the Razorpay order id (short tx).
+    // If the gateway call or the attach fails, the order can never be paid
+    // (nobody holds its Razorpay id), so it is cancelled and its stock given
+    // back before the error reaches the caller.
     // ─────────────────────────────────────────────────────────────────────────
-    @Transactional
     public RazorpayOrderResponse createRazorpayOrder(OrderEntity orderArg) throws RazorpayException {
-        try {
-            // Re-fetch by ID to ensure we have a managed entity with all relations loaded.
-            // This avoids LazyInitializationException regardless of how the caller's
-            // transaction was scoped (critical for the Buy Now → Razorpay path).
-            Long orderId = orderArg.getOrderId();
+        Long orderId = orderArg.getOrderId();
+
+        // Re-fetch inside its own transaction so lazy relations (user) are accessible
+        // regardless of how the caller's transaction was scoped (Buy Now path).
+        RazorpayOrderResponse response = readOnlyTransaction.execute(status -> {
             OrderEntity order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
+            RazorpayOrderResponse r = new RazorpayOrderResponse();
             // Amount in paise (Razorpay requires integer paise)
-            int amountInPaise = order.getFinalAmount()
-                .multiply(new BigDecimal("100"))
-                .intValue();
-
-            JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", amountInPaise);
-            orderRequest.put("currency", "INR");
-            orderRequest.put("receipt", order.getOrderNumber());
-
-            JSONObject notes = new JSONObject();
-            notes.put("order_number", order.getOrderNumber());
-            notes.put("customer_name", order.getShippingName());
-            notes.put("customer_phone", order.getShippingPhone());
-            orderRequest.put("notes", notes);
-
-            // Call Razorpay API
-            RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            Order razorpayOrder = razorpayClient.orders.create(orderRequest);
-            String razorpayOrderId = razorpayOrder.get("id");
-
-            // Persist the Razorpay order ID back to our DB
-            order.setRazorpayOrderId(razorpayOrderId);
-            order.setPaymentMethod(OrderEntity.PaymentMethod.RAZORPAY);
-            orderRepository.save(order);
-
-            // Build response for frontend
-            RazorpayOrderResponse response = new RazorpayOrderResponse();
-            response.setRazorpay_order_id(razorpayOrderId);
-            response.setRazorpay_key_id(razorpayKeyId);
-            response.setAmount(amountInPaise);
-            response.setCurrency("INR");
-            response.setOrder_number(order.getOrderNumber());
-            response.setOrder_id(order.getOrderId());
-            response.setFinal_amount(order.getFinalAmount());
-            response.setCustomer_name(order.getShippingName());
-            response.setCustomer_email(order.getUser().getEmail());  // safe: managed entity
-            response.setCustomer_phone(order.getShippingPhone());
-
-            System.out.println("✅ Razorpay order created: " + razorpayOrderId
-                + " for order: " + order.getOrderNumber());
-            return response;
+            r.setAmount(order.getFinalAmount().multiply(new BigDecimal("100")).intValue());
+            r.setCurrency("INR");
+            r.setOrder_number(order.getOrderNumber());
+            r.setOrder_id(order.getOrderId());
+            r.setFinal_amount(order.getFinalAmount());
+            r.setCustomer_name(order.getShippingName());
+            r.setCustomer_email(order.getUser().getEmail());
+            r.setCustomer_phone(order.getShippingPhone());
+            return r;
+        });
 
+        JSONObject orderRequest = new JSONObject();
+        orderRequest.put("amount", response.getAmount());
+        orderRequest.put("currency", response.getCurrency());
+        orderRequest.put("receipt", response.getOrder_number());
+
+        JSONObject notes = new JSONObject();
+        notes.put("order_number", response.getOrder_number());
+        notes.put("customer_name", response.getCustomer_name());
+        notes.put("customer_phone", response.getCustomer_phone());
+        orderRequest.put("notes", notes);
+
+        String razorpayOrderId;
+        try {
+            razorpayOrderId = razorpayGateway.createOrder(orderRequest).getString("id");
         } catch (RazorpayException e) {
             System.err.println("❌ Razorpay API error: " + e.getMessage());
+            cancelUnstartedPayment(orderId, "Razorpay order could not be created");
             throw new RazorpayException("Failed to create Razorpay order: " + e.getMessage());
+        } catch (RuntimeException e) {
+            cancelUnstartedPayment(orderId, "Razorpay order could not be created");
+            throw e;
         }
+
+        // Persist the Razorpay order ID back to our DB
+        int updated;
+        try {
+            updated = orderRepository.attachRazorpayOrder(orderId, razorpayOrderId, OrderEntity.PaymentMethod.RAZORPAY);
+        } catch (RuntimeException e) {
+            cancelUnstartedPayment(orderId, "Razorpay order " + razorpayOrderId + " could not be saved");
+            throw e;
+        }
+        if (updated == 0) throw new RuntimeException("Order not found with id: " + orderId);
+
+        response.setRazorpay_order_id(razorpayOrderId);
+        response.setRazorpay_key_id(razorpayKeyId);
+
+        System.out.println("✅ Razorpay order created: " + razorpayOrderId
+            + " for order: " + response.getOrder_number());
+        return response;
+    }
+
+    // Compensation for createRazorpayOrder; if this fails too, reconciliation
+    // cancels the order later via abandonUnstartedPayment
+    private void cancelUnstartedPayment(Long orderId, String reason) {
+        try {
+            if (abandonUnstartedPayment(orderId, reason)) {
+                System.err.println("❌ Order " + orderId + " cancelled and stock released: " + reason);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Could not cancel order " + orderId + " after payment setup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels a Razorpay order that never got a gateway order id and releases its
+     * stock. Only acts while the order is PENDING with no Razorpay order attached,
+     * so it can't undo a payment; returns whether it cancelled anything.
+     */
+    public boolean abandonUnstartedPayment(Long orderId, String reason) {
+        Boolean cancelled = writeTransaction.execute(status -> {
+            if (orderRepository.cancelUnstartedPayment(orderId, "Cancelled automatically: " + reason) == 0) {
+                return false;
+            }
+            checkoutService.releaseStock(List.of(orderId));
+            orderRepository.findChangeEventsByOrderIds(List.of(orderId)).forEach(eventPublisher::publishEvent);
+            return true;
+        });
+        return Boolean.TRUE.equals(cancelled);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -108,18 +163,13 @@ public class RazorpayService {
         String razorpayPaymentId,
         String razorpaySignature
     ) {
-        try {
-            String payload = razorpayOrderId + "|" + razorpayPaymentId;
-            String expectedSignature = generateHmacSha256(payload, razorpayKeySecret);
-            return expectedSignature.equals(razorpaySignature);
-        } catch (Exception e) {
-            System.err.println("❌ Signature verification error: " + e.getMessage());
-            return false;
-        }
+        return signatureVerifier.verifyPayment(razorpayOrderId, razorpayPaymentId, razorpaySignature);
     }
 
     // ─────────────────────────────────────────────────────────────────────────
     // UPDATE ORDER AFTER SUCCESSFUL PAYMENT
+    // The browser callback, the webhook and reconciliation can all report the
+    // same payment; the row lock plus the PAID check make the later ones no-ops.
     // ─────────────────────────────────────────────────────────────────────────
     @Transactional
     public OrderEntity updateOrderAfterPayment(
@@ -127,35 +177,95 @@ public class RazorpayService {
         String razorpayPaymentId,
         String razorpaySignature
     ) {
-        OrderEntity order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
-            .orElseThrow(() -> new RuntimeException("Order not found for razorpay_order_id: " + razorpayOrderId));
+        OrderEntity order = lockByRazorpayOrderId(razorpayOrderId);
+        if (order.getPaymentStatus() == OrderEntity.PaymentStatus.PAID) return order;
 
-        order.setRazorpayPaymentId(razorpayPaymentId);
         order.setRazorpaySignature(razorpaySignature);
+        if (order.getStatus() == OrderEntity.OrderStatus.CANCELLED) {
+            return markPaidForRefund(order, razorpayPaymentId);
+        }
+        return markPaid(order, razorpayPaymentId);
+    }
+
+    /** Payment captured as reported by Razorpay itself (webhook / reconciliation). */
+    @Transactional
+    public OrderEntity applyCapturedPayment(String razorpayOrderId, String razorpayPaymentId) {
+        OrderEntity order = lockByRazorpayOrderId(razorpayOrderId);
+        if (order.getPaymentStatus() == OrderEntity.PaymentStatus.PAID) return order;
+
+        if (order.getStatus() == OrderEntity.OrderStatus.CANCELLED) {
+            return markPaidForRefund(order, razorpayPaymentId);
+        }
+        return markPaid(order, razorpayPaymentId);
+    }
+
+    // Money arrived for an order we already gave up on — record it and keep it
+    // visible for a refund, but don't confirm: its stock has been released
+    private OrderEntity markPaidForRefund(OrderEntity order, String razorpayPaymentId) {
+        order.setRazorpayPaymentId(razorpayPaymentId);
+        order.setPaymentStatus(OrderEntity.PaymentStatus.PAID);
+        order.setPaidAt(LocalDateTime.now());
+        order.setOrderNotes("Payment " + razorpayPaymentId + " captured after cancellation — refund required");
+        System.err.println("❌ Payment captured for cancelled order " + order.getOrderNumber() + ", refund required");
+        OrderEntity saved = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(saved));
+        return saved;
+    }
+
+    private OrderEntity markPaid(OrderEntity order, String razorpayPaymentId) {
+        boolean countedBefore = SalesRollupService.countsAsSale(order);
+        order.setRazorpayPaymentId(razorpayPaymentId);
         order.setPaymentStatus(OrderEntity.PaymentStatus.PAID);
         order.setStatus(OrderEntity.OrderStatus.CONFIRMED);
         order.setPaidAt(LocalDateTime.now());
 
         OrderEntity paidOrder = orderRepository.save(order);
+        salesRollupService.recordTransition(paidOrder, countedBefore);
 
-        // Send order confirmation email (async — does not block response)
-        emailService.sendOrderConfirmationEmail(paidOrder);
+        // Confirmation email is queued in this transaction and sent by the outbox relay
+        outboxService.orderConfirmed(paidOrder);
+        eventPublisher.publishEvent(OrderChangedEvent.of(paidOrder));
 
         return paidOrder;
     }
 
     // ─────────────────────────────────────────────────────────────────────────
     // HANDLE PAYMENT FAILURE
+    // A failed attempt never downgrades an order that has already been paid.
     // ─────────────────────────────────────────────────────────────────────────
     @Transactional
     public OrderEntity handlePaymentFailure(String razorpayOrderId, String reason) {
-        OrderEntity order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
-            .orElseThrow(() -> new RuntimeException("Order not found for razorpay_order_id: " + razorpayOrderId));
+        OrderEntity order = lockByRazorpayOrderId(razorpayOrderId);
+        if (order.getPaymentStatus() == OrderEntity.PaymentStatus.PAID) return order;
 
         order.setPaymentStatus(OrderEntity.PaymentStatus.FAILED);
         order.setOrderNotes("Payment failed: " + reason);
 
-        return orderRepository.save(order);
+        OrderEntity failed = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(failed));
+        return failed;
+    }
+
+    /** Reconciliation: Razorpay never captured a payment for this order, so release it. */
+    @Transactional
+    public void abandonUnpaidOrder(String razorpayOrderId) {
+        OrderEntity order = lockByRazorpayOrderId(razorpayOrderId);
+        if (order.getPaymentStatus() != OrderEntity.PaymentStatus.PENDING
+            && order.getPaymentStatus() != OrderEntity.PaymentStatus.FAILED) return;
+        if (order.getStatus() != OrderEntity.OrderStatus.PENDING) return;
+
+        order.setPaymentStatus(OrderEntity.PaymentStatus.FAILED);
+        order.setStatus(OrderEntity.OrderStatus.CANCELLED);
+        order.setOrderNotes("Cancelled automatically: payment was not completed");
+        checkoutService.releaseStock(order);
+
+        OrderEntity cancelled = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderChangedEvent.of(cancelled));
+    }
+
+    private OrderEntity lockByRazorpayOrderId(String razorpayOrderId) {
+        return orderRepository.lockByRazorpayOrderId(razorpayOrderId)
+            .orElseThrow(() -> new RuntimeException("Order not found for razorpay_order_id: " + razorpayOrderId));
     }
 
     // ─────────────────────────────────────────────────────────────────────────
@@ -164,20 +274,4 @@ public class RazorpayService {
     public String getRazorpayKeyId() {
         return razorpayKeyId;
     }
-
-    // ─────────────────────────────────────────────────────────────────────────
-    // HMAC-SHA256 HELPER
-    // ─────────────────────────────────────────────────────────────────────────
-    private String generateHmacSha256(String payload, String secret) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        mac.init(new SecretKeySpec(secret.getBytes(), "HmacSHA256"));
-        byte[] hash = mac.doFinal(payload.getBytes());
-        StringBuilder hex = new StringBuilder();
-        for (byte b : hash) {
-            String h = Integer.toHexString(0xff & b);
-            if (h.length() == 1) hex.append('0');
-            hex.append(h);
-        }
-        return hex.toString();
-    }
-}
\ No newline at end of file
+}
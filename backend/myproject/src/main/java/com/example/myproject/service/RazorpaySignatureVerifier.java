@@ -0,0 +1,168 @@
+package com.example.myproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Checks Razorpay's HMAC-SHA256 signatures: the checkout callback
+ * ({@code order_id|payment_id} signed with the key secret) and webhooks (raw body
+ * signed with the webhook secret).
+ *
+ * Each thread keeps its own initialized {@link Mac} plus scratch buffers, so a
+ * verification does no provider lookup or key setup and allocates almost
+ * nothing. The hex signature is decoded into bytes and compared with
+ * {@link MessageDigest#isEqual}, which takes the same time wherever the first
+ * wrong byte is.
+ */
+@Component
+public class RazorpaySignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final int MAX_SCRATCH = 16 * 1024;
+
+    /** A webhook body and the X-Razorpay-Signature it arrived with. */
+    public record SignedPayload(String body, String signature) {
+    }
+
+    private static final class State {
+        final Mac mac;
+        final byte[] expected = new byte[DIGEST_LENGTH];
+        final byte[] provided = new byte[DIGEST_LENGTH];
+        byte[] scratch = new byte[256];
+
+        State(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+    }
+
+    private final ThreadLocal<State> paymentState;
+    private final ThreadLocal<State> webhookState;
+
+    public RazorpaySignatureVerifier(
+        @Value("${razorpay.key.secret}") String keySecret,
+        @Value("${razorpay.webhook.secret:}") String webhookSecret
+    ) {
+        this.paymentState = stateFor(keySecret);
+        this.webhookState = stateFor(webhookSecret);
+    }
+
+    // No secret, nothing can verify
+    private static ThreadLocal<State> stateFor(String secret) {
+        if (secret == null || secret.isBlank()) return null;
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        return ThreadLocal.withInitial(() -> new State(key));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // CHECKOUT CALLBACK — HMAC(key secret, order_id + "|" + payment_id)
+    // ─────────────────────────────────────────────────────────────────────────
+    public boolean verifyPayment(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        if (paymentState == null || razorpayOrderId == null || razorpayPaymentId == null || signature == null) {
+            return false;
+        }
+        State state = paymentState.get();
+        if (!decodeHex(signature, state.provided)) return false;
+
+        update(state, razorpayOrderId);
+        state.mac.update((byte) '|');
+        update(state, razorpayPaymentId);
+        return matches(state);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // WEBHOOKS — HMAC(webhook secret, raw body)
+    // ─────────────────────────────────────────────────────────────────────────
+    public boolean isWebhookConfigured() {
+        return webhookState != null;
+    }
+
+    public boolean verifyWebhook(String body, String signature) {
+        if (webhookState == null || body == null || signature == null) return false;
+        return verifyWebhook(webhookState.get(), body, signature);
+    }
+
+    /**
+     * Verifies a burst of webhooks on one thread's Mac; the result at index i is
+     * for {@code payloads.get(i)}.
+     */
+    public boolean[] verifyWebhooks(List<SignedPayload> payloads) {
+        boolean[] valid = new boolean[payloads.size()];
+        if (webhookState == null) return valid;
+
+        State state = webhookState.get();
+        for (int i = 0; i < valid.length; i++) {
+            SignedPayload p = payloads.get(i);
+            valid[i] = p != null && p.body() != null && p.signature() != null
+                && verifyWebhook(state, p.body(), p.signature());
+        }
+        return valid;
+    }
+
+    private boolean verifyWebhook(State state, String body, String signature) {
+        if (!decodeHex(signature, state.provided)) return false;
+        update(state, body);
+        return matches(state);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+    private static boolean matches(State state) {
+        try {
+            state.mac.doFinal(state.expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC output buffer too small", e);
+        }
+        return MessageDigest.isEqual(state.expected, state.provided);
+    }
+
+    // ASCII (ids, most JSON) is copied through the scratch buffer, at most
+    // MAX_SCRATCH bytes at a time so one huge body doesn't pin a huge buffer to
+    // the thread; from the first non-ASCII char on, the rest is encoded as UTF-8
+    private static void update(State state, String s) {
+        int length = s.length();
+        if (length > state.scratch.length && state.scratch.length < MAX_SCRATCH) {
+            state.scratch = new byte[Math.min(Math.max(length, state.scratch.length * 2), MAX_SCRATCH)];
+        }
+        byte[] buffer = state.scratch;
+        for (int from = 0; from < length; from += buffer.length) {
+            int n = Math.min(buffer.length, length - from);
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(from + i);
+                if (c >= 0x80) {
+                    state.mac.update(buffer, 0, i);
+                    state.mac.update(s.substring(from + i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buffer[i] = (byte) c;
+            }
+            state.mac.update(buffer, 0, n);
+        }
+    }
+
+    // Signatures are the hex of a 32-byte digest; anything else can't match
+    private static boolean decodeHex(String hex, byte[] out) {
+        String s = hex.trim();
+        if (s.length() != out.length * 2) return false;
+        for (int i = 0; i < out.length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16);
+            int lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) return false;
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.DailyPaymentSalesEntity;
+import com.example.myproject.entity.DailyProductSalesEntity;
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OrderItemEntity;
+import com.example.myproject.entity.SalesRollupDirtyDayEntity;
+import com.example.myproject.repository.DailyPaymentSalesRepository;
+import com.example.myproject.repository.DailyProductSalesRepository;
+import com.example.myproject.repository.SalesRollupDirtyDayRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the daily sales rollups (sales_daily_product / sales_daily_payment) in step
+ * with order state so admin reports never have to scan orders + order_items.
+ *
+ * An order "counts as a sale" while it is CONFIRMED..DELIVERED and not refunded.
+ * Callers snapshot {@link #countsAsSale} before changing an order and pass it to
+ * {@link #recordTransition} in the same transaction; the rollups only move when
+ * that flag flips. Days are attributed by the order's createdAt.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Set<OrderEntity.OrderStatus> SALE_STATUSES = EnumSet.of(
+        OrderEntity.OrderStatus.CONFIRMED,
+        OrderEntity.OrderStatus.PROCESSING,
+        OrderEntity.OrderStatus.SHIPPED,
+        OrderEntity.OrderStatus.DELIVERED
+    );
+
+    private final DailyProductSalesRepository productSalesRepository;
+    private final DailyPaymentSalesRepository paymentSalesRepository;
+    private final SalesRollupDirtyDayRepository dirtyDayRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Days older than this may have orders in archived_orders, which rebuilds can't see
+    @Value("${orders.archive.older-than-months:6}")
+    private int archiveAfterMonths;
+
+    public SalesRollupService(
+        DailyProductSalesRepository productSalesRepository,
+        DailyPaymentSalesRepository paymentSalesRepository,
+        SalesRollupDirtyDayRepository dirtyDayRepository,
+        TransactionTemplate transactionTemplate
+    ) {
+        this.productSalesRepository = productSalesRepository;
+        this.paymentSalesRepository = paymentSalesRepository;
+        this.dirtyDayRepository = dirtyDayRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public static boolean countsAsSale(OrderEntity order) {
+        return countsAsSale(order.getStatus(), order.getPaymentStatus());
+    }
+
+    public static boolean countsAsSale(OrderEntity.OrderStatus status, OrderEntity.PaymentStatus paymentStatus) {
+        return SALE_STATUSES.contains(status) && paymentStatus != OrderEntity.PaymentStatus.REFUNDED;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // INCREMENTAL UPDATE — runs inside the caller's order transaction
+    // ─────────────────────────────────────────────────────────────────────────
+    @Transactional
+    public void recordTransition(OrderEntity order, boolean countedBefore) {
+        boolean countedAfter = countsAsSale(order);
+        if (countedBefore == countedAfter || order.getCreatedAt() == null) return;
+
+        int sign = countedAfter ? 1 : -1;
+        LocalDate day = order.getCreatedAt().toLocalDate();
+
+        // Merge lines of the same product so each rollup row is touched once
+        Map<Long, DailyProductSalesEntity> perProduct = new LinkedHashMap<>();
+        long units = 0;
+        for (OrderItemEntity item : order.getOrderItems()) {
+            Long productId = item.getProduct().getProductId();
+            DailyProductSalesEntity row = perProduct.computeIfAbsent(productId, id ->
+                new DailyProductSalesEntity(null, day, id, item.getProductName(), 0L, BigDecimal.ZERO, 1L));
+            row.setUnitsSold(row.getUnitsSold() + item.getQuantity());
+            row.setGrossAmount(row.getGrossAmount().add(item.getSubtotal()));
+            units += item.getQuantity();
+        }
+        for (DailyProductSalesEntity row : perProduct.values()) {
+            productSalesRepository.addDelta(day, row.getProductId(), row.getProductName(),
+                sign * row.getUnitsSold(), signed(row.getGrossAmount(), sign), sign);
+        }
+
+        String method = order.getPaymentMethod() != null ? order.getPaymentMethod().name() : "UNKNOWN";
+        BigDecimal shipping = order.getShippingFee() != null ? order.getShippingFee() : BigDecimal.ZERO;
+        paymentSalesRepository.addDelta(day, method, sign, sign * units,
+            signed(order.getTotalAmount(), sign), signed(shipping, sign));
+
+        dirtyDayRepository.markDirty(day, LocalDateTime.now());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // NIGHTLY RECONCILIATION — rebuild only the days touched since last run
+    // ─────────────────────────────────────────────────────────────────────────
+    @Scheduled(cron = "${sales.rollup.reconcile-cron:0 30 2 * * *}")
+    public void reconcileDirtyDays() {
+        List<SalesRollupDirtyDayEntity> dirtyDays = dirtyDayRepository.findAll();
+        for (SalesRollupDirtyDayEntity dirty : dirtyDays) {
+            if (isPastArchiveHorizon(dirty.getSalesDate())) {
+                // The incremental deltas already applied are the best we have for archived days
+                dirtyDayRepository.deleteById(dirty.getSalesDate());
+                continue;
+            }
+            try {
+                rebuildDay(dirty.getSalesDate());
+            } catch (Exception e) {
+                System.err.println("❌ Sales rollup rebuild failed for " + dirty.getSalesDate() + ": " + e.getMessage());
+            }
+        }
+        if (!dirtyDays.isEmpty()) {
+            System.out.println("✅ Sales rollups reconciled for " + dirtyDays.size() + " day(s)");
+        }
+    }
+
+    /** Recompute one day from orders/order_items, each day in its own short transaction. */
+    public void rebuildDay(LocalDate day) {
+        if (isPastArchiveHorizon(day)) {
+            throw new RuntimeException("Orders for " + day + " may be archived; rollups older than "
+                + archiveAfterMonths + " months can't be rebuilt");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        transactionTemplate.executeWithoutResult(status -> {
+            productSalesRepository.deleteDay(day);
+            productSalesRepository.rebuildDay(day, start, end);
+            paymentSalesRepository.deleteDay(day);
+            paymentSalesRepository.rebuildDay(day, start, end);
+            // If an order on this day changed mid-rebuild the marker stays for the next run
+            dirtyDayRepository.clearIfUnchangedSince(day, startedAt);
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // REPORT READS
+    // ─────────────────────────────────────────────────────────────────────────
+    @Transactional(readOnly = true)
+    public List<DailyProductSalesEntity> getProductSales(LocalDate from, LocalDate to) {
+        return productSalesRepository.findBySalesDateBetweenOrderBySalesDateAscGrossAmountDesc(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyPaymentSalesEntity> getPaymentSales(LocalDate from, LocalDate to) {
+        return paymentSalesRepository.findBySalesDateBetweenOrderBySalesDateAscPaymentMethodAsc(from, to);
+    }
+
+    private boolean isPastArchiveHorizon(LocalDate day) {
+        return day.isBefore(LocalDate.now().minusMonths(archiveAfterMonths));
+    }
+
+    private static BigDecimal signed(BigDecimal amount, int sign) {
+        if (amount == null) return BigDecimal.ZERO;
+        return sign < 0 ? amount.negate() : amount;
+    }
+}
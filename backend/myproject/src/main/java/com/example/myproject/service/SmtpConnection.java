@@ -0,0 +1,84 @@
+package com.example.myproject.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One long-lived SMTP transport, used by one sender at a time. Checked with NOOP
+ * before reuse, replaced after {@code maxMessages} messages, and reopened once
+ * when it breaks mid-send.
+ */
+final class SmtpConnection {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxMessages;
+    private final LongAdder connectionsOpened;
+
+    private Transport transport;
+    private int sentOnConnection;
+    private long lastUsed;
+
+    SmtpConnection(JavaMailSenderImpl mailSender, int maxMessages, LongAdder connectionsOpened) {
+        this.mailSender = mailSender;
+        this.maxMessages = Math.max(maxMessages, 1);
+        this.connectionsOpened = connectionsOpened;
+    }
+
+    /** Sends one prepared message, timed under {@code kind}. */
+    synchronized void send(MimeMessage message, MailDispatcher.Kind kind, MailDispatcher dispatcher) throws MessagingException {
+        for (int attempt = 1; ; attempt++) {
+            Transport connection = connection();
+            try {
+                dispatcher.timed(kind, () -> connection.sendMessage(message, message.getAllRecipients()));
+                lastUsed = System.currentTimeMillis();
+                if (++sentOnConnection >= maxMessages) close();
+                return;
+            } catch (SendFailedException e) {
+                // The server answered; the connection is still good
+                throw e;
+            } catch (MessagingException e) {
+                close();
+                if (attempt >= 2) throw e;
+            }
+        }
+    }
+
+    private Transport connection() throws MessagingException {
+        // isConnected() sends a NOOP, so a connection the server dropped is noticed here
+        if (transport != null && transport.isConnected()) return transport;
+        close();
+
+        // Same defaults as JavaMailSenderImpl: smtp, and no credentials when they're blank
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if (username != null && username.isEmpty()) username = null;
+        if (password != null && password.isEmpty()) password = null;
+
+        Transport t = mailSender.getSession().getTransport(protocol);
+        t.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        transport = t;
+        sentOnConnection = 0;
+        connectionsOpened.increment();
+        return t;
+    }
+
+    synchronized void closeIfIdle(long idleCloseMs) {
+        if (transport != null && System.currentTimeMillis() - lastUsed >= idleCloseMs) close();
+    }
+
+    synchronized void close() {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+            // already gone
+        }
+        transport = null;
+    }
+}
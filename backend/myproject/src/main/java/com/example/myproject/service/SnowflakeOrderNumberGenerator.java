@@ -0,0 +1,109 @@
+package com.example.myproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: a 64-bit id made of
+ * <pre>
+ *   41 bits  milliseconds since {@link #EPOCH}
+ *   10 bits  node id   (one per app instance)
+ *   12 bits  sequence  (4096 ids per node per millisecond)
+ * </pre>
+ * rendered as {@code ORD} + 13 Crockford base32 characters, e.g. {@code ORD01JD3KQ7Z80G2}.
+ *
+ * The timestamp and sequence live together in a single {@link AtomicLong}, so
+ * {@link #nextId()} is a plain CAS loop — no locks and no sleeping. When the
+ * sequence for the current millisecond is exhausted, or the wall clock steps
+ * backwards, we keep counting on the last timestamp we handed out (borrowing
+ * from the next millisecond) instead of waiting, which keeps ids strictly
+ * increasing per node. Distinct node ids keep instances from colliding, so
+ * every instance should get its own {@code order.number.node-id}.
+ */
+@Component
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD";
+    private static final int ENCODED_LENGTH = 13; // ceil(64 / 5)
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // (millisSinceEpoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeOrderNumberGenerator(@Value("${order.number.node-id:-1}") long nodeId) {
+        this(nodeId >= 0 ? nodeId : deriveNodeId(), System::currentTimeMillis);
+    }
+
+    SnowflakeOrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return PREFIX + encode(nextId());
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = lastState.get();
+            long prevMillis = prev >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > prevMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((prev & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = prev + 1;
+            } else {
+                next = (prevMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(prev, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // Fixed-width encoding so that string order matches numeric order
+    static String encode(long id) {
+        char[] out = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = CROCKFORD[(int) (id & 0x1F)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    // Fallback for single-instance setups; multi-instance deployments should set order.number.node-id
+    private static long deriveNodeId() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            return (ProcessHandle.current().pid() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        }
+    }
+}
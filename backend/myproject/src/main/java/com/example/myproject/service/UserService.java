@@ -3,11 +3,15 @@ package com.example.myproject.service;
 import com.example.myproject.dto.UserDTO;
 import com.example.myproject.entity.UserEntity;
 import com.example.myproject.exception.ResourceNotFoundException;
+import com.example.myproject.repository.CartRepository;
 import com.example.myproject.repository.UserRepository;
+import com.example.myproject.security.UserAuthCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,9 +22,15 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CartRepository cartRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserAuthCache userAuthCache;
+
     // Map entity → DTO (never expose password)
     private UserDTO toDTO(UserEntity user) {
         UserDTO dto = new UserDTO();
@@ -60,7 +70,10 @@ public class UserService {
         user.setPhoneNumber(dto.getPhoneNumber());
         if (dto.getRole() != null) user.setRole(dto.getRole().toUpperCase());
 
-        return toDTO(userRepository.save(user));
+        UserDTO saved = toDTO(userRepository.save(user));
+        // The JWT filter takes the role from this cache, not from the token
+        userAuthCache.invalidate(id);
+        return saved;
     }
 
     // Used by PATCH /api/users/patch/{id} — handles profile fields + optional password change
@@ -105,13 +118,28 @@ public class UserService {
             user.setPassword(passwordEncoder.encode(newPassword));
         }
 
-        return toDTO(userRepository.save(user));
+        UserDTO saved = toDTO(userRepository.save(user));
+        // Email and role are read from the JWT filter's cache
+        userAuthCache.invalidate(id);
+        return saved;
     }
 
+    @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id: " + id);
+        UserEntity user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        // The cart is no longer cascaded from UserEntity, so remove it first (items cascade from the cart)
+        cartRepository.findByUser(user).ifPresent(cartRepository::delete);
+        userRepository.delete(user);
+        userAuthCache.invalidate(id);
+    }
+
+    // "Log out everywhere": every token issued up to now stops working
+    @Transactional
+    public void revokeTokens(Long userId) {
+        if (userRepository.revokeTokens(userId, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
         }
-        userRepository.deleteById(id);
+        userAuthCache.invalidate(userId);
     }
 }
\ No newline at end of file
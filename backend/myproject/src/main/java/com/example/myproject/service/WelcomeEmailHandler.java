@@ -0,0 +1,72 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OutboxEventEntity;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.UserRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class WelcomeEmailHandler implements OutboxEventHandler {
+
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final MailDispatcher mailDispatcher;
+
+    public WelcomeEmailHandler(UserRepository userRepository, EmailService emailService,
+                               MailDispatcher mailDispatcher) {
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+        this.mailDispatcher = mailDispatcher;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.WELCOME_EMAIL;
+    }
+
+    @Override
+    public void handle(OutboxEventEntity event) throws Exception {
+        Exception failure = handleAll(List.of(event)).get(event.getId());
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public Map<Long, Exception> handleAll(List<OutboxEventEntity> events) {
+        Map<Long, UserEntity> users = userRepository.findAllById(
+                events.stream().map(OutboxEventEntity::getAggregateId).toList())
+            .stream().collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, OutboxEventEntity> eventByMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        for (OutboxEventEntity event : events) {
+            UserEntity user = users.get(event.getAggregateId());
+            if (user == null) {
+                System.err.println("❌ User " + event.getAggregateId() + " no longer exists, skipping welcome email");
+                continue;
+            }
+            try {
+                MimeMessage message = emailService.buildWelcomeEmail(user.getEmail(), user.getFullName());
+                eventByMessage.put(message, event);
+                messages.add(message);
+            } catch (MessagingException e) {
+                failures.put(event.getId(), new PermanentDeliveryException("Cannot build welcome email: " + e.getMessage(), e));
+            }
+        }
+
+        mailDispatcher.sendAll(MailDispatcher.Kind.WELCOME, messages)
+            .forEach((message, e) -> failures.put(eventByMessage.get(message).getId(), e));
+        return failures;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.myproject;
+
+import org.springframework.boot.SpringApplication;
+
+import java.util.stream.Stream;
+
+/**
+ * Runs the app against the bundled Razorpay simulator instead of the real API:
+ * {@code ./mvnw spring-boot:test-run}. Checkout can then be driven end to end
+ * (create-order → POST simulator /sim/orders/{id}/pay → /api/payment/verify)
+ * by a load generator without touching Razorpay.
+ */
+public class TestMyprojectApplication {
+    public static void main(String[] args) {
+        String[] withSimulator = Stream.concat(Stream.of("--spring.profiles.include=razorpay-sim"), Stream.of(args))
+            .toArray(String[]::new);
+        SpringApplication.from(MyprojectApplication::main).run(withSimulator);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.myproject.repository;
+
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.dto.OrderSearchCriteria;
+import com.example.myproject.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderRepositoryTest {
+
+    private static final int ORDERS = 40;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        ProductEntity product = new ProductEntity();
+        product.setName("Croissant");
+        product.setPrice(new BigDecimal("3.50"));
+        product.setCategory("Pastry");
+        product.setStockQuantity(100);
+        em.persist(product);
+
+        for (int u = 0; u < 4; u++) {
+            UserEntity user = new UserEntity();
+            user.setFullName("Customer " + u);
+            user.setEmail("customer" + u + "@example.com");
+            user.setPassword("secret");
+            em.persist(user);
+
+            for (int o = 0; o < ORDERS / 4; o++) {
+                OrderEntity order = new OrderEntity();
+                order.setUser(user);
+                order.setOrderNumber("ORD-" + u + "-" + o);
+                order.setTotalAmount(new BigDecimal("10.50"));
+                order.setFinalAmount(new BigDecimal("10.50"));
+                order.setShippingName("Customer " + u);
+                order.setShippingPhone("9999999999");
+                order.setShippingAddress("12 Baker Street");
+                order.setShippingCity("Pune");
+                order.setShippingState("MH");
+                order.setShippingPincode("411001");
+                for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                    OrderItemEntity item = new OrderItemEntity();
+                    item.setOrder(order);
+                    item.setProduct(product);
+                    item.setProductName("Croissant");
+                    item.setQuantity(1);
+                    item.setPriceAtPurchase(new BigDecimal("3.50"));
+                    item.setSubtotal(new BigDecimal("3.50"));
+                    order.getOrderItems().add(item);
+                }
+                em.persist(order);
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void adminPageLoadsOrdersUsersAndItemsInBoundedStatements() {
+        PageRequest pageable = PageRequest.of(0, 25,
+            Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "orderId")));
+
+        Page<Long> ids = orderRepository.findOrderIds(pageable);
+        List<OrderDTO> page = orderRepository.findByOrderIdIn(ids.getContent()).stream()
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+
+        assertEquals(25, page.size());
+        assertEquals(ORDERS, ids.getTotalElements());
+        page.forEach(dto -> {
+            assertEquals(ITEMS_PER_ORDER, dto.getOrderItems().size());
+            assertNotNull(dto.getCustomerEmail());
+        });
+        // ids + count + one fetch of orders/users/items — independent of page size
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+            "expected at most 3 statements, got " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void largeOrderIsInsertedInBatchesNotOneStatementPerItem() {
+        final int items = 200;
+        UserEntity user = em.getEntityManager()
+            .createQuery("SELECT u FROM UserEntity u WHERE u.email = 'customer0@example.com'", UserEntity.class)
+            .getSingleResult();
+        ProductEntity product = em.getEntityManager()
+            .createQuery("SELECT p FROM ProductEntity p", ProductEntity.class)
+            .getSingleResult();
+        statistics.clear();
+
+        OrderEntity order = new OrderEntity();
+        order.setUser(user);
+        order.setOrderNumber("ORD-BIG");
+        order.setTotalAmount(new BigDecimal("700.00"));
+        order.setFinalAmount(new BigDecimal("700.00"));
+        order.setShippingName("Customer 0");
+        order.setShippingPhone("9999999999");
+        order.setShippingAddress("12 Baker Street");
+        order.setShippingCity("Pune");
+        order.setShippingState("MH");
+        order.setShippingPincode("411001");
+        for (int i = 0; i < items; i++) {
+            OrderItemEntity item = new OrderItemEntity();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductName("Croissant");
+            item.setQuantity(1);
+            item.setPriceAtPurchase(new BigDecimal("3.50"));
+            item.setSubtotal(new BigDecimal("3.50"));
+            order.getOrderItems().add(item);
+        }
+        em.persist(order);
+        em.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(items + 1, statistics.getEntityInsertCount());
+        // a few sequence calls plus one batched statement per 50 rows; IDENTITY ids would need one per row
+        assertTrue(statements <= 12, "expected 1 order + " + items + " items in batched inserts, got "
+            + statements + " JDBC statements (IDENTITY ids would need " + (items + 1) + ")");
+    }
+
+    @Test
+    void fullAdminListIsASingleStatement() {
+        List<OrderDTO> all = orderRepository.findAllByOrderByCreatedAtDesc().stream()
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+
+        assertEquals(ORDERS, all.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetSearchWalksEveryMatchingOrderExactlyOnce() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        criteria.setCustomerEmail("customer2@example.com");
+        criteria.setPincode("411001");
+
+        List<OrderKey> all = new ArrayList<>();
+        OrderKey after = null;
+        List<OrderKey> page;
+        do {
+            page = orderRepository.searchOrderKeys(criteria, after, 4);
+            all.addAll(page);
+            if (!page.isEmpty()) after = OrderKey.fromCursor(page.get(page.size() - 1).toCursor());
+        } while (page.size() == 4);
+
+        assertEquals(ORDERS / 4, all.size());
+        assertEquals(all.size(), new HashSet<>(all).size());
+        for (int i = 1; i < all.size(); i++) {
+            OrderKey prev = all.get(i - 1), cur = all.get(i);
+            assertTrue(cur.createdAt().isBefore(prev.createdAt())
+                || (cur.createdAt().equals(prev.createdAt()) && cur.orderId() < prev.orderId()));
+        }
+    }
+
+    @Test
+    void bulkStatusUpdateIsOneStatementAndOnlyStampsMissingTimestamps() {
+        List<Long> ids = orderRepository.findOrderIds(PageRequest.of(0, 30)).getContent();
+        LocalDateTime earlier = LocalDateTime.now().minusDays(2);
+        OrderEntity alreadyPaid = em.find(OrderEntity.class, ids.get(0));
+        alreadyPaid.setPaidAt(earlier);
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<OrderStatusSnapshot> locked = orderRepository.lockStatuses(ids);
+        assertEquals(30, locked.size());
+        locked.forEach(s -> assertEquals(OrderEntity.OrderStatus.PENDING, s.status()));
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(30, orderRepository.bulkUpdateStatus(ids, OrderEntity.OrderStatus.DELIVERED, now, now));
+        assertEquals(30, orderRepository.bulkUpdatePaymentStatus(ids, OrderEntity.PaymentStatus.PAID, now, now));
+        // one lock read + one UPDATE per field, regardless of how many orders
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        List<OrderEntity> updated = orderRepository.findByOrderIdIn(ids);
+        updated.forEach(o -> {
+            assertEquals(OrderEntity.OrderStatus.DELIVERED, o.getStatus());
+            assertNotNull(o.getDeliveredAt());
+        });
+        OrderEntity first = updated.stream().filter(o -> o.getOrderId().equals(ids.get(0))).findFirst().orElseThrow();
+        assertEquals(earlier.withNano(0), first.getPaidAt().withNano(0));
+    }
+}
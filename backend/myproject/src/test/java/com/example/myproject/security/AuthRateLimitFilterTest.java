@@ -0,0 +1,174 @@
+package com.example.myproject.security;
+
+import com.example.myproject.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimitFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // The edge proxy in these tests
+    private static final ClientIpResolver CLIENT_IP = new ClientIpResolver("10\\.0\\.0\\.\\d{1,3}");
+
+    private static AuthRateLimiter limiter(RateLimitStore store, long ipCapacity, long accountCapacity) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("store", store);
+        return new AuthRateLimiter(beans.getBeanProvider(RateLimitStore.class), 1000,
+            ipCapacity, 60, accountCapacity, 60);
+    }
+
+    private static MockHttpServletResponse post(AuthRateLimitFilter filter, String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr("203.0.113.7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void bucketAllowsBurstThenRefillsAtTheConfiguredRate() {
+        AtomicLong now = new AtomicLong(0);
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(100, now::get);
+        RateLimit limit = new RateLimit(3, 60);   // one token a second
+
+        for (int i = 0; i < 3; i++) assertEquals(0, store.tryConsume("k", limit));
+        long wait = store.tryConsume("k", limit);
+        assertTrue(wait > 0 && wait <= SECOND, "wait " + wait);
+        assertEquals(0, store.tryConsume("other", limit));
+
+        now.addAndGet(SECOND);
+        assertEquals(0, store.tryConsume("k", limit));
+        assertTrue(store.tryConsume("k", limit) > 0);
+
+        // Never refills past capacity
+        now.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) assertEquals(0, store.tryConsume("k", limit));
+        assertTrue(store.tryConsume("k", limit) > 0);
+    }
+
+    @Test
+    void filterAnswers429WithRetryAfterOnlyForAuthPosts() throws Exception {
+        AtomicLong now = new AtomicLong(0);
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(limiter(new InMemoryRateLimitStore(100, now::get), 2, 5), CLIENT_IP);
+
+        assertEquals(200, post(filter, "POST", "/api/auth/login").getStatus());
+        assertEquals(200, post(filter, "POST", "/api/auth/register").getStatus());
+
+        MockHttpServletResponse limited = post(filter, "POST", "/api/auth/login");
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader("Retry-After"));
+        assertTrue(limited.getContentAsString().contains("\"error\""));
+
+        // Other endpoints aren't limited here
+        assertEquals(200, post(filter, "GET", "/api/auth/login").getStatus());
+        assertEquals(200, post(filter, "POST", "/api/orders/cod").getStatus());
+
+        now.addAndGet(SECOND);
+        assertEquals(200, post(filter, "POST", "/api/auth/login").getStatus());
+    }
+
+    private static MockHttpServletResponse viaProxy(AuthRateLimitFilter filter, String peer, String forwardedFor)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(peer);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void clientsBehindTheProxyGetTheirOwnBucketAndCantSpoofOne() throws Exception {
+        AuthRateLimitFilter filter = new AuthRateLimitFilter(
+            limiter(new InMemoryRateLimitStore(100, () -> 0L), 2, 5), CLIENT_IP);
+
+        // Both arrive from the proxy; each forwarded client is limited on its own
+        assertEquals(200, viaProxy(filter, "10.0.0.5", "198.51.100.1").getStatus());
+        assertEquals(200, viaProxy(filter, "10.0.0.6", "198.51.100.1").getStatus());
+        assertEquals(429, viaProxy(filter, "10.0.0.5", "198.51.100.1").getStatus());
+        assertEquals(200, viaProxy(filter, "10.0.0.5", "198.51.100.2").getStatus());
+
+        // A client-written entry in front of what the proxy appended doesn't get a fresh bucket
+        assertEquals(429, viaProxy(filter, "10.0.0.5", "192.0.2.99, 198.51.100.1").getStatus());
+        // Nor does the header when the peer isn't the proxy
+        assertEquals(200, viaProxy(filter, "203.0.113.9", "198.51.100.3").getStatus());
+        assertEquals(200, viaProxy(filter, "203.0.113.9", "198.51.100.4").getStatus());
+        assertEquals(429, viaProxy(filter, "203.0.113.9", "198.51.100.5").getStatus());
+    }
+
+    @Test
+    void onlyFailedLoginsAreChargedAndOnlyFromTheFailingIp() {
+        AuthRateLimiter limiter = limiter(new InMemoryRateLimitStore(100, () -> 0L), 100, 2);
+
+        // Successful logins never drain the bucket
+        for (int i = 0; i < 5; i++) limiter.checkLogin("asha@example.com", "198.51.100.1");
+
+        limiter.recordLoginFailure("asha@example.com", "203.0.113.7");
+        limiter.recordLoginFailure(" ASHA@example.com", "203.0.113.7");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+            () -> limiter.checkLogin("asha@example.com", "203.0.113.7"));
+        assertEquals(1, e.getRetryAfterSeconds());
+
+        // The owner's own IP and other accounts are unaffected
+        limiter.checkLogin("asha@example.com", "198.51.100.1");
+        limiter.checkLogin("ravi@example.com", "203.0.113.7");
+    }
+
+    @Test
+    void passwordHashingIsBoundedAndOverflowIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + raw;
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return encode(raw).equals(encoded);
+            }
+        };
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, 5_000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One hashing, one queued: the pool is full
+            var first = callers.submit(() -> encoder.encode("a"));
+            var second = callers.submit(() -> encoder.encode("b"));
+            Thread.sleep(200);
+            assertThrows(TooManyRequestsException.class, () -> encoder.encode("c"));
+
+            release.countDown();
+            assertEquals("hash:a", first.get(5, TimeUnit.SECONDS));
+            assertEquals("hash:b", second.get(5, TimeUnit.SECONDS));
+            assertTrue(encoder.matches("d", "hash:d"));
+        } finally {
+            callers.shutdownNow();
+            encoder.shutdown();
+        }
+
+        BoundedPasswordEncoder bcrypt = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, 5_000);
+        assertTrue(bcrypt.matches("secret", bcrypt.encode("secret")));
+        bcrypt.shutdown();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.myproject.security;
+
+import com.example.myproject.repository.UserAuthState;
+import com.example.myproject.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Requests per second through the JWT filter, database left out (the user lookup
+ * is a mock or a warm {@link UserAuthCache}), so only token handling is measured:
+ * the old three parses with a key rebuilt each time, one parse with the key and
+ * parser built once, and a repeated token found in the verified-token cache.
+ *
+ * Run (allocation shows up as gc.alloc.rate.norm, bytes per op):
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.example.myproject.security.JwtAuthFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SECRET = "bench-secret-bench-secret-bench-secret-0123456789";
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    private String token;
+    private UserDetails user;
+    private JwtAuthFilter singleParse;
+    private JwtAuthFilter verifiedCache;
+
+    @Setup
+    public void setUp() {
+        UserRepository users = mock(UserRepository.class);
+        when(users.findAuthStateById(42L))
+            .thenReturn(Optional.of(new UserAuthState(42L, "asha@example.com", "USER", null)));
+
+        JwtUtil cached = new JwtUtil(SECRET, 3_600_000L, 10_000);
+        token = cached.generateToken("asha@example.com", Map.of(JwtUtil.USER_ID_CLAIM, 42L, JwtUtil.ROLE_CLAIM, "USER"));
+        user = new User("asha@example.com", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        singleParse = filter(new JwtUtil(SECRET, 3_600_000L, 0), users);
+        verifiedCache = filter(cached, users);
+    }
+
+    private static JwtAuthFilter filter(JwtUtil jwtUtil, UserRepository users) {
+        JwtAuthFilter filter = new JwtAuthFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userAuthCache", new UserAuthCache(users, 10_000, 30));
+        ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        return filter;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/user");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    /** What the filter did before, minus the user query: three parses, each with a new key and parser. */
+    @Benchmark
+    public Object perCallKeyThreeParses() {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = request();
+        String jwt = request.getHeader("Authorization").substring(7);
+        String email = Legacy.claims(jwt).getSubject();
+        if (email.equals(Legacy.claims(jwt).getSubject()) && !Legacy.claims(jwt).getExpiration().before(new Date())) {
+            SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        }
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object singleParse() throws Exception {
+        SecurityContextHolder.clearContext();
+        singleParse.doFilter(request(), new MockHttpServletResponse(), CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object verifiedTokenCache() throws Exception {
+        SecurityContextHolder.clearContext();
+        verifiedCache.doFilter(request(), new MockHttpServletResponse(), CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /** The old JwtUtil parse path. */
+    static final class Legacy {
+        static Claims claims(String token) {
+            Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(JwtAuthFilterBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.myproject.security;
+
+import com.example.myproject.dto.UserDTO;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.repository.UserRepository;
+import com.example.myproject.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:jwtauth;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "jwt.secret=test-secret-test-secret-test-secret-0123456789",
+    "jwt.expiration=600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JwtAuthFilter.class, JwtUtil.class, UserAuthCache.class, CustomUserDetailsService.class,
+    UserService.class, JwtAuthFilterTest.Passwords.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JwtAuthFilterTest {
+
+    @TestConfiguration
+    static class Passwords {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @Autowired private JwtAuthFilter filter;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UserService userService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = new UserEntity();
+        user.setFullName("Asha Baker");
+        user.setEmail("asha@example.com");
+        user.setPassword("secret");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        userRepository.deleteAll();
+    }
+
+    private String tokenFor(UserEntity u) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtUtil.USER_ID_CLAIM, u.getUserId());
+        claims.put(JwtUtil.ROLE_CLAIM, u.getRole());
+        return jwtUtil.generateToken(u.getEmail(), claims);
+    }
+
+    // Runs the filter for one request and returns who it authenticated (null when nobody)
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        Authentication[] seen = new Authentication[1];
+        filter.doFilter(request, new MockHttpServletResponse(),
+            (req, res) -> seen[0] = SecurityContextHolder.getContext().getAuthentication());
+        return seen[0];
+    }
+
+    private static List<String> roles(Authentication auth) {
+        return auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    @Test
+    void authenticatesFromClaimsAndOnlyQueriesOnCacheMiss() throws Exception {
+        String token = tokenFor(user);
+
+        statistics.clear();
+        Authentication first = authenticate(token);
+        assertEquals("asha@example.com", first.getName());
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, first.getPrincipal());
+        assertEquals(user.getUserId(), principal.getUserId());
+        assertFalse(principal.isAdmin());
+        assertEquals(List.of("ROLE_USER"), roles(first));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        for (int i = 0; i < 10; i++) assertNotNull(authenticate(token));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        assertNull(authenticate(token + "x"));
+    }
+
+    @Test
+    void expiredAndForgedTokensAreRejected() throws Exception {
+        String secret = "test-secret-test-secret-test-secret-0123456789";
+        Map<String, Object> claims = Map.of(JwtUtil.USER_ID_CLAIM, user.getUserId(), JwtUtil.ROLE_CLAIM, "ADMIN");
+        assertNull(authenticate(new JwtUtil(secret, -1_000L, 10).generateToken(user.getEmail(), claims)));
+        assertNull(authenticate(new JwtUtil(secret.replace('0', '1'), 60_000L, 10).generateToken(user.getEmail(), claims)));
+
+        // Verified once, then served from the verified-token cache
+        String token = tokenFor(user);
+        assertSame(jwtUtil.parseClaims(token), jwtUtil.parseClaims(token));
+    }
+
+    @Test
+    void roleChangesDeletionAndLogoutAllApplyToIssuedTokens() throws Exception {
+        String token = tokenFor(user);
+        assertNotNull(authenticate(token));
+
+        UserDTO dto = new UserDTO();
+        dto.setFullName(user.getFullName());
+        dto.setRole("admin");
+        userService.updateUser(user.getUserId(), dto);
+        // The token still says USER; the current role wins
+        assertEquals(List.of("ROLE_ADMIN"), roles(authenticate(token)));
+
+        userService.revokeTokens(user.getUserId());
+        assertNull(authenticate(token));
+
+        UserEntity other = new UserEntity();
+        other.setFullName("Ravi Baker");
+        other.setEmail("ravi@example.com");
+        other.setPassword("secret");
+        other = userRepository.save(other);
+        String otherToken = tokenFor(other);
+        assertNotNull(authenticate(otherToken));
+        userService.deleteUser(other.getUserId());
+        assertNull(authenticate(otherToken));
+    }
+
+    @Test
+    void tokensWithoutUserIdStillAuthenticateAgainstTheDatabase() throws Exception {
+        String legacy = jwtUtil.generateToken(user.getEmail(), Map.of(JwtUtil.ROLE_CLAIM, "USER"));
+
+        statistics.clear();
+        Authentication auth = authenticate(legacy);
+        assertEquals("asha@example.com", auth.getName());
+        assertEquals(List.of("ROLE_USER"), roles(auth));
+        // Same principal type as the stateless path, without the password hash
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, auth.getPrincipal());
+        assertEquals(user.getUserId(), principal.getUserId());
+        assertEquals("", principal.getPassword());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void logoutAllRevokesTokensCheckedAgainstTheDatabase() throws Exception {
+        String legacy = jwtUtil.generateToken(user.getEmail(), Map.of(JwtUtil.ROLE_CLAIM, "USER"));
+        String current = tokenFor(user);
+        ReflectionTestUtils.setField(filter, "statelessAuth", false);
+        try {
+            assertNotNull(authenticate(legacy));
+            assertNotNull(authenticate(current));
+
+            userService.revokeTokens(user.getUserId());
+
+            assertNull(authenticate(legacy));
+            assertNull(authenticate(current));
+        } finally {
+            ReflectionTestUtils.setField(filter, "statelessAuth", true);
+        }
+        // Tokens without a user id take the database path in stateless mode too
+        assertNull(authenticate(legacy));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.CreateOrderRequest;
+import com.example.myproject.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(CheckoutService.class)
+class CheckoutServiceTest {
+
+    @Autowired private TestEntityManager em;
+    @Autowired private CheckoutService checkoutService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @MockBean private SalesRollupService salesRollupService;
+    @MockBean private OutboxService outboxService;
+    @MockBean private OrderNumberGenerator orderNumberGenerator;
+
+    private final List<ProductEntity> products = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        AtomicLong numbers = new AtomicLong();
+        when(orderNumberGenerator.nextOrderNumber()).thenAnswer(inv -> "T-" + numbers.incrementAndGet());
+        for (int i = 0; i < 40; i++) {
+            ProductEntity product = new ProductEntity();
+            product.setName("Bun " + i);
+            product.setPrice(new BigDecimal("2.50"));
+            product.setCategory("Bread");
+            product.setStockQuantity(10);
+            em.persist(product);
+            products.add(product);
+        }
+    }
+
+    private String userWithCart(String email, int lines, int quantity) {
+        UserEntity user = new UserEntity();
+        user.setFullName("Buyer");
+        user.setEmail(email);
+        user.setPassword("secret");
+        em.persist(user);
+
+        CartEntity cart = new CartEntity();
+        cart.setUser(user);
+        em.persist(cart);
+        for (int i = 0; i < lines; i++) {
+            CartItemEntity item = new CartItemEntity();
+            item.setCart(cart);
+            item.setProduct(products.get(i));
+            item.setQuantity(quantity);
+            item.setPrice(products.get(i).getPrice());
+            item.setSubtotal(products.get(i).getPrice().multiply(BigDecimal.valueOf(quantity)));
+            em.persist(item);
+        }
+        em.flush();
+        em.clear();
+        return email;
+    }
+
+    private static CreateOrderRequest shipping() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setName("Buyer");
+        request.setPhone("9999999999");
+        request.setAddress("1 Mill Lane");
+        request.setCity("Pune");
+        request.setState("MH");
+        request.setPincode("411001");
+        return request;
+    }
+
+    private long statementsFor(String email) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        checkoutService.placeOrder(email, checkoutService.fromCart(), CheckoutPayment.COD, shipping());
+        em.flush();
+        em.clear();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void cartCheckoutCostsTheSameForAnyBasketSize() {
+        statementsFor(userWithCart("warmup@example.com", 1, 1));
+
+        long small = statementsFor(userWithCart("small@example.com", 2, 1));
+        long large = statementsFor(userWithCart("large@example.com", 30, 1));
+
+        assertEquals(small, large, "statements grew with the basket: " + small + " vs " + large);
+        assertEquals(0L, em.getEntityManager()
+            .createQuery("SELECT COUNT(ci) FROM CartItemEntity ci", Long.class).getSingleResult());
+        assertEquals(7, em.find(ProductEntity.class, products.get(0).getProductId()).getStockQuantity());
+        assertEquals(9, em.find(ProductEntity.class, products.get(29).getProductId()).getStockQuantity());
+    }
+
+    @Test
+    void pricesOnceAndAddsShippingBelowThreshold() {
+        OrderEntity order = checkoutService.placeOrder(userWithCart("p@example.com", 2, 3),
+            checkoutService.fromCart(), CheckoutPayment.RAZORPAY, shipping());
+
+        assertEquals(0, new BigDecimal("15.00").compareTo(order.getTotalAmount()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(order.getFinalAmount()));
+        assertEquals(OrderEntity.OrderStatus.PENDING, order.getStatus());
+        assertTrue(order.getStockReserved());
+    }
+
+    @Test
+    void oversellingLineFailsTheWholeCheckout() {
+        String email = userWithCart("o@example.com", 1, 1);
+        assertThrows(RuntimeException.class, () -> checkoutService.placeOrder(email,
+            checkoutService.buyNow(products.get(5).getProductId(), 11), CheckoutPayment.COD, shipping()));
+        em.clear();
+
+        assertEquals(10, em.find(ProductEntity.class, products.get(5).getProductId()).getStockQuantity());
+    }
+
+    @Test
+    void releasingStockIsIdempotent() {
+        OrderEntity order = checkoutService.placeOrder(userWithCart("r@example.com", 3, 4),
+            checkoutService.fromCart(), CheckoutPayment.COD, shipping());
+        em.flush();
+        em.clear();
+
+        checkoutService.releaseStock(List.of(order.getOrderId()));
+        checkoutService.releaseStock(List.of(order.getOrderId()));
+        em.clear();
+
+        assertEquals(10, em.find(ProductEntity.class, products.get(2).getProductId()).getStockQuantity());
+        assertFalse(em.find(OrderEntity.class, order.getOrderId()).getStockReserved());
+    }
+
+    @Test
+    void releasingTwoStaleCopiesOfAnOrderRestoresStockOnce() {
+        OrderEntity order = checkoutService.placeOrder(userWithCart("s@example.com", 1, 4),
+            checkoutService.fromCart(), CheckoutPayment.COD, shipping());
+        em.flush();
+        em.clear();
+
+        // Both copies were read while the order was still reserved, as two racing cancels would be
+        OrderEntity first = em.find(OrderEntity.class, order.getOrderId());
+        em.detach(first);
+        OrderEntity second = em.find(OrderEntity.class, order.getOrderId());
+        em.detach(second);
+
+        checkoutService.releaseStock(first);
+        checkoutService.releaseStock(second);
+        em.flush();
+        em.clear();
+
+        assertEquals(10, em.find(ProductEntity.class, products.get(0).getProductId()).getStockQuantity());
+        assertFalse(em.find(OrderEntity.class, order.getOrderId()).getStockReserved());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.CreateCampaignRequest;
+import com.example.myproject.entity.EmailCampaignEntity;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.repository.EmailCampaignRepository;
+import com.example.myproject.repository.UserRepository;
+import com.example.myproject.sim.SmtpSimulator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:campaigns;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.mail.username=bakery@example.com",
+    "mail.campaign.batch-size=2",
+    "mail.campaign.max-per-second=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmailCampaignService.class, EmailService.class, MailDispatcher.class, MailTemplates.class,
+    EmailCampaignServiceTest.Smtp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailCampaignServiceTest {
+
+    static SmtpSimulator smtp;
+
+    @TestConfiguration
+    static class Smtp {
+        @Bean
+        JavaMailSenderImpl mailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(smtp.port());
+            return sender;
+        }
+    }
+
+    @Autowired private EmailCampaignService campaignService;
+    @Autowired private EmailCampaignRepository campaignRepository;
+    @Autowired private UserRepository userRepository;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startSmtp() throws Exception {
+        smtp = new SmtpSimulator();
+    }
+
+    @AfterAll
+    static void stopSmtp() throws Exception {
+        smtp.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        smtp.reset();
+        for (int i = 1; i <= 5; i++) {
+            UserEntity user = new UserEntity();
+            user.setFullName("Customer " + i);
+            user.setEmail("customer" + i + "@example.com");
+            user.setPassword("secret");
+            userIds.add(userRepository.save(user).getUserId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        campaignRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private EmailCampaignEntity newCampaign() {
+        CreateCampaignRequest request = new CreateCampaignRequest();
+        request.setName("Diwali bakes");
+        request.setSubject("New: Diwali sweets are here");
+        request.setHeadline("Festive bakes <3");
+        request.setBodyHtml("<p>Kaju katli croissants, this week only.</p>");
+        return campaignService.create(request);
+    }
+
+    // Each tick sends at most one batch per campaign
+    private int runUntilIdle() {
+        int ticks = 0;
+        while (ticks < 20 && !campaignRepository.findRunnableIds(LocalDateTime.now()).isEmpty()) {
+            campaignService.runDueCampaigns();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    @Test
+    void sendsToEveryUserInBatchesAndCompletes() {
+        EmailCampaignEntity campaign = newCampaign();
+
+        campaignService.runDueCampaigns();
+        assertEquals(2, smtp.received().size());
+        assertEquals(EmailCampaignEntity.Status.RUNNING, campaignService.getCampaign(campaign.getId()).getStatus());
+
+        // 3 batches of 2, then the empty read that completes it
+        assertEquals(3, runUntilIdle());
+
+        EmailCampaignEntity done = campaignService.getCampaign(campaign.getId());
+        assertEquals(EmailCampaignEntity.Status.COMPLETED, done.getStatus());
+        assertEquals(5, done.getSentCount());
+        assertEquals(0, done.getFailedCount());
+        assertEquals(userIds.get(4), done.getLastUserId());
+
+        List<SmtpSimulator.Received> received = smtp.received();
+        assertEquals(5, received.size());
+        assertEquals(5, received.stream().map(r -> r.recipients().get(0)).distinct().count());
+        assertTrue(received.get(0).data().contains("Festive bakes &lt;3"));
+
+        // Completed campaigns aren't picked up again
+        campaignService.runDueCampaigns();
+        assertEquals(5, smtp.received().size());
+    }
+
+    @Test
+    void crashedCampaignResumesAfterTheLastFinishedBatch() {
+        EmailCampaignEntity campaign = newCampaign();
+        // As if an instance sent the first batch, saved progress and died holding the lease
+        campaign.setStatus(EmailCampaignEntity.Status.RUNNING);
+        campaign.setLastUserId(userIds.get(1));
+        campaign.setSentCount(2);
+        campaign.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+        campaignRepository.save(campaign);
+
+        runUntilIdle();
+
+        EmailCampaignEntity done = campaignService.getCampaign(campaign.getId());
+        assertEquals(EmailCampaignEntity.Status.COMPLETED, done.getStatus());
+        assertEquals(5, done.getSentCount());
+        assertEquals(List.of("customer3@example.com", "customer4@example.com", "customer5@example.com"),
+            smtp.received().stream().map(r -> r.recipients().get(0)).sorted().toList());
+    }
+
+    @Test
+    void pausedCampaignIsSkippedUntilResumedAndRejectedRecipientsAreCounted() {
+        smtp.rejectRecipient("customer2@example.com");
+        EmailCampaignEntity campaign = newCampaign();
+        campaignService.pause(campaign.getId());
+
+        campaignService.runDueCampaigns();
+        assertEquals(0, smtp.received().size());
+        assertThrows(RuntimeException.class, () -> campaignService.pause(campaign.getId()));
+
+        campaignService.resume(campaign.getId());
+        runUntilIdle();
+
+        EmailCampaignEntity done = campaignService.getCampaign(campaign.getId());
+        assertEquals(EmailCampaignEntity.Status.COMPLETED, done.getStatus());
+        assertEquals(4, done.getSentCount());
+        assertEquals(1, done.getFailedCount());
+        assertNotNull(done.getLastError());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.myproject.service;
+
+import com.example.myproject.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(IdempotencyService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired private IdempotencyService idempotencyService;
+    @Autowired private IdempotencyKeyRepository repository;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void retryReplaysTheStoredResponseWithoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        ResponseEntity<?> first = idempotencyService.execute("a@example.com", "key-1", List.of("cod", "body"),
+            () -> ResponseEntity.ok(Map.of("orderId", runs.incrementAndGet())));
+        ResponseEntity<?> retry = idempotencyService.execute("a@example.com", "key-1", List.of("cod", "body"),
+            () -> ResponseEntity.ok(Map.of("orderId", runs.incrementAndGet())));
+
+        assertEquals(1, runs.get());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals("{\"orderId\":1}", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(200, first.getStatusCode().value());
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheInFlightRequest() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return idempotencyService.execute("b@example.com", "double-click", List.of("cod", "body"), () -> {
+                    int n = runs.incrementAndGet();
+                    try { Thread.sleep(300); } catch (InterruptedException ignored) { }
+                    return ResponseEntity.ok(Map.of("orderId", n));
+                });
+            }));
+        }
+        start.countDown();
+
+        for (Future<ResponseEntity<?>> result : results) {
+            ResponseEntity<?> response = result.get();
+            assertEquals(200, response.getStatusCode().value());
+            assertTrue(String.valueOf(response.getBody()).contains("1"));
+        }
+        pool.shutdown();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sameKeyWithADifferentRequestIsRejected() {
+        idempotencyService.execute("c@example.com", "key-2", List.of("cod", "one"), () -> ResponseEntity.ok(Map.of()));
+        ResponseEntity<?> reused = idempotencyService.execute("c@example.com", "key-2", List.of("cod", "two"),
+            () -> ResponseEntity.ok(Map.of()));
+
+        assertEquals(422, reused.getStatusCode().value());
+    }
+
+    @Test
+    void failedRequestReleasesTheKey() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute("d@example.com", "key-3", List.of("cod", "body"), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.badRequest().body(Map.of("error", "Cart is empty"));
+        });
+        ResponseEntity<?> retry = idempotencyService.execute("d@example.com", "key-3", List.of("cod", "body"), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(Map.of("orderId", 7));
+        });
+
+        assertEquals(2, runs.get());
+        assertEquals(200, retry.getStatusCode().value());
+    }
+
+    @Test
+    void serverErrorAfterSideEffectsIsReplayedNotRetried() {
+        AtomicInteger runs = new AtomicInteger();
+        // e.g. the order was placed, then creating the Razorpay order failed
+        idempotencyService.execute("g@example.com", "key-4", List.of("buy-now", "body"), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to create Razorpay order"));
+        });
+        ResponseEntity<?> retry = idempotencyService.execute("g@example.com", "key-4", List.of("buy-now", "body"), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok(Map.of("orderId", 8));
+        });
+
+        assertEquals(1, runs.get());
+        assertEquals(500, retry.getStatusCode().value());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute("e@example.com", "shared", List.of("cod"), () -> ResponseEntity.ok(Map.of("n", runs.incrementAndGet())));
+        idempotencyService.execute("f@example.com", "shared", List.of("cod"), () -> ResponseEntity.ok(Map.of("n", runs.incrementAndGet())));
+
+        assertEquals(2, runs.get());
+    }
+}
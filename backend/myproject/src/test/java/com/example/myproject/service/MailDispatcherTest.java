@@ -0,0 +1,165 @@
+package com.example.myproject.service;
+
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.OutboxEventRepository;
+import com.example.myproject.sim.SmtpSimulator;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class MailDispatcherTest {
+
+    private SmtpSimulator smtp;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpSimulator();
+        dispatcher = dispatcher(3, 2, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.close();
+        smtp.close();
+    }
+
+    private MailDispatcher dispatcher(int maxMessagesPerConnection, int campaignConnections, double campaignPerSecond) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtp.port());
+        Properties props = new Properties();
+        props.put("mail.smtp.connectiontimeout", "2000");
+        props.put("mail.smtp.timeout", "2000");
+        sender.setJavaMailProperties(props);
+        return new MailDispatcher(sender, mock(OutboxEventRepository.class), maxMessagesPerConnection, 30_000,
+            campaignConnections, campaignPerSecond);
+    }
+
+    private MimeMessage message(String to) throws MessagingException {
+        MimeMessage message = dispatcher.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("bakery@example.com");
+        helper.setTo(to);
+        helper.setSubject("Order confirmed");
+        helper.setText("<p>Thanks!</p>", true);
+        return message;
+    }
+
+    private List<MimeMessage> messages(int n) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < n; i++) messages.add(message("customer" + i + "@example.com"));
+        return messages;
+    }
+
+    @Test
+    void sendsSeveralMessagesOverOneConnection() throws Exception {
+        assertTrue(dispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, messages(2)).isEmpty());
+        assertTrue(dispatcher.sendAll(MailDispatcher.Kind.WELCOME, messages(1)).isEmpty());
+
+        assertEquals(3, smtp.received().size());
+        assertEquals(1, smtp.connections());
+        assertEquals(List.of("customer0@example.com"), smtp.received().get(0).recipients());
+    }
+
+    @Test
+    void connectionIsReplacedAfterMaxMessages() throws Exception {
+        assertTrue(dispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, messages(7)).isEmpty());
+
+        assertEquals(7, smtp.received().size());
+        assertEquals(3, smtp.connections());   // 3 + 3 + 1
+    }
+
+    @Test
+    void rejectedRecipientFailsPermanentlyWithoutStoppingTheBatch() throws Exception {
+        smtp.rejectRecipient("gone@example.com");
+        MimeMessage bad = message("gone@example.com");
+        List<MimeMessage> batch = List.of(message("a@example.com"), bad, message("b@example.com"));
+
+        Map<MimeMessage, Exception> failures = dispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, batch);
+
+        assertEquals(1, failures.size());
+        assertInstanceOf(PermanentDeliveryException.class, failures.get(bad));
+        assertEquals(2, smtp.received().size());
+        assertEquals(1, smtp.connections());
+    }
+
+    @Test
+    void reconnectsWhenTheServerDropsTheConnection() throws Exception {
+        assertTrue(dispatcher.sendAll(MailDispatcher.Kind.WELCOME, messages(1)).isEmpty());
+        smtp.dropConnections();
+
+        assertTrue(dispatcher.sendAll(MailDispatcher.Kind.WELCOME, messages(1)).isEmpty());
+
+        assertEquals(2, smtp.received().size());
+        assertEquals(2, smtp.connections());
+    }
+
+    @Test
+    void serverDownIsARetryableFailure() throws Exception {
+        MimeMessage message = message("a@example.com");
+        smtp.close();
+
+        Map<MimeMessage, Exception> failures = dispatcher.sendAll(MailDispatcher.Kind.WELCOME, List.of(message));
+
+        assertInstanceOf(MessagingException.class, failures.get(message));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotReportsSendsAndConnectionReuse() throws Exception {
+        smtp.rejectRecipient("gone@example.com");
+        dispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, messages(2));
+        dispatcher.sendAll(MailDispatcher.Kind.ORDER_CONFIRMATION, List.of(message("gone@example.com")));
+
+        Map<String, Object> snapshot = dispatcher.snapshot();
+        Map<String, Object> confirmations = (Map<String, Object>) snapshot.get("orderConfirmation");
+        assertEquals(2L, confirmations.get("sent"));
+        assertEquals(1L, confirmations.get("failed"));
+        Map<String, Object> smtpStats = (Map<String, Object>) snapshot.get("smtp");
+        assertEquals(1L, smtpStats.get("connectionsOpened"));
+        assertEquals(2.0, smtpStats.get("messagesPerConnection"));
+    }
+
+    @Test
+    void campaignBatchIsSpreadOverThePoolAtTheConfiguredRate() throws Exception {
+        MailDispatcher limited = dispatcher(100, 2, 20);
+        try {
+            long start = System.nanoTime();
+            assertTrue(limited.sendCampaign(messages(10)).isEmpty());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(10, smtp.received().size());
+            assertEquals(2, smtp.connections());
+            assertTrue(elapsedMs >= 400, "10 messages at 20/s took only " + elapsedMs + " ms");
+        } finally {
+            limited.close();
+        }
+    }
+
+    @Test
+    void campaignFailuresArePerMessage() throws Exception {
+        smtp.rejectRecipient("gone@example.com");
+        MimeMessage bad = message("gone@example.com");
+        List<MimeMessage> batch = new ArrayList<>(messages(3));
+        batch.add(1, bad);
+
+        Map<MimeMessage, Exception> failures = dispatcher.sendCampaign(batch);
+
+        assertEquals(1, failures.size());
+        assertInstanceOf(PermanentDeliveryException.class, failures.get(bad));
+        assertEquals(3, smtp.received().size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class MailTemplateTest {
+
+    private final MailTemplates templates =
+        new MailTemplates(new DefaultResourceLoader(), "classpath:mail-templates/", false);
+    private final EmailService emailService =
+        new EmailService(mock(MailDispatcher.class), templates, "bakery@example.com");
+
+    @Test
+    void rendersSlotsEscapingTextButNotHtml() {
+        MailTemplate template = MailTemplate.parse("t", """
+            <div>
+              <!--# comments and indentation are dropped -->
+              <p>Hi {{name}}!</p>{{{extra}}}
+              <p>Bye {{name}}</p>
+            </div>
+            """);
+
+        String html = template.fill().text("name", "A & <B>").html("extra", "<hr>").render();
+
+        assertEquals("<div><p>Hi A &amp; &lt;B&gt;!</p><hr><p>Bye A &amp; &lt;B&gt;</p></div>", html);
+        assertEquals("<div><p>Hi !</p><p>Bye </p></div>", template.fill().render());
+    }
+
+    @Test
+    void slotsAreTyped() {
+        MailTemplate template = MailTemplate.parse("t", "{{name}}{{{extra}}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.fill().html("name", "<b>"));
+        assertThrows(IllegalArgumentException.class, () -> template.fill().text("extra", "x"));
+        assertThrows(IllegalArgumentException.class, () -> template.fill().text("missing", "x"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.parse("t", "{{a}}{{{a}}}"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.parse("t", "{{a"));
+    }
+
+    @Test
+    void templatesRenderTheSameHtmlAsTheOldBuilders() {
+        for (OrderEntity.PaymentMethod method : OrderEntity.PaymentMethod.values()) {
+            OrderEntity order = EmailTemplateBenchmark.sampleOrder(method, 3);
+            assertEquals(EmailTemplateBenchmark.Legacy.orderHtml(order), emailService.orderHtml(order), method.name());
+
+            order.setOrderNotes(null);
+            order.setOrderItems(null);
+            order.setShippingFee(new BigDecimal("40.00"));
+            assertEquals(EmailTemplateBenchmark.Legacy.orderHtml(order), emailService.orderHtml(order), method.name());
+        }
+        assertEquals(EmailTemplateBenchmark.Legacy.buildWelcomeHtml("Asha & co"), emailService.welcomeHtml("Asha & co"));
+    }
+
+    @Test
+    void changedTemplateFileIsReloaded(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("hello.html");
+        Files.writeString(file, "<p>Hello {{name}}</p>");
+        MailTemplates reloading = new MailTemplates(new DefaultResourceLoader(), dir.toUri().toString(), true);
+        assertEquals("<p>Hello Asha</p>", reloading.get("hello").fill().text("name", "Asha").render());
+
+        Files.writeString(file, "<p>Welcome back {{name}}</p>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        assertEquals("<p>Welcome back Asha</p>", reloading.get("hello").fill().text("name", "Asha").render());
+
+        // A broken edit keeps the last good version
+        Files.writeString(file, "<p>Oops {{name</p>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        assertEquals("<p>Welcome back Asha</p>", reloading.get("hello").fill().text("name", "Asha").render());
+    }
+}
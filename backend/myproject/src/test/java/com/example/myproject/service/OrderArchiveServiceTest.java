@@ -0,0 +1,145 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.entity.*;
+import com.example.myproject.repository.ArchivedOrderRepository;
+import com.example.myproject.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "orders.archive.chunk-size=4",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(OrderArchiveService.class)
+class OrderArchiveServiceTest {
+
+    @Autowired private TestEntityManager em;
+    @Autowired private OrderArchiveService archiveService;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void movesOnlyOldFinishedOrdersAndReadsThemBack() {
+        UserEntity user = new UserEntity();
+        user.setFullName("Archie");
+        user.setEmail("archie@example.com");
+        user.setPassword("secret");
+        em.persist(user);
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Baguette");
+        product.setPrice(new BigDecimal("2.00"));
+        product.setCategory("Bread");
+        product.setStockQuantity(10);
+        em.persist(product);
+
+        LocalDateTime old = LocalDateTime.now().minusMonths(8);
+        for (int i = 0; i < 10; i++) {
+            persistOrder(user, product, "OLD-DELIVERED-" + i, OrderEntity.OrderStatus.DELIVERED, old);
+        }
+        persistOrder(user, product, "OLD-PENDING", OrderEntity.OrderStatus.PENDING, old);
+        persistOrder(user, product, "NEW-DELIVERED", OrderEntity.OrderStatus.DELIVERED, LocalDateTime.now());
+        em.flush();
+        em.clear();
+
+        archiveService.archiveOldOrders();
+        em.clear();
+
+        assertEquals(10, archivedOrderRepository.count());
+        List<String> stillHot = orderRepository.findAll().stream().map(OrderEntity::getOrderNumber).sorted().toList();
+        assertEquals(List.of("NEW-DELIVERED", "OLD-PENDING"), stillHot);
+        assertEquals(0L, em.getEntityManager()
+            .createQuery("SELECT COUNT(i) FROM OrderItemEntity i WHERE i.order.orderNumber LIKE 'OLD-DELIVERED-%'", Long.class)
+            .getSingleResult());
+
+        OrderDTO restored = archiveService.findByOrderNumber("OLD-DELIVERED-3").orElseThrow();
+        assertEquals("DELIVERED", restored.getStatus());
+        assertEquals("archie@example.com", restored.getCustomerEmail());
+        assertEquals(2, restored.getOrderItems().size());
+        assertEquals(product.getProductId(), restored.getOrderItems().get(0).getProductId());
+        assertEquals(0, new BigDecimal("4.00").compareTo(restored.getFinalAmount()));
+
+        assertEquals(10, archiveService.findForUser(user.getUserId()).size());
+    }
+
+    @Test
+    void archiveCopiesAreInsertedWithoutAReadPerRow() {
+        UserEntity user = new UserEntity();
+        user.setFullName("Archie");
+        user.setEmail("archie@example.com");
+        user.setPassword("secret");
+        em.persist(user);
+
+        ProductEntity product = new ProductEntity();
+        product.setName("Baguette");
+        product.setPrice(new BigDecimal("2.00"));
+        product.setCategory("Bread");
+        product.setStockQuantity(10);
+        em.persist(product);
+
+        LocalDateTime old = LocalDateTime.now().minusMonths(8);
+        for (int i = 0; i < 4; i++) {
+            persistOrder(user, product, "OLD-" + i, OrderEntity.OrderStatus.DELIVERED, old);
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(4, archiveService.archiveChunk(old.plusDays(1)));
+        // ids, orders (with items and customer), one batched insert, two deletes: no merge SELECT per copy
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(4, archivedOrderRepository.count());
+    }
+
+    private void persistOrder(UserEntity user, ProductEntity product, String number,
+                              OrderEntity.OrderStatus status, LocalDateTime createdAt) {
+        OrderEntity order = new OrderEntity();
+        order.setUser(user);
+        order.setOrderNumber(number);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal("4.00"));
+        order.setFinalAmount(new BigDecimal("4.00"));
+        order.setShippingName("Archie");
+        order.setShippingPhone("9999999999");
+        order.setShippingAddress("1 Old Road");
+        order.setShippingCity("Pune");
+        order.setShippingState("MH");
+        order.setShippingPincode("411001");
+        for (int i = 0; i < 2; i++) {
+            OrderItemEntity item = new OrderItemEntity();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductName("Baguette");
+            item.setQuantity(1);
+            item.setPriceAtPurchase(new BigDecimal("2.00"));
+            item.setSubtotal(new BigDecimal("2.00"));
+            order.getOrderItems().add(item);
+        }
+        em.persist(order);
+        em.flush();
+        // @PrePersist stamps "now"; backdate afterwards
+        em.getEntityManager().createQuery("UPDATE OrderEntity o SET o.createdAt = :at WHERE o.orderId = :id")
+            .setParameter("at", createdAt)
+            .setParameter("id", order.getOrderId())
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OrderItemEntity;
+import com.example.myproject.entity.ProductEntity;
+import com.example.myproject.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "orders.export.fetch-size=50",
+    "orders.export.flush-every=7"
+})
+@Import(OrderExportService.class)
+class OrderExportServiceTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Test
+    void writesOneQuotedRowPerItemAcrossPersistenceContextClears() throws IOException {
+        seed(12, 2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeCsv(out, null, null);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertTrue(lines[0].startsWith("order_number,"));
+        assertEquals(1 + 12 * 2, lines.length);
+        assertTrue(lines[1].contains("\"Smith, Jane\""));
+        assertTrue(lines[1].contains("'=cmd"));
+    }
+
+    @Test
+    void clientDisconnectSurfacesAsIOException() {
+        seed(5, 1);
+
+        OutputStream broken = new OutputStream() {
+            @Override public void write(int b) throws IOException { throw new IOException("Broken pipe"); }
+            @Override public void write(byte[] b, int off, int len) throws IOException { throw new IOException("Broken pipe"); }
+        };
+        assertThrows(IOException.class, () -> exportService.writeCsv(broken, null, null));
+    }
+
+    private void seed(int orders, int itemsPerOrder) {
+        ProductEntity product = new ProductEntity();
+        product.setName("Croissant");
+        product.setPrice(new BigDecimal("3.50"));
+        product.setCategory("Pastry");
+        product.setStockQuantity(100);
+        em.persist(product);
+
+        UserEntity user = new UserEntity();
+        user.setFullName("Smith, Jane");
+        user.setEmail("jane@example.com");
+        user.setPassword("secret");
+        em.persist(user);
+
+        for (int o = 0; o < orders; o++) {
+            OrderEntity order = new OrderEntity();
+            order.setUser(user);
+            order.setOrderNumber("ORD-EXPORT-" + o);
+            order.setTotalAmount(new BigDecimal("7.00"));
+            order.setFinalAmount(new BigDecimal("7.00"));
+            order.setShippingName("=cmd");
+            order.setShippingPhone("9999999999");
+            order.setShippingAddress("12 Baker Street");
+            order.setShippingCity("Pune");
+            order.setShippingState("MH");
+            order.setShippingPincode("411001");
+            for (int i = 0; i < itemsPerOrder; i++) {
+                OrderItemEntity item = new OrderItemEntity();
+                item.setOrder(order);
+                item.setProduct(product);
+                item.setProductName("Croissant");
+                item.setQuantity(2);
+                item.setPriceAtPurchase(new BigDecimal("3.50"));
+                item.setSubtotal(new BigDecimal("7.00"));
+                order.getOrderItems().add(item);
+            }
+            em.persist(order);
+        }
+        em.flush();
+        em.clear();
+    }
+}
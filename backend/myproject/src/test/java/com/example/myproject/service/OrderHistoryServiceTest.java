@@ -0,0 +1,52 @@
+package com.example.myproject.service;
+
+import com.example.myproject.dto.OrderDTO;
+import com.example.myproject.dto.OrderSummaryDTO;
+import com.example.myproject.event.OrderChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderHistoryServiceTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderHistoryService history = new OrderHistoryService(orderService, 100, 10);
+
+    private static OrderDTO order(long id) {
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(id);
+        dto.setOrderNumber("ORD-" + id);
+        dto.setOrderItems(List.of());
+        return dto;
+    }
+
+    @Test
+    void repeatVisitsAreServedFromTheCache() {
+        when(orderService.getUserOrders("a@x.com")).thenReturn(List.of(order(1)));
+
+        assertEquals(1, history.getOrders("a@x.com").size());
+        assertEquals(1, history.getOrders("a@x.com").size());
+        List<OrderSummaryDTO> summaries = history.getSummaries("a@x.com");
+
+        assertEquals("ORD-1", summaries.get(0).getOrderNumber());
+        verify(orderService, times(1)).getUserOrders("a@x.com");
+    }
+
+    @Test
+    void changeEventInvalidatesOnlyThatCustomer() {
+        when(orderService.getUserOrders("a@x.com")).thenReturn(List.of(order(1)), List.of(order(2), order(1)));
+        when(orderService.getUserOrders("b@x.com")).thenReturn(List.of(order(3)));
+        history.getOrders("a@x.com");
+        history.getOrders("b@x.com");
+
+        history.onOrderChanged(new OrderChangedEvent(2L, 1L, "a@x.com", "ORD-2", null, null));
+
+        assertEquals(2, history.getOrders("a@x.com").size());
+        history.getOrders("b@x.com");
+        verify(orderService, times(2)).getUserOrders("a@x.com");
+        verify(orderService, times(1)).getUserOrders("b@x.com");
+    }
+}
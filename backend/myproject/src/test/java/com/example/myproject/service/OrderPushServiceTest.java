@@ -0,0 +1,230 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity.OrderStatus;
+import com.example.myproject.entity.OrderEntity.PaymentStatus;
+import com.example.myproject.event.OrderChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPushServiceTest {
+
+    private final OrderPushService push = new OrderPushService(60_000, 2, 10, 60_000, 3000, 2, 3);
+
+    /** Captures the raw SSE text of every send instead of writing to a response. */
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> frames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            frames.add(builder.build().stream()
+                .map(d -> String.valueOf(d.getData()))
+                .collect(Collectors.joining()));
+        }
+
+        List<String> named(String event) {
+            return frames.stream().filter(f -> f.contains("event:" + event + "\n")).toList();
+        }
+
+        String lastId() {
+            String id = null;
+            for (String f : frames) {
+                Matcher m = Pattern.compile("id:(\\S+)").matcher(f);
+                if (m.find()) id = m.group(1);
+            }
+            return id;
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        push.shutdown();
+    }
+
+    private void change(long orderId, long userId, OrderStatus status) {
+        push.onOrderChanged(new OrderChangedEvent(orderId, userId, "user" + userId + "@x.com", "ORD-" + orderId,
+            status, PaymentStatus.PAID));
+    }
+
+    @Test
+    void eventsReachEveryTabOfThatUserOnly() throws Exception {
+        RecordingEmitter tab1 = new RecordingEmitter();
+        RecordingEmitter tab2 = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        push.register(1L, null, tab1);
+        push.register(1L, null, tab2);
+        push.register(2L, null, other);
+
+        change(7, 1L, OrderStatus.SHIPPED);
+        push.awaitDispatch();
+
+        assertEquals(1, tab1.named("order").size());
+        assertTrue(tab1.named("order").get(0).contains("status=SHIPPED"));
+        assertEquals(1, tab2.named("order").size());
+        assertTrue(other.named("order").isEmpty());
+    }
+
+    @Test
+    void tabsOfTheSameUserGetIdenticalFramesWhenWrittenInParallel() throws Exception {
+        // Enough room that neither tab is dropped for falling behind
+        OrderPushService roomy = new OrderPushService(60_000, 50, 10, 60_000, 3000, 2, 100);
+        try {
+            RecordingEmitter tab1 = new RecordingEmitter();
+            RecordingEmitter tab2 = new RecordingEmitter();
+            roomy.register(1L, null, tab1);
+            roomy.register(1L, null, tab2);
+
+            for (long i = 1; i <= 50; i++) {
+                roomy.onOrderChanged(new OrderChangedEvent(i, 1L, "user1@x.com", "ORD-" + i,
+                    OrderStatus.CONFIRMED, PaymentStatus.PAID));
+            }
+            roomy.awaitDispatch();
+
+            // A shared builder grows a blank line per send, or fails when both writers build it at once
+            assertEquals(50, tab1.named("order").size());
+            assertEquals(tab1.named("order"), tab2.named("order"));
+            tab1.named("order").forEach(f -> assertTrue(f.endsWith("}\n\n"), f));
+        } finally {
+            roomy.shutdown();
+        }
+    }
+
+    /** Send blows up with something other than an I/O error. */
+    static class BrokenEmitter extends RecordingEmitter {
+        volatile Throwable failedWith;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            throw new UnsupportedOperationException("broken converter");
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failedWith = ex;
+        }
+    }
+
+    @Test
+    void anUnexpectedWriteErrorClosesThatStream() throws Exception {
+        BrokenEmitter broken = new BrokenEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        push.register(1L, null, broken);
+        push.register(1L, null, other);
+        change(1, 1L, OrderStatus.CONFIRMED);
+        push.awaitDispatch();
+
+        assertInstanceOf(UnsupportedOperationException.class, broken.failedWith);
+        assertEquals(1, other.named("order").size());
+    }
+
+    @Test
+    void reconnectReplaysOnlyWhatWasMissed() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        push.register(1L, null, first);
+        change(1, 1L, OrderStatus.CONFIRMED);
+        push.awaitDispatch();
+        String seen = first.lastId();
+
+        first.complete();
+        change(1, 1L, OrderStatus.SHIPPED);
+        push.awaitDispatch();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        push.register(1L, seen, resumed);
+        push.awaitDispatch();
+
+        List<String> replayed = resumed.named("order");
+        assertEquals(1, replayed.size());
+        assertTrue(replayed.get(0).contains("SHIPPED"));
+        assertTrue(resumed.named("resync").isEmpty());
+    }
+
+    @Test
+    void resumeBeyondTheBufferAsksForResync() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        push.register(1L, null, first);
+        change(1, 1L, OrderStatus.CONFIRMED);
+        push.awaitDispatch();
+        String seen = first.lastId();
+
+        // Buffer holds 2 events, so the one right after "seen" is evicted
+        change(2, 1L, OrderStatus.CONFIRMED);
+        change(3, 1L, OrderStatus.CONFIRMED);
+        change(4, 1L, OrderStatus.CONFIRMED);
+        push.awaitDispatch();
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        push.register(1L, seen, resumed);
+        push.awaitDispatch();
+
+        assertEquals(1, resumed.named("resync").size());
+        assertTrue(resumed.named("order").isEmpty());
+    }
+
+    @Test
+    void unknownOrStaleEventIdAsksForResync() throws Exception {
+        RecordingEmitter tab = new RecordingEmitter();
+        push.register(1L, "previous-boot-42", tab);
+        push.awaitDispatch();
+
+        assertEquals(1, tab.named("resync").size());
+    }
+
+    /** A client that has stopped reading: every send blocks until released. */
+    static class StalledEmitter extends RecordingEmitter {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.send(builder);
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void aStalledClientDoesNotHoldUpOtherUsersAndIsDroppedWhenItFallsBehind() throws Exception {
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        push.register(1L, null, stalled);
+        push.register(2L, null, other);
+        // The writer is stuck on the "connected" frame before any order change arrives
+        assertTrue(stalled.entered.await(2, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 5; i++) change(i, 1L, OrderStatus.CONFIRMED);
+        change(9, 2L, OrderStatus.SHIPPED);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (other.named("order").isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(1, other.named("order").size());
+        assertFalse(stalled.completed);
+
+        // More than 3 frames queued behind the blocked write: the stream is closed once it unblocks
+        stalled.release.countDown();
+        push.awaitDispatch();
+        assertTrue(stalled.completed);
+        assertTrue(stalled.named("order").isEmpty());
+    }
+}
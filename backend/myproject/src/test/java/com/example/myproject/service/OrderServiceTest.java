@@ -0,0 +1,53 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.repository.OrderRepository;
+import com.example.myproject.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final CheckoutService checkoutService = mock(CheckoutService.class);
+    private final OrderService orderService =
+        new OrderService(orderRepository, mock(UserRepository.class), checkoutService);
+
+    private OrderEntity order(OrderEntity.OrderStatus status, OrderEntity.PaymentStatus paymentStatus) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(1L);
+        order.setStatus(status);
+        order.setPaymentStatus(paymentStatus);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        return order;
+    }
+
+    @Test
+    void adminCannotCancelAShippedOrderBackIntoStock() {
+        OrderEntity order = order(OrderEntity.OrderStatus.SHIPPED, OrderEntity.PaymentStatus.PAID);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> orderService.updateOrderStatus(1L, "CANCELLED", null));
+
+        assertEquals("Cannot move order from SHIPPED to CANCELLED", e.getMessage());
+        assertEquals(OrderEntity.OrderStatus.SHIPPED, order.getStatus());
+        verify(checkoutService, never()).releaseStock(any(OrderEntity.class));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void anInvalidPaymentMoveLeavesTheStatusAloneToo() {
+        OrderEntity order = order(OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.REFUNDED);
+
+        assertThrows(RuntimeException.class,
+            () -> orderService.updateOrderStatus(1L, "CANCELLED", "PAID"));
+
+        assertEquals(OrderEntity.OrderStatus.CONFIRMED, order.getStatus());
+        verify(checkoutService, never()).releaseStock(any(OrderEntity.class));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity.OrderStatus;
+import com.example.myproject.entity.OrderEntity.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateMachineTest {
+
+    @Test
+    void deliveryFlowIsAllowedButNotBackwards() {
+        assertTrue(OrderStateMachine.canMove(OrderStatus.CONFIRMED, OrderStatus.DELIVERED));
+        assertTrue(OrderStateMachine.canMove(OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+        assertFalse(OrderStateMachine.canMove(OrderStatus.DELIVERED, OrderStatus.SHIPPED));
+        assertFalse(OrderStateMachine.canMove(OrderStatus.CANCELLED, OrderStatus.DELIVERED));
+        assertFalse(OrderStateMachine.canMove(OrderStatus.SHIPPED, OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void sameStatusIsANoOpForEveryValue() {
+        for (OrderStatus s : OrderStatus.values()) assertTrue(OrderStateMachine.canMove(s, s));
+        for (PaymentStatus s : PaymentStatus.values()) assertTrue(OrderStateMachine.canMove(s, s));
+    }
+
+    @Test
+    void paymentCanOnlyBeRefundedOncePaid() {
+        assertTrue(OrderStateMachine.canMove(PaymentStatus.PENDING, PaymentStatus.PAID));
+        assertTrue(OrderStateMachine.canMove(PaymentStatus.PAID, PaymentStatus.REFUNDED));
+        assertFalse(OrderStateMachine.canMove(PaymentStatus.PENDING, PaymentStatus.REFUNDED));
+        assertFalse(OrderStateMachine.canMove(PaymentStatus.REFUNDED, PaymentStatus.PAID));
+    }
+}
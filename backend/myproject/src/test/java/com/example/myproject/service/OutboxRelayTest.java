@@ -0,0 +1,266 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OutboxEventEntity;
+import com.example.myproject.exception.PermanentDeliveryException;
+import com.example.myproject.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "outbox.relay.batch-size=10",
+    "outbox.relay.max-attempts=2",
+    "outbox.relay.dispatch-chunk-size=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OutboxService.class, OutboxRelay.class, OutboxRelayTest.Handlers.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    static final List<String> delivered = new CopyOnWriteArrayList<>();
+    static final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class Handlers {
+        @Bean
+        OutboxEventHandler okHandler() {
+            return new OutboxEventHandler() {
+                public String eventType() { return "OK"; }
+                public void handle(OutboxEventEntity event) { delivered.add(event.getEventKey()); }
+            };
+        }
+
+        @Bean
+        OutboxEventHandler failingHandler() {
+            return new OutboxEventHandler() {
+                public String eventType() { return "FAIL"; }
+                public void handle(OutboxEventEntity event) throws Exception { throw new Exception("SMTP down"); }
+            };
+        }
+
+        @Bean
+        OutboxEventHandler permanentHandler() {
+            return new OutboxEventHandler() {
+                public String eventType() { return "PERM"; }
+                public void handle(OutboxEventEntity event) {
+                    throw new PermanentDeliveryException("550 mailbox unavailable", null);
+                }
+            };
+        }
+
+        @Bean
+        OutboxEventHandler batchHandler() {
+            return new OutboxEventHandler() {
+                public String eventType() { return "BATCH"; }
+                public void handle(OutboxEventEntity event) { throw new UnsupportedOperationException(); }
+
+                @Override
+                public Map<Long, Exception> handleAll(List<OutboxEventEntity> events) {
+                    batchSizes.add(events.size());
+                    Map<Long, Exception> failures = new HashMap<>();
+                    for (OutboxEventEntity event : events) {
+                        if (event.getAggregateId() % 2 == 0) failures.put(event.getId(), new Exception("4xx"));
+                        else delivered.add(event.getEventKey());
+                    }
+                    return failures;
+                }
+            };
+        }
+
+        @Bean
+        OutboxEventHandler welcomeHandler() {
+            return recording(OutboxService.WELCOME_EMAIL);
+        }
+
+        @Bean
+        OutboxEventHandler confirmationHandler() {
+            return recording(OutboxService.ORDER_CONFIRMATION);
+        }
+
+        private static OutboxEventHandler recording(String type) {
+            return new OutboxEventHandler() {
+                public String eventType() { return type; }
+                public void handle(OutboxEventEntity event) { delivered.add(event.getEventKey()); }
+            };
+        }
+
+        // Plays a second relay: during the first chunk it takes over steal:2 and steal:4 as if their lease had lapsed
+        @Bean
+        OutboxEventHandler stealingHandler(JdbcTemplate jdbcTemplate) {
+            return new OutboxEventHandler() {
+                public String eventType() { return "STEAL"; }
+                public void handle(OutboxEventEntity event) {
+                    if (event.getEventKey().equals("steal:1")) {
+                        jdbcTemplate.update("UPDATE outbox_events SET claim_token = 'other-relay' " +
+                            "WHERE event_key IN ('steal:2', 'steal:4')");
+                    }
+                    delivered.add(event.getEventKey());
+                }
+            };
+        }
+    }
+
+    @Autowired private OutboxService outboxService;
+    @Autowired private OutboxRelay relay;
+    @Autowired private OutboxEventRepository repository;
+    @Autowired private TransactionTemplate tx;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+        delivered.clear();
+        batchSizes.clear();
+    }
+
+    @Test
+    void duplicateKeysAreRecordedOnceAndDeliveredOnce() {
+        tx.executeWithoutResult(s -> {
+            outboxService.enqueue("OK", "order-confirmation:1", 1L, null);
+            outboxService.enqueue("OK", "order-confirmation:1", 1L, null);
+            outboxService.enqueue("OK", "order-confirmation:2", 2L, null);
+        });
+        assertEquals(2, repository.count());
+
+        relay.poll();
+        relay.poll();
+
+        assertEquals(List.of("order-confirmation:1", "order-confirmation:2"), delivered);
+        repository.findAll().forEach(e -> assertEquals(OutboxEventEntity.Status.SENT, e.getStatus()));
+    }
+
+    @Test
+    void rolledBackTransactionLeavesNoEvent() {
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(s -> {
+            outboxService.enqueue("OK", "order-confirmation:3", 3L, null);
+            throw new IllegalStateException("checkout failed");
+        }));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void enqueueOutsideATransactionIsRejected() {
+        assertThrows(Exception.class, () -> outboxService.enqueue("OK", "k", 1L, null));
+    }
+
+    @Test
+    void failuresBackOffThenGoDead() {
+        tx.executeWithoutResult(s -> outboxService.enqueue("FAIL", "fail:1", 1L, null));
+
+        relay.poll();
+        OutboxEventEntity afterFirst = repository.findAll().get(0);
+        assertEquals(OutboxEventEntity.Status.PENDING, afterFirst.getStatus());
+        assertEquals(1, afterFirst.getAttempts());
+        assertTrue(afterFirst.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(afterFirst.getLastError());
+
+        // Not due yet, so a second poll does nothing
+        relay.poll();
+        assertEquals(1, repository.findAll().get(0).getAttempts());
+
+        // Make it due again; the second failure reaches max-attempts
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?",
+            LocalDateTime.now().minusSeconds(1), afterFirst.getId());
+        relay.poll();
+        assertEquals(OutboxEventEntity.Status.DEAD, repository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    void pollDrainsMoreThanOneBatch() {
+        tx.executeWithoutResult(s -> {
+            for (int i = 0; i < 25; i++) outboxService.enqueue("OK", "bulk:" + i, (long) i, null);
+        });
+        relay.poll();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) expected.add("bulk:" + i);
+        assertEquals(expected, delivered);
+    }
+
+    @Test
+    void permanentFailureGoesDeadOnFirstAttempt() {
+        tx.executeWithoutResult(s -> outboxService.enqueue("PERM", "perm:1", 1L, null));
+
+        relay.poll();
+
+        OutboxEventEntity event = repository.findAll().get(0);
+        assertEquals(OutboxEventEntity.Status.DEAD, event.getStatus());
+        assertEquals(1, event.getAttempts());
+    }
+
+    @Test
+    void batchHandlerGetsTheWholeGroupAndFailuresArePerEvent() {
+        tx.executeWithoutResult(s -> {
+            for (int i = 1; i <= 4; i++) outboxService.enqueue("BATCH", "batch:" + i, (long) i, null);
+            outboxService.enqueue("OK", "ok:1", 1L, null);
+        });
+
+        relay.poll();
+
+        // One handler call per dispatch chunk (3 here)
+        assertEquals(List.of(3, 1), batchSizes);
+        assertEquals(List.of("batch:1", "batch:3", "ok:1"), delivered.stream().sorted().toList());
+        Map<String, OutboxEventEntity.Status> status = new HashMap<>();
+        repository.findAll().forEach(e -> status.put(e.getEventKey(), e.getStatus()));
+        assertEquals(OutboxEventEntity.Status.SENT, status.get("batch:1"));
+        assertEquals(OutboxEventEntity.Status.PENDING, status.get("batch:2"));
+        assertEquals(OutboxEventEntity.Status.SENT, status.get("batch:3"));
+        assertEquals(OutboxEventEntity.Status.PENDING, status.get("batch:4"));
+    }
+
+    @Test
+    void rowsTakenOverByAnotherRelayAreNeitherSentNorOverwritten() {
+        tx.executeWithoutResult(s -> {
+            for (int i = 1; i <= 4; i++) outboxService.enqueue("STEAL", "steal:" + i, (long) i, null);
+        });
+
+        relay.relayBatch();
+
+        // steal:2 was already in the running chunk; steal:4 was dropped when the lease was renewed
+        assertEquals(List.of("steal:1", "steal:2", "steal:3"), delivered);
+        Map<String, OutboxEventEntity> byKey = new HashMap<>();
+        repository.findAll().forEach(e -> byKey.put(e.getEventKey(), e));
+        assertEquals(OutboxEventEntity.Status.SENT, byKey.get("steal:1").getStatus());
+        assertEquals(OutboxEventEntity.Status.SENT, byKey.get("steal:3").getStatus());
+        for (String taken : List.of("steal:2", "steal:4")) {
+            assertEquals(OutboxEventEntity.Status.PROCESSING, byKey.get(taken).getStatus());
+            assertEquals("other-relay", byKey.get(taken).getClaimToken());
+        }
+    }
+
+    @Test
+    void orderConfirmationsAreClaimedAheadOfAWelcomeBacklog() {
+        tx.executeWithoutResult(s -> {
+            for (long i = 1; i <= 12; i++) outboxService.welcomeEmail(i);
+            outboxService.enqueue(OutboxService.ORDER_CONFIRMATION, "order-confirmation:99", 99L, null);
+        });
+
+        relay.relayBatch();
+
+        assertEquals(10, delivered.size());
+        assertEquals("order-confirmation:99", delivered.get(0));
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.PaymentEventEntity;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.repository.OrderRepository;
+import com.example.myproject.repository.PaymentEventRepository;
+import com.example.myproject.repository.UserRepository;
+import com.razorpay.RazorpayException;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:payment_events;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "razorpay.key.id=rzp_test_key",
+    "razorpay.key.secret=rzp_test_secret",
+    "razorpay.webhook.secret=" + PaymentEventServiceTest.WEBHOOK_SECRET,
+    "payments.events.max-attempts=2",
+    "payments.reconcile.page-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PaymentEventService.class, PaymentReconciliationJob.class, RazorpayService.class, RazorpayGateway.class,
+    RazorpaySignatureVerifier.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentEventServiceTest {
+
+    static final String WEBHOOK_SECRET = "whsec_test";
+
+    /** Local stand-in for Razorpay's GET /v1/payments, serving whatever {@link #payments} holds. */
+    private static final HttpServer gateway;
+    private static volatile String payments = "[]";
+
+    static {
+        try {
+            gateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        gateway.createContext("/v1/payments", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            int skip = Integer.parseInt(query.replaceAll(".*skip=(\\d+).*", "$1"));
+            int count = Integer.parseInt(query.replaceAll(".*count=(\\d+).*", "$1"));
+            JSONArray page = new JSONArray();
+            try {
+                JSONArray all = new JSONArray(payments);
+                for (int i = skip; i < Math.min(all.length(), skip + count); i++) page.put(all.get(i));
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            byte[] body = ("{\"entity\":\"collection\",\"count\":" + page.length() + ",\"items\":" + page + "}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        gateway.start();
+    }
+
+    @DynamicPropertySource
+    static void gatewayUrl(DynamicPropertyRegistry registry) {
+        registry.add("razorpay.api.base-url", () -> "http://127.0.0.1:" + gateway.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopGateway() {
+        gateway.stop(0);
+    }
+
+    @Autowired private PaymentEventService paymentEventService;
+    @Autowired private PaymentReconciliationJob reconciliationJob;
+    @Autowired private RazorpayService razorpayService;
+    @Autowired private PaymentEventRepository paymentEventRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @MockBean private SalesRollupService salesRollupService;
+    @MockBean private OutboxService outboxService;
+    @MockBean private CheckoutService checkoutService;
+
+    @AfterEach
+    void cleanUp() {
+        paymentEventRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        payments = "[]";
+    }
+
+    private OrderEntity pendingOrder(String razorpayOrderId, LocalDateTime createdAt) {
+        UserEntity user = userRepository.findByEmail("buyer@example.com").orElseGet(() -> {
+            UserEntity u = new UserEntity();
+            u.setFullName("Buyer");
+            u.setEmail("buyer@example.com");
+            u.setPassword("secret");
+            return userRepository.save(u);
+        });
+
+        OrderEntity order = new OrderEntity();
+        order.setUser(user);
+        order.setOrderNumber("ORD-" + razorpayOrderId);
+        order.setTotalAmount(new BigDecimal("20.00"));
+        order.setFinalAmount(new BigDecimal("20.00"));
+        order.setPaymentMethod(OrderEntity.PaymentMethod.RAZORPAY);
+        order.setRazorpayOrderId(razorpayOrderId);
+        order.setShippingName("Buyer");
+        order.setShippingPhone("9999999999");
+        order.setShippingAddress("1 Baker Street");
+        order.setShippingCity("Pune");
+        order.setShippingState("MH");
+        order.setShippingPincode("411001");
+        OrderEntity saved = orderRepository.save(order);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE order_id = ?", createdAt, saved.getOrderId());
+        return saved;
+    }
+
+    private static String webhook(String event, String paymentId, String razorpayOrderId) {
+        return "{\"event\":\"" + event + "\",\"payload\":{\"payment\":{\"entity\":{\"id\":\"" + paymentId
+            + "\",\"order_id\":\"" + razorpayOrderId + "\",\"status\":\"captured\"}}}}";
+    }
+
+    private static String sign(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private OrderEntity reload(OrderEntity order) {
+        return orderRepository.findById(order.getOrderId()).orElseThrow();
+    }
+
+    @Test
+    void signedWebhookIsStoredOnceAndMarksTheOrderPaid() throws Exception {
+        OrderEntity order = pendingOrder("order_wh1", LocalDateTime.now());
+        String body = webhook("payment.captured", "pay_wh1", "order_wh1");
+
+        assertTrue(paymentEventService.verifyWebhookSignature(body, sign(body)));
+        assertTrue(paymentEventService.ingestWebhook(body));
+        // Razorpay redelivers until it sees a 200; the payment id keeps it to one event
+        assertTrue(paymentEventService.ingestWebhook(body));
+        assertTrue(paymentEventService.ingestWebhook(webhook("order.paid", "pay_wh1", "order_wh1")));
+        assertEquals(1, paymentEventRepository.count());
+
+        assertEquals(1, paymentEventService.processBatch());
+        assertEquals(0, paymentEventService.processBatch());
+
+        OrderEntity paid = reload(order);
+        assertEquals(OrderEntity.PaymentStatus.PAID, paid.getPaymentStatus());
+        assertEquals(OrderEntity.OrderStatus.CONFIRMED, paid.getStatus());
+        assertEquals("pay_wh1", paid.getRazorpayPaymentId());
+        assertEquals(PaymentEventEntity.Status.PROCESSED, paymentEventRepository.findAll().get(0).getStatus());
+        verify(outboxService, times(1)).orderConfirmed(any());
+    }
+
+    @Test
+    void tamperedOrUnsignedWebhookIsRejected() throws Exception {
+        String body = webhook("payment.captured", "pay_x", "order_x");
+        String signature = sign(body);
+
+        assertFalse(paymentEventService.verifyWebhookSignature(body.replace("pay_x", "pay_y"), signature));
+        assertFalse(paymentEventService.verifyWebhookSignature(body, null));
+        assertFalse(paymentEventService.verifyWebhookSignature(body, "00" + signature.substring(2)));
+    }
+
+    @Test
+    void lateFailureWebhookDoesNotDowngradeAPaidOrder() throws Exception {
+        OrderEntity order = pendingOrder("order_wh2", LocalDateTime.now());
+        paymentEventService.ingestWebhook(webhook("payment.captured", "pay_ok", "order_wh2"));
+        paymentEventService.ingestWebhook(webhook("payment.failed", "pay_bad", "order_wh2"));
+
+        paymentEventService.processBatch();
+
+        assertEquals(OrderEntity.PaymentStatus.PAID, reload(order).getPaymentStatus());
+        assertTrue(paymentEventRepository.findAll().stream()
+            .allMatch(e -> e.getStatus() == PaymentEventEntity.Status.PROCESSED));
+    }
+
+    @Test
+    void eventForUnknownOrderIsRetriedThenParked() {
+        paymentEventService.ingestWebhook(webhook("payment.captured", "pay_ghost", "order_ghost"));
+
+        paymentEventService.processBatch();
+        PaymentEventEntity retried = paymentEventRepository.findAll().get(0);
+        assertEquals(PaymentEventEntity.Status.PENDING, retried.getStatus());
+        assertNotNull(retried.getLastError());
+
+        jdbcTemplate.update("UPDATE payment_events SET next_attempt_at = ?", LocalDateTime.now().minusSeconds(1));
+        paymentEventService.processBatch();
+        assertEquals(PaymentEventEntity.Status.FAILED, paymentEventRepository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    void reconciliationRecoversCapturesAndCancelsLongUnpaidOrders() {
+        OrderEntity captured = pendingOrder("order_r1", LocalDateTime.now().minusMinutes(40));
+        OrderEntity abandoned = pendingOrder("order_r2", LocalDateTime.now().minusHours(30));
+        OrderEntity fresh = pendingOrder("order_r3", LocalDateTime.now().minusMinutes(2));
+        payments = "[" +
+            "{\"id\":\"pay_other\",\"order_id\":\"order_elsewhere\",\"status\":\"captured\"}," +
+            "{\"id\":\"pay_r1_failed\",\"order_id\":\"order_r1\",\"status\":\"failed\"}," +
+            "{\"id\":\"pay_r1\",\"order_id\":\"order_r1\",\"status\":\"captured\"}," +
+            "{\"id\":\"pay_r3\",\"order_id\":\"order_r3\",\"status\":\"captured\"}]";
+
+        reconciliationJob.reconcile();
+
+        // Only the stale order's capture is recorded; the fresh one is left to the browser/webhook
+        List<PaymentEventEntity> events = paymentEventRepository.findAll();
+        assertEquals(1, events.size());
+        assertEquals("pay_r1", events.get(0).getRazorpayPaymentId());
+        assertEquals(PaymentEventService.SOURCE_RECONCILIATION, events.get(0).getSource());
+
+        paymentEventService.processBatch();
+        assertEquals(OrderEntity.PaymentStatus.PAID, reload(captured).getPaymentStatus());
+
+        OrderEntity cancelled = reload(abandoned);
+        assertEquals(OrderEntity.OrderStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(OrderEntity.PaymentStatus.FAILED, cancelled.getPaymentStatus());
+        verify(checkoutService).releaseStock(any(OrderEntity.class));
+
+        assertEquals(OrderEntity.PaymentStatus.PENDING, reload(fresh).getPaymentStatus());
+    }
+
+    @Test
+    void reconciliationCancelsNothingWhenTheGatewayListIsIncomplete() {
+        OrderEntity old = pendingOrder("order_r4", LocalDateTime.now().minusHours(30));
+        StringBuilder many = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) many.append(',');
+            many.append("{\"id\":\"pay_n").append(i).append("\",\"order_id\":\"order_n").append(i)
+                .append("\",\"status\":\"captured\"}");
+        }
+        payments = many.append(']').toString();
+
+        reconciliationJob.reconcile();
+
+        assertEquals(OrderEntity.OrderStatus.PENDING, reload(old).getStatus());
+        verify(checkoutService, never()).releaseStock(any(OrderEntity.class));
+    }
+
+    @Test
+    void failedRazorpayOrderCreationCancelsTheOrderAndReleasesItsStock() {
+        OrderEntity order = pendingOrder(null, LocalDateTime.now());
+
+        // The stand-in gateway serves no /v1/orders, so creating the Razorpay order fails
+        assertThrows(RazorpayException.class, () -> razorpayService.createRazorpayOrder(order));
+
+        OrderEntity cancelled = reload(order);
+        assertEquals(OrderEntity.OrderStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(OrderEntity.PaymentStatus.FAILED, cancelled.getPaymentStatus());
+        verify(checkoutService, times(1)).releaseStock(List.of(order.getOrderId()));
+    }
+
+    @Test
+    void reconciliationCancelsStaleOrdersThatNeverGotARazorpayOrder() {
+        OrderEntity stale = pendingOrder(null, LocalDateTime.now().minusMinutes(40));
+        OrderEntity started = pendingOrder("order_u1", LocalDateTime.now().minusMinutes(40));
+
+        reconciliationJob.reconcile();
+
+        assertEquals(OrderEntity.OrderStatus.CANCELLED, reload(stale).getStatus());
+        assertEquals(OrderEntity.OrderStatus.PENDING, reload(started).getStatus());
+        verify(checkoutService, times(1)).releaseStock(List.of(stale.getOrderId()));
+    }
+
+    @Test
+    void browserCallbackForACancelledOrderRecordsThePaymentWithoutConfirming() {
+        OrderEntity order = pendingOrder("order_c1", LocalDateTime.now());
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE order_id = ?", order.getOrderId());
+
+        OrderEntity result = razorpayService.updateOrderAfterPayment("order_c1", "pay_c1", "sig_c1");
+
+        assertEquals(OrderEntity.OrderStatus.CANCELLED, result.getStatus());
+        OrderEntity stored = reload(order);
+        assertEquals(OrderEntity.OrderStatus.CANCELLED, stored.getStatus());
+        assertEquals(OrderEntity.PaymentStatus.PAID, stored.getPaymentStatus());
+        assertEquals("pay_c1", stored.getRazorpayPaymentId());
+        assertTrue(stored.getOrderNotes().contains("refund required"));
+        verify(outboxService, never()).orderConfirmed(any());
+        verify(salesRollupService, never()).recordTransition(any(), anyBoolean());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.myproject.service;
+
+import com.razorpay.RazorpayException;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RazorpayGatewayTest {
+
+    /** Local stand-in for api.razorpay.com whose latency and status can be changed per test. */
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delayMs = 0;
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/orders", exchange -> {
+            hits.incrementAndGet();
+            try {
+                hold.await(5, TimeUnit.SECONDS);
+                if (delayMs > 0) Thread.sleep(delayMs);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status == 200
+                ? "{\"id\":\"order_stub123\",\"status\":\"created\"}"
+                : "{\"error\":{\"description\":\"stub error\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        hold.countDown();
+        server.stop(0);
+    }
+
+    private RazorpayGateway gateway(int maxConcurrent, int failureThreshold, long openMs) {
+        return new RazorpayGateway("http://127.0.0.1:" + server.getAddress().getPort(), "key", "secret",
+            1000, 300, maxConcurrent, 50, failureThreshold, openMs);
+    }
+
+    private static JSONObject order() throws Exception {
+        return new JSONObject().put("amount", 1000).put("currency", "INR").put("receipt", "ORD-1");
+    }
+
+    @Test
+    void returnsTheCreatedOrder() throws Exception {
+        assertEquals("order_stub123", gateway(5, 3, 10_000).createOrder(order()).getString("id"));
+    }
+
+    @Test
+    void slowGatewayTimesOutAndOpensTheCircuit() {
+        RazorpayGateway gateway = gateway(5, 2, 10_000);
+        delayMs = 1000;
+
+        assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertEquals(RazorpayGateway.CircuitState.OPEN, gateway.circuitState());
+
+        // Open circuit fails fast without touching the gateway
+        int before = hits.get();
+        long start = System.nanoTime();
+        assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertEquals(before, hits.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void trialCallClosesTheCircuitOnceTheGatewayRecovers() throws Exception {
+        RazorpayGateway gateway = gateway(5, 1, 100);
+        status = 503;
+        assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertEquals(RazorpayGateway.CircuitState.OPEN, gateway.circuitState());
+
+        status = 200;
+        Thread.sleep(150);
+        assertEquals("order_stub123", gateway.createOrder(order()).getString("id"));
+        assertEquals(RazorpayGateway.CircuitState.CLOSED, gateway.circuitState());
+    }
+
+    @Test
+    void clientErrorsDoNotTripTheBreaker() {
+        RazorpayGateway gateway = gateway(5, 1, 10_000);
+        status = 400;
+
+        RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertTrue(e.getMessage().contains("stub error"));
+        assertEquals(RazorpayGateway.CircuitState.CLOSED, gateway.circuitState());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        RazorpayGateway gateway = gateway(1, 10, 10_000);
+        hold = new CountDownLatch(1);
+
+        Thread busy = new Thread(() -> {
+            try {
+                gateway.createOrder(order());
+            } catch (Exception ignored) {
+            }
+        });
+        busy.start();
+        while (hits.get() == 0) Thread.sleep(5);
+
+        RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.createOrder(order()));
+        assertTrue(e.getMessage().contains("busy"));
+        assertEquals(1, hits.get());
+
+        hold.countDown();
+        busy.join();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.myproject.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-verification latency and allocation of the checkout signature check:
+ * the old per-call Mac/StringBuilder path against {@link RazorpaySignatureVerifier}.
+ *
+ * Run (allocation shows up as gc.alloc.rate.norm, bytes per op):
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.example.myproject.service.RazorpaySignatureBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RazorpaySignatureBenchmark {
+
+    private static final String SECRET = "rzp_bench_secret_0123456789";
+
+    private final String orderId = "order_NyJ0Cwq5fKdNQa";
+    private final String paymentId = "pay_NyJ0IcEVXmbBXx";
+    private String signature;
+    private RazorpaySignatureVerifier verifier;
+
+    @Setup
+    public void setUp() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(mac.doFinal((orderId + "|" + paymentId).getBytes()));
+        verifier = new RazorpaySignatureVerifier(SECRET, "");
+    }
+
+    /** What RazorpayService did before: new Mac and key per call, StringBuilder hex, String.equals. */
+    @Benchmark
+    public boolean perCallMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(), "HmacSHA256"));
+        byte[] hash = mac.doFinal((orderId + "|" + paymentId).getBytes());
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            String h = Integer.toHexString(0xff & b);
+            if (h.length() == 1) hex.append('0');
+            hex.append(h);
+        }
+        return hex.toString().equals(signature);
+    }
+
+    @Benchmark
+    public boolean cachedMac() {
+        return verifier.verifyPayment(orderId, paymentId, signature);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .include(RazorpaySignatureBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
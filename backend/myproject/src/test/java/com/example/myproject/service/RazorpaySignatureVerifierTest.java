@@ -0,0 +1,104 @@
+package com.example.myproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RazorpaySignatureVerifierTest {
+
+    private final RazorpaySignatureVerifier verifier = new RazorpaySignatureVerifier("key_secret", "hook_secret");
+
+    private static String hmac(String secret, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void acceptsCheckoutSignatureAndRejectsAnyOtherPair() throws Exception {
+        String signature = hmac("key_secret", "order_1|pay_1");
+
+        assertTrue(verifier.verifyPayment("order_1", "pay_1", signature));
+        assertTrue(verifier.verifyPayment("order_1", "pay_1", signature.toUpperCase()));
+        assertFalse(verifier.verifyPayment("order_1", "pay_2", signature));
+        assertFalse(verifier.verifyPayment("order_1", "pay_1", hmac("other_secret", "order_1|pay_1")));
+        // The Mac is reused; a rejected call must not leave state behind for the next one
+        assertTrue(verifier.verifyPayment("order_1", "pay_1", signature));
+    }
+
+    @Test
+    void malformedSignaturesAreRejectedWithoutThrowing() {
+        assertFalse(verifier.verifyPayment("order_1", "pay_1", null));
+        assertFalse(verifier.verifyPayment("order_1", "pay_1", ""));
+        assertFalse(verifier.verifyPayment("order_1", "pay_1", "abc"));
+        assertFalse(verifier.verifyPayment("order_1", "pay_1", "zz".repeat(32)));
+    }
+
+    @Test
+    void webhookBodiesIncludingNonAsciiAndLargeOnesVerify() throws Exception {
+        String small = "{\"event\":\"payment.captured\"}";
+        String unicode = "{\"notes\":{\"customer_name\":\"Zoë ₹\"}}";
+        String large = "{\"pad\":\"" + "x".repeat(10_000) + "\"}";
+        // Longer than the scratch buffer, with non-ASCII only after the first chunks
+        String huge = "{\"pad\":\"" + "x".repeat(100_000) + "\",\"name\":\"Zoë\"}";
+
+        assertTrue(verifier.verifyWebhook(small, hmac("hook_secret", small)));
+        assertTrue(verifier.verifyWebhook(unicode, hmac("hook_secret", unicode)));
+        assertTrue(verifier.verifyWebhook(large, hmac("hook_secret", large)));
+        assertTrue(verifier.verifyWebhook(huge, hmac("hook_secret", huge)));
+        assertFalse(verifier.verifyWebhook(huge.replace("Zoë", "Zoe"), hmac("hook_secret", huge)));
+        assertFalse(verifier.verifyWebhook(small, hmac("key_secret", small)));
+    }
+
+    @Test
+    void batchVerificationReportsEachPayload() throws Exception {
+        String a = "{\"id\":1}";
+        String b = "{\"id\":2}";
+        boolean[] valid = verifier.verifyWebhooks(List.of(
+            new RazorpaySignatureVerifier.SignedPayload(a, hmac("hook_secret", a)),
+            new RazorpaySignatureVerifier.SignedPayload(b, hmac("hook_secret", a)),
+            new RazorpaySignatureVerifier.SignedPayload(b, hmac("hook_secret", b))));
+
+        assertArrayEquals(new boolean[] {true, false, true}, valid);
+    }
+
+    @Test
+    void webhooksAreRejectedWhenNoSecretIsConfigured() throws Exception {
+        RazorpaySignatureVerifier unconfigured = new RazorpaySignatureVerifier("key_secret", "");
+        String body = "{}";
+
+        assertFalse(unconfigured.isWebhookConfigured());
+        assertFalse(unconfigured.verifyWebhook(body, hmac("hook_secret", body)));
+        assertArrayEquals(new boolean[] {false},
+            unconfigured.verifyWebhooks(List.of(new RazorpaySignatureVerifier.SignedPayload(body, "00"))));
+    }
+
+    @Test
+    void concurrentVerificationsDoNotShareMacState() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                String order = "order_" + i;
+                String payment = "pay_" + i;
+                String signature = hmac("key_secret", order + "|" + payment);
+                results.add(pool.submit(() -> verifier.verifyPayment(order, payment, signature)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.myproject.service;
+
+import com.example.myproject.entity.DailyPaymentSalesEntity;
+import com.example.myproject.entity.DailyProductSalesEntity;
+import com.example.myproject.entity.OrderEntity;
+import com.example.myproject.entity.OrderItemEntity;
+import com.example.myproject.entity.ProductEntity;
+import com.example.myproject.entity.UserEntity;
+import com.example.myproject.repository.DailyPaymentSalesRepository;
+import com.example.myproject.repository.DailyProductSalesRepository;
+import com.example.myproject.repository.OrderRepository;
+import com.example.myproject.repository.ProductRepository;
+import com.example.myproject.repository.SalesRollupDirtyDayRepository;
+import com.example.myproject.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:sales_rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "orders.archive.older-than-months=6"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SalesRollupService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().minusDays(3);
+
+    @Autowired private SalesRollupService salesRollupService;
+    @Autowired private DailyProductSalesRepository productSalesRepository;
+    @Autowired private DailyPaymentSalesRepository paymentSalesRepository;
+    @Autowired private SalesRollupDirtyDayRepository dirtyDayRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate tx;
+
+    private UserEntity user;
+    private ProductEntity bun;
+    private ProductEntity cake;
+    private int orderCount;
+
+    @BeforeEach
+    void seed() {
+        UserEntity u = new UserEntity();
+        u.setFullName("Buyer");
+        u.setEmail("buyer@example.com");
+        u.setPassword("secret");
+        user = userRepository.save(u);
+        bun = productRepository.save(product("Bun", "2.50"));
+        cake = productRepository.save(product("Cake", "12.00"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productSalesRepository.deleteAll();
+        paymentSalesRepository.deleteAll();
+        dirtyDayRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private static ProductEntity product(String name, String price) {
+        ProductEntity product = new ProductEntity();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setCategory("Bakery");
+        product.setStockQuantity(100);
+        return product;
+    }
+
+    /** An order created on {@code day}, one line per {product, quantity} pair. */
+    private OrderEntity order(LocalDate day, OrderEntity.PaymentMethod method, Object... lines) {
+        OrderEntity order = new OrderEntity();
+        order.setUser(user);
+        order.setOrderNumber("ORD-" + (++orderCount));
+        order.setPaymentMethod(method);
+        order.setShippingFee(new BigDecimal("1.00"));
+        order.setShippingName("Buyer");
+        order.setShippingPhone("9999999999");
+        order.setShippingAddress("1 Baker Street");
+        order.setShippingCity("Pune");
+        order.setShippingState("MH");
+        order.setShippingPincode("411001");
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines.length; i += 2) {
+            ProductEntity product = (ProductEntity) lines[i];
+            int quantity = (Integer) lines[i + 1];
+            OrderItemEntity item = new OrderItemEntity();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductName(product.getName());
+            item.setQuantity(quantity);
+            item.setPriceAtPurchase(product.getPrice());
+            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+            order.getOrderItems().add(item);
+            total = total.add(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        order.setFinalAmount(total.add(order.getShippingFee()));
+        OrderEntity saved = orderRepository.save(order);
+        LocalDateTime createdAt = day.atTime(10, 0);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE order_id = ?", createdAt, saved.getOrderId());
+        saved.setCreatedAt(createdAt);
+        return saved;
+    }
+
+    // Moves the order to a new state and records it the way OrderService does
+    private void transition(OrderEntity order, OrderEntity.OrderStatus status, OrderEntity.PaymentStatus paymentStatus) {
+        tx.executeWithoutResult(s -> {
+            boolean countedBefore = SalesRollupService.countsAsSale(order);
+            order.setStatus(status);
+            order.setPaymentStatus(paymentStatus);
+            jdbcTemplate.update("UPDATE orders SET status = ?, payment_status = ? WHERE order_id = ?",
+                status.name(), paymentStatus.name(), order.getOrderId());
+            salesRollupService.recordTransition(order, countedBefore);
+        });
+    }
+
+    private Map<Long, String> productRollup(LocalDate day) {
+        return salesRollupService.getProductSales(day, day).stream().collect(Collectors.toMap(
+            DailyProductSalesEntity::getProductId,
+            r -> r.getUnitsSold() + " units / " + r.getGrossAmount().stripTrailingZeros().toPlainString()
+                + " / " + r.getOrderCount() + " orders",
+            (a, b) -> a, TreeMap::new));
+    }
+
+    private Map<String, String> paymentRollup(LocalDate day) {
+        return salesRollupService.getPaymentSales(day, day).stream().collect(Collectors.toMap(
+            DailyPaymentSalesEntity::getPaymentMethod,
+            r -> r.getOrderCount() + " orders / " + r.getUnitsSold() + " units / "
+                + r.getGrossAmount().stripTrailingZeros().toPlainString() + " + "
+                + r.getShippingAmount().stripTrailingZeros().toPlainString(),
+            (a, b) -> a, TreeMap::new));
+    }
+
+    @Test
+    void confirmingAddsTheOrderAndCancellingOrRefundingTakesItBackOut() {
+        OrderEntity first = order(DAY, OrderEntity.PaymentMethod.COD, bun, 2, cake, 1, bun, 1);
+        OrderEntity second = order(DAY, OrderEntity.PaymentMethod.COD, bun, 4);
+
+        transition(first, OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.PENDING);
+        transition(second, OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.PENDING);
+        // Still a sale: no delta
+        transition(second, OrderEntity.OrderStatus.DELIVERED, OrderEntity.PaymentStatus.PAID);
+
+        assertEquals(Map.of(
+            bun.getProductId(), "7 units / 17.5 / 2 orders",
+            cake.getProductId(), "1 units / 12 / 1 orders"), productRollup(DAY));
+        assertEquals(Map.of("COD", "2 orders / 8 units / 29.5 + 2"), paymentRollup(DAY));
+        assertTrue(dirtyDayRepository.existsById(DAY));
+
+        // Cancel after confirm, and a refund of a delivered order
+        transition(first, OrderEntity.OrderStatus.CANCELLED, OrderEntity.PaymentStatus.PENDING);
+        transition(second, OrderEntity.OrderStatus.DELIVERED, OrderEntity.PaymentStatus.REFUNDED);
+
+        assertEquals(Map.of(
+            bun.getProductId(), "0 units / 0 / 0 orders",
+            cake.getProductId(), "0 units / 0 / 0 orders"), productRollup(DAY));
+        assertEquals(Map.of("COD", "0 orders / 0 units / 0 + 0"), paymentRollup(DAY));
+    }
+
+    @Test
+    void reconcilingADirtyDayRebuildsItToMatchTheOrders() {
+        OrderEntity confirmed = order(DAY, OrderEntity.PaymentMethod.COD, bun, 2, cake, 1);
+        OrderEntity paid = order(DAY, OrderEntity.PaymentMethod.RAZORPAY, bun, 3);
+        OrderEntity cancelled = order(DAY, OrderEntity.PaymentMethod.COD, cake, 5);
+        OrderEntity refunded = order(DAY, OrderEntity.PaymentMethod.RAZORPAY, bun, 1);
+        order(DAY, OrderEntity.PaymentMethod.RAZORPAY, cake, 2);   // still PENDING
+        OrderEntity nextDay = order(DAY.plusDays(1), OrderEntity.PaymentMethod.COD, bun, 9);
+
+        transition(confirmed, OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.PENDING);
+        transition(paid, OrderEntity.OrderStatus.SHIPPED, OrderEntity.PaymentStatus.PAID);
+        transition(cancelled, OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.PENDING);
+        transition(cancelled, OrderEntity.OrderStatus.CANCELLED, OrderEntity.PaymentStatus.PENDING);
+        transition(refunded, OrderEntity.OrderStatus.DELIVERED, OrderEntity.PaymentStatus.REFUNDED);
+        transition(nextDay, OrderEntity.OrderStatus.CONFIRMED, OrderEntity.PaymentStatus.PENDING);
+        Map<Long, String> incremental = productRollup(DAY);
+        Map<String, String> incrementalPayments = paymentRollup(DAY);
+
+        // Drift the stored rollup, as a missed delta would
+        tx.executeWithoutResult(s -> productSalesRepository.addDelta(DAY, bun.getProductId(), "Bun", 40, new BigDecimal("99.00"), 3));
+
+        salesRollupService.reconcileDirtyDays();
+
+        // What a full scan of orders / order_items says the day should hold
+        assertEquals(Map.of(
+            bun.getProductId(), "5 units / 12.5 / 2 orders",
+            cake.getProductId(), "1 units / 12 / 1 orders"), productRollup(DAY));
+        assertEquals(Map.of(
+            "COD", "1 orders / 3 units / 17 + 1",
+            "RAZORPAY", "1 orders / 3 units / 7.5 + 1"), paymentRollup(DAY));
+        assertEquals(Map.of(bun.getProductId(), "9 units / 22.5 / 1 orders"), productRollup(DAY.plusDays(1)));
+        // The incremental path had produced the same numbers (cancelled rows just sit at zero)
+        assertEquals("5 units / 12.5 / 2 orders", incremental.get(bun.getProductId()));
+        assertEquals("1 orders / 3 units / 17 + 1", incrementalPayments.get("COD"));
+        assertEquals(0, dirtyDayRepository.count());
+    }
+
+    @Test
+    void daysPastTheArchiveHorizonKeepTheirRollupAndAreNotRebuilt() {
+        LocalDate archived = LocalDate.now().minusMonths(7);
+        tx.executeWithoutResult(s -> {
+            productSalesRepository.addDelta(archived, bun.getProductId(), "Bun", 6, new BigDecimal("15.00"), 2);
+            dirtyDayRepository.markDirty(archived, LocalDateTime.now());
+        });
+
+        salesRollupService.reconcileDirtyDays();
+
+        // Its orders may be in archived_orders, so a rebuild would wipe real sales
+        assertEquals(Map.of(bun.getProductId(), "6 units / 15 / 2 orders"), productRollup(archived));
+        assertFalse(dirtyDayRepository.existsById(archived));
+        assertThrows(RuntimeException.class, () -> salesRollupService.rebuildDay(archived));
+        assertEquals(List.of(), paymentSalesRepository.findAll());
+    }
+}
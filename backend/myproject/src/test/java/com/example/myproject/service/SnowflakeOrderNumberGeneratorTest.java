@@ -0,0 +1,99 @@
+package com.example.myproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    @Test
+    void concurrentCallersNeverCollideAndStayMonotonicPerThread() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7, System::currentTimeMillis);
+        int threads = 16;
+        int perThread = 20_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Long> seen = new HashSet<>(threads * perThread * 2);
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(seen.add(ids[i]), "duplicate id " + ids[i]);
+                if (i > 0) assertTrue(ids[i] > ids[i - 1], "ids must increase within a thread");
+            }
+        }
+        pool.shutdown();
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void sameMillisecondAndBackwardsClockStillIncrease() {
+        AtomicLong now = new AtomicLong(SnowflakeOrderNumberGenerator.EPOCH + 1_000);
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(3, now::get);
+
+        long previous = generator.nextId();
+        // exhaust more than one millisecond's worth of sequence on a frozen clock
+        for (int i = 0; i < SnowflakeOrderNumberGenerator.MAX_SEQUENCE + 10; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+
+        now.addAndGet(-500); // NTP step backwards
+        long afterStep = generator.nextId();
+        assertTrue(afterStep > previous);
+    }
+
+    @Test
+    void differentNodesNeverShareIdsInTheSameMillisecond() {
+        AtomicLong now = new AtomicLong(SnowflakeOrderNumberGenerator.EPOCH + 42);
+        SnowflakeOrderNumberGenerator nodeA = new SnowflakeOrderNumberGenerator(1, now::get);
+        SnowflakeOrderNumberGenerator nodeB = new SnowflakeOrderNumberGenerator(2, now::get);
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(seen.add(nodeA.nextId()));
+            assertTrue(seen.add(nodeB.nextId()));
+        }
+    }
+
+    @Test
+    void orderNumbersAreShortAndSortLikeTheirIds() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(0, System::currentTimeMillis);
+        String first = generator.nextOrderNumber();
+        String second = generator.nextOrderNumber();
+
+        assertEquals(16, first.length());
+        assertTrue(first.startsWith("ORD"));
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new SnowflakeOrderNumberGenerator(SnowflakeOrderNumberGenerator.MAX_NODE_ID + 1, System::currentTimeMillis));
+    }
+}
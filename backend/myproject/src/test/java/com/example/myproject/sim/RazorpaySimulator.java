@@ -0,0 +1,324 @@
+package com.example.myproject.sim;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the parts of api.razorpay.com this app uses, for
+ * local end-to-end and load tests. Never shipped: it lives under src/test.
+ *
+ * Razorpay API (Basic auth with the configured key id/secret):
+ * <ul>
+ *   <li>POST /v1/orders — creates an order</li>
+ *   <li>GET /v1/payments?from&amp;to&amp;count&amp;skip — lists payments, newest first</li>
+ * </ul>
+ * Simulator controls (no auth):
+ * <ul>
+ *   <li>POST /sim/orders/{id}/pay — captures a payment and returns what Razorpay
+ *       Checkout would hand the browser: order id, payment id and signature,
+ *       ready to POST to /api/payment/verify. Sends a signed payment.captured
+ *       webhook too when a webhook URL is set.</li>
+ *   <li>GET /sim/stats — request counters</li>
+ * </ul>
+ * Every API call waits {@code latencyMs} plus an exponentially distributed extra
+ * with mean {@code jitterMs} (a long tail like a real gateway's). A
+ * {@code serverErrorRate} share of calls gets a 502 and a {@code throttleRate}
+ * share gets a 429. All knobs can be changed while it runs.
+ */
+public class RazorpaySimulator implements AutoCloseable {
+
+    private static final Pattern PAY_PATH = Pattern.compile("^/sim/orders/([^/]+)/pay$");
+    private static final Pattern AMOUNT = Pattern.compile("\"amount\"\\s*:\\s*(\\d+)");
+    private static final Pattern CURRENCY = Pattern.compile("\"currency\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern RECEIPT = Pattern.compile("\"receipt\"\\s*:\\s*\"([^\"]*)\"");
+
+    private record SimOrder(String id, long amount, String currency, String receipt, long createdAt) {
+    }
+
+    private record SimPayment(String id, String orderId, long amount, String currency, long createdAt) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient webhookClient = HttpClient.newHttpClient();
+    private final String authorization;
+    private final String keySecret;
+
+    private final Map<String, SimOrder> orders = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<SimPayment> payments = new ConcurrentLinkedDeque<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final AtomicLong ordersCreated = new AtomicLong();
+    private final AtomicLong paymentsCaptured = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double serverErrorRate;
+    private volatile double throttleRate;
+    private volatile String webhookUrl;
+    private volatile String webhookSecret;
+
+    /** Starts listening right away; port 0 picks a free port. */
+    public RazorpaySimulator(int port, String keyId, String keySecret, int threads) throws IOException {
+        this.keySecret = keySecret;
+        this.authorization = "Basic " + Base64.getEncoder()
+            .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newFixedThreadPool(Math.max(threads, 1), r -> {
+            Thread t = new Thread(r, "razorpay-sim");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/orders", this::handleCreateOrder);
+        server.createContext("/v1/payments", this::handleListPayments);
+        server.createContext("/sim/orders/", this::handlePay);
+        server.createContext("/sim/stats", this::handleStats);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // KNOBS
+    // ─────────────────────────────────────────────────────────────────────────
+    public void setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = Math.max(latencyMs, 0);
+        this.jitterMs = Math.max(jitterMs, 0);
+    }
+
+    public void setErrorRates(double serverErrorRate, double throttleRate) {
+        this.serverErrorRate = serverErrorRate;
+        this.throttleRate = throttleRate;
+    }
+
+    /** Where to POST payment.captured webhooks; null or blank turns them off. */
+    public void setWebhook(String url, String secret) {
+        this.webhookUrl = url == null || url.isBlank() ? null : url;
+        this.webhookSecret = secret;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // RAZORPAY API
+    // ─────────────────────────────────────────────────────────────────────────
+    private void handleCreateOrder(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("BAD_REQUEST_ERROR", "Method not allowed"));
+            return;
+        }
+        if (!admit(exchange)) return;
+
+        String body = readBody(exchange);
+        Matcher amount = AMOUNT.matcher(body);
+        if (!amount.find() || Long.parseLong(amount.group(1)) < 100) {
+            respond(exchange, 400, error("BAD_REQUEST_ERROR", "The amount must be atleast INR 1.00"));
+            return;
+        }
+
+        SimOrder order = new SimOrder(
+            "order_sim" + ids.incrementAndGet(),
+            Long.parseLong(amount.group(1)),
+            group(CURRENCY, body, "INR"),
+            group(RECEIPT, body, ""),
+            System.currentTimeMillis() / 1000);
+        orders.put(order.id(), order);
+        ordersCreated.incrementAndGet();
+
+        respond(exchange, 200, "{\"id\":\"" + order.id() + "\",\"entity\":\"order\",\"amount\":" + order.amount()
+            + ",\"amount_paid\":0,\"amount_due\":" + order.amount() + ",\"currency\":\"" + order.currency()
+            + "\",\"receipt\":\"" + order.receipt() + "\",\"status\":\"created\",\"attempts\":0,\"created_at\":"
+            + order.createdAt() + "}");
+    }
+
+    private void handleListPayments(HttpExchange exchange) throws IOException {
+        if (!admit(exchange)) return;
+
+        Map<String, String> query = query(exchange.getRequestURI());
+        long from = Long.parseLong(query.getOrDefault("from", "0"));
+        long to = Long.parseLong(query.getOrDefault("to", String.valueOf(Long.MAX_VALUE)));
+        int count = Math.min(Integer.parseInt(query.getOrDefault("count", "10")), 100);
+        int skip = Integer.parseInt(query.getOrDefault("skip", "0"));
+
+        List<String> items = new ArrayList<>();
+        int seen = 0;
+        for (Iterator<SimPayment> it = payments.iterator(); it.hasNext() && items.size() < count; ) {
+            SimPayment p = it.next();
+            if (p.createdAt() < from || p.createdAt() > to) continue;
+            if (seen++ < skip) continue;
+            items.add(paymentJson(p));
+        }
+        respond(exchange, 200, "{\"entity\":\"collection\",\"count\":" + items.size()
+            + ",\"items\":[" + String.join(",", items) + "]}");
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // SIMULATOR CONTROLS
+    // ─────────────────────────────────────────────────────────────────────────
+    private void handlePay(HttpExchange exchange) throws IOException {
+        Matcher m = PAY_PATH.matcher(exchange.getRequestURI().getPath());
+        SimOrder order = m.matches() ? orders.get(m.group(1)) : null;
+        if (order == null) {
+            respond(exchange, 404, error("BAD_REQUEST_ERROR", "The id provided does not exist"));
+            return;
+        }
+
+        SimPayment payment = new SimPayment("pay_sim" + ids.incrementAndGet(), order.id(), order.amount(),
+            order.currency(), System.currentTimeMillis() / 1000);
+        payments.addFirst(payment);
+        paymentsCaptured.incrementAndGet();
+        sendWebhook(payment);
+
+        respond(exchange, 200, "{\"razorpay_order_id\":\"" + order.id() + "\",\"razorpay_payment_id\":\""
+            + payment.id() + "\",\"razorpay_signature\":\"" + sign(keySecret, order.id() + "|" + payment.id()) + "\"}");
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "{\"orders_created\":" + ordersCreated.get()
+            + ",\"payments_captured\":" + paymentsCaptured.get()
+            + ",\"server_errors\":" + serverErrors.get()
+            + ",\"throttled\":" + throttled.get()
+            + ",\"unauthorized\":" + unauthorized.get() + "}");
+    }
+
+    private void sendWebhook(SimPayment payment) {
+        String url = webhookUrl;
+        String secret = webhookSecret;
+        if (url == null || secret == null) return;
+
+        String body = "{\"entity\":\"event\",\"event\":\"payment.captured\",\"payload\":{\"payment\":{\"entity\":"
+            + paymentJson(payment) + "}},\"created_at\":" + payment.createdAt() + "}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .header("X-Razorpay-Signature", sign(secret, body))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // HELPERS
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /** Auth, latency and injected failures shared by every API call; false once answered. */
+    private boolean admit(HttpExchange exchange) throws IOException {
+        if (!authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            unauthorized.incrementAndGet();
+            respond(exchange, 401, error("BAD_REQUEST_ERROR", "Authentication failed"));
+            return false;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? (long) (-jitterMs * Math.log(1 - random.nextDouble())) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        double roll = random.nextDouble();
+        if (roll < serverErrorRate) {
+            serverErrors.incrementAndGet();
+            respond(exchange, 502, error("SERVER_ERROR", "Simulated gateway error"));
+            return false;
+        }
+        if (roll < serverErrorRate + throttleRate) {
+            throttled.incrementAndGet();
+            respond(exchange, 429, error("BAD_REQUEST_ERROR", "Too many requests"));
+            return false;
+        }
+        return true;
+    }
+
+    private static String paymentJson(SimPayment p) {
+        return "{\"id\":\"" + p.id() + "\",\"entity\":\"payment\",\"amount\":" + p.amount()
+            + ",\"currency\":\"" + p.currency() + "\",\"status\":\"captured\",\"order_id\":\"" + p.orderId()
+            + "\",\"method\":\"upi\",\"captured\":true,\"created_at\":" + p.createdAt() + "}";
+    }
+
+    /** Hex HMAC-SHA256, the format of both Checkout and webhook signatures. */
+    public static String sign(String secret, String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String error(String code, String description) {
+        return "{\"error\":{\"code\":\"" + code + "\",\"description\":\"" + description + "\"}}";
+    }
+
+    private static String group(Pattern pattern, String body, String fallback) {
+        Matcher m = pattern.matcher(body);
+        return m.find() ? m.group(1) : fallback;
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        if (uri.getRawQuery() == null) return params;
+        for (String pair : uri.getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.myproject.sim;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+
+/**
+ * Starts {@link RazorpaySimulator} inside the app when the "razorpay-sim" profile
+ * is active; application-razorpay-sim.properties points the gateway at it.
+ */
+@Configuration
+@Profile("razorpay-sim")
+public class RazorpaySimulatorConfig {
+
+    @Bean(destroyMethod = "close")
+    public RazorpaySimulator razorpaySimulator(
+        @Value("${razorpay.sim.port}") int port,
+        @Value("${razorpay.key.id}") String keyId,
+        @Value("${razorpay.key.secret}") String keySecret,
+        @Value("${razorpay.sim.threads:256}") int threads,
+        @Value("${razorpay.sim.latency-ms:0}") long latencyMs,
+        @Value("${razorpay.sim.latency-jitter-ms:0}") long jitterMs,
+        @Value("${razorpay.sim.server-error-rate:0}") double serverErrorRate,
+        @Value("${razorpay.sim.throttle-rate:0}") double throttleRate,
+        @Value("${razorpay.sim.webhook-url:}") String webhookUrl,
+        @Value("${razorpay.webhook.secret:}") String webhookSecret
+    ) throws IOException {
+        RazorpaySimulator simulator = new RazorpaySimulator(port, keyId, keySecret, threads);
+        simulator.setLatency(latencyMs, jitterMs);
+        simulator.setErrorRates(serverErrorRate, throttleRate);
+        simulator.setWebhook(webhookUrl, webhookSecret);
+        System.out.println("✅ Razorpay simulator listening on " + simulator.baseUrl());
+        return simulator;
+    }
+}
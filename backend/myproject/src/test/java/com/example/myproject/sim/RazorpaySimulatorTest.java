@@ -0,0 +1,118 @@
+package com.example.myproject.sim;
+
+import com.example.myproject.service.RazorpayGateway;
+import com.example.myproject.service.RazorpaySignatureVerifier;
+import com.razorpay.RazorpayException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RazorpaySimulatorTest {
+
+    private RazorpaySimulator simulator;
+
+    @BeforeEach
+    void start() throws Exception {
+        simulator = new RazorpaySimulator(0, "rzp_test_sim", "sim_secret", 64);
+    }
+
+    @AfterEach
+    void stop() {
+        simulator.close();
+    }
+
+    private RazorpayGateway gateway(String keySecret) {
+        return new RazorpayGateway(simulator.baseUrl(), "rzp_test_sim", keySecret, 1000, 2000, 64, 1000, 1000, 30000);
+    }
+
+    private static JSONObject orderRequest(int amount) throws Exception {
+        JSONObject request = new JSONObject();
+        request.put("amount", amount);
+        request.put("currency", "INR");
+        request.put("receipt", "ORD-1");
+        return request;
+    }
+
+    private JSONObject pay(String razorpayOrderId) throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(URI.create(simulator.baseUrl() + "/sim/orders/" + razorpayOrderId + "/pay"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return new JSONObject(response.body());
+    }
+
+    @Test
+    void createOrderPayAndVerifyLikeCheckout() throws Exception {
+        JSONObject order = gateway("sim_secret").createOrder(orderRequest(2500));
+        assertEquals("created", order.getString("status"));
+        assertEquals(2500, order.getInt("amount"));
+
+        JSONObject callback = pay(order.getString("id"));
+        RazorpaySignatureVerifier verifier = new RazorpaySignatureVerifier("sim_secret", "");
+        assertTrue(verifier.verifyPayment(callback.getString("razorpay_order_id"),
+            callback.getString("razorpay_payment_id"), callback.getString("razorpay_signature")));
+
+        long now = System.currentTimeMillis() / 1000;
+        JSONObject listed = gateway("sim_secret").fetchPayments(now - 60, now + 60, 10, 0);
+        assertEquals(1, listed.getInt("count"));
+        assertEquals(order.getString("id"), listed.getJSONArray("items").getJSONObject(0).getString("order_id"));
+    }
+
+    @Test
+    void rejectsWrongCredentialsAndInvalidAmounts() throws Exception {
+        RazorpayException badKey = assertThrows(RazorpayException.class,
+            () -> gateway("wrong").createOrder(orderRequest(2500)));
+        assertEquals("Authentication failed", badKey.getMessage());
+
+        assertThrows(RazorpayException.class, () -> gateway("sim_secret").createOrder(orderRequest(50)));
+    }
+
+    @Test
+    void injectedServerErrorsSurfaceAsGatewayFailures() throws Exception {
+        simulator.setErrorRates(1.0, 0.0);
+        RazorpayException e = assertThrows(RazorpayException.class,
+            () -> gateway("sim_secret").createOrder(orderRequest(2500)));
+        assertTrue(e.getMessage().contains("502"));
+
+        simulator.setErrorRates(0.0, 1.0);
+        e = assertThrows(RazorpayException.class, () -> gateway("sim_secret").createOrder(orderRequest(2500)));
+        assertTrue(e.getMessage().contains("429"));
+    }
+
+    @Test
+    void servesConcurrentCheckoutsWithLatency() throws Exception {
+        simulator.setLatency(5, 5);
+        RazorpayGateway gateway = gateway("sim_secret");
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<String>> ids = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                ids.add(pool.submit(() -> gateway.createOrder(orderRequest(2500)).getString("id")));
+            }
+            long distinct = ids.stream().map(f -> {
+                try {
+                    return f.get();
+                } catch (Exception ex) {
+                    throw new AssertionError(ex);
+                }
+            }).distinct().count();
+            assertEquals(500, distinct);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
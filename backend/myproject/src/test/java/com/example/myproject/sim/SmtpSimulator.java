@@ -0,0 +1,165 @@
+package com.example.myproject.sim;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process SMTP server for mail tests. Never shipped: it lives under src/test.
+ *
+ * Speaks just enough SMTP for Jakarta Mail (EHLO/HELO, MAIL, RCPT, DATA, RSET,
+ * NOOP, QUIT) without AUTH or STARTTLS, and keeps what it received. Recipients
+ * added with {@link #rejectRecipient} get a 550, and {@link #dropConnections()}
+ * cuts every open connection the way a server restart or idle timeout would.
+ */
+public class SmtpSimulator implements AutoCloseable {
+
+    /** One accepted message: its envelope recipients and raw DATA. */
+    public record Received(List<String> recipients, String data) {
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "smtp-sim");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+    private final AtomicLong connections = new AtomicLong();
+
+    public SmtpSimulator() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void rejectRecipient(String address) {
+        rejected.add(address.toLowerCase(Locale.ROOT));
+    }
+
+    public List<Received> received() {
+        return List.copyOf(received);
+    }
+
+    public long connections() {
+        return connections.get();
+    }
+
+    /** Forgets received mail and rejected recipients (connections stay open). */
+    public void reset() {
+        received.clear();
+        rejected.clear();
+    }
+
+    public void dropConnections() throws IOException {
+        for (Socket socket : open) socket.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+        executor.shutdownNow();
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // PROTOCOL
+    // ─────────────────────────────────────────────────────────────────────────
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                open.add(socket);
+                executor.execute(() -> session(socket));
+            } catch (IOException e) {
+                return;   // closed
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            reply(out, "220 smtp-sim ready");
+
+            List<String> recipients = new CopyOnWriteArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase(Locale.ROOT) : line.toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-smtp-sim\r\n250 8BITMIME");
+                    case "HELO", "NOOP" -> reply(out, "250 OK");
+                    case "MAIL" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String address = address(line);
+                        if (rejected.contains(address.toLowerCase(Locale.ROOT))) {
+                            reply(out, "550 5.1.1 No such user " + address);
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        String dataLine;
+                        while ((dataLine = in.readLine()) != null && !dataLine.equals(".")) {
+                            data.append(dataLine.startsWith("..") ? dataLine.substring(1) : dataLine).append("\r\n");
+                        }
+                        received.add(new Received(List.copyOf(recipients), data.toString()));
+                        recipients.clear();
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // connection dropped
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
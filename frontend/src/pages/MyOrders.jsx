@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useMemo } from 'react';
+import React, { useState, useEffect, useMemo, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import {
   ArrowLeft, Package, MapPin, Calendar, Clock, ChevronDown,
@@ -339,12 +339,38 @@ const MyOrders = () => {
   const [sortBy, setSortBy]             = useState('newest');
   const [activeTab, setActiveTab]       = useState('items'); // 'items' | 'address' | 'payment' | 'timeline'
 
+  // The stream listener outlives renders, so it reads the current list through a ref
+  const ordersRef = useRef(orders);
+  useEffect(() => { ordersRef.current = orders; }, [orders]);
+
   useEffect(() => {
     const token = localStorage.getItem('token');
     if (!token) { navigate('/login'); return; }
     fetchOrders();
   }, []);
 
+  // Live status updates; EventSource reconnects and resumes by itself
+  useEffect(() => {
+    const token = localStorage.getItem('token');
+    if (!token) return;
+    const source = new EventSource(
+      `http://localhost:8080/api/orders/stream?access_token=${encodeURIComponent(token)}`
+    );
+    source.addEventListener('order', (e) => {
+      const change = JSON.parse(e.data);
+      // An order this page hasn't loaded yet (placed in another tab): reload the list
+      if (!ordersRef.current.some(o => o.orderId === change.orderId)) {
+        fetchOrders();
+        return;
+      }
+      setOrders(prev => prev.map(o => o.orderId === change.orderId
+        ? { ...o, status: change.status, paymentStatus: change.paymentStatus }
+        : o));
+    });
+    source.addEventListener('resync', () => fetchOrders());
+    return () => source.close();
+  }, []);
+
   const fetchOrders = async () => {
     setLoading(true); setError('');
     try {